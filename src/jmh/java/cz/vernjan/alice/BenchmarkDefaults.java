@@ -0,0 +1,13 @@
+package cz.vernjan.alice;
+
+final class BenchmarkDefaults {
+
+    /**
+     * Seed of the generated projects, so every run measures the same data.
+     */
+    static final long SEED = 20220501L;
+
+    private BenchmarkDefaults() {
+    }
+
+}
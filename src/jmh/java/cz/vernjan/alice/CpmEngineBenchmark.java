@@ -0,0 +1,69 @@
+package cz.vernjan.alice;
+
+import cz.vernjan.alice.ScheduleGenerator.Shape;
+import cz.vernjan.alice.domain.Project;
+import cz.vernjan.alice.domain.TaskRecord;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Evaluation of generated projects, from task records (including the graph build) and from a compiled graph,
+ * sequentially and in parallel.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class CpmEngineBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    int size;
+
+    @Param({"CHAIN", "FAN", "LAYERED", "BUILDINGS"})
+    Shape shape;
+
+    private final CpmEngine cpmEngine = new CpmEngine();
+    private final CpmEngine parallelEngine = new CpmEngine(new CpmEngineProperties(1, 0));
+
+    private List<TaskRecord> taskRecords;
+    private TaskGraph graph;
+
+    @Setup
+    public void setUp() {
+        taskRecords = ScheduleGenerator.generate(shape, size, BenchmarkDefaults.SEED);
+        graph = TaskGraph.of(taskRecords);
+    }
+
+    @Benchmark
+    public Project evaluate() {
+        return cpmEngine.evaluate(taskRecords);
+    }
+
+    @Benchmark
+    public Schedule schedule() {
+        return cpmEngine.schedule(graph);
+    }
+
+    /**
+     * Level by level, or component by component for {@code BUILDINGS}, on the common fork-join pool.
+     */
+    @Benchmark
+    public Schedule scheduleInParallel() {
+        return parallelEngine.schedule(graph);
+    }
+
+}
@@ -0,0 +1,58 @@
+package cz.vernjan.alice;
+
+import cz.vernjan.alice.ScheduleGenerator.Shape;
+import cz.vernjan.alice.domain.CrewPeak;
+import cz.vernjan.alice.domain.CrewProfile;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * Crew peak and per-crew profiles of an already evaluated schedule.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class CrewLoadBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    int size;
+
+    @Param({"FAN", "LAYERED"})
+    Shape shape;
+
+    private Schedule schedule;
+    private int[] tasks;
+
+    @Setup
+    public void setUp() {
+        schedule = new CpmEngine().schedule(TaskGraph.of(ScheduleGenerator.generate(shape, size, BenchmarkDefaults.SEED)));
+        tasks = IntStream.range(0, size).toArray();
+    }
+
+    @Benchmark
+    public CrewPeak peak() {
+        return CrewLoad.peak(tasks, schedule.earlyStart(), schedule.earlyFinish(), schedule.graph().crewAssignments());
+    }
+
+    @Benchmark
+    public List<CrewProfile> profiles() {
+        return schedule.crewProfiles(false);
+    }
+
+}
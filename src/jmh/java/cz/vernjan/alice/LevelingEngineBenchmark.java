@@ -0,0 +1,64 @@
+package cz.vernjan.alice;
+
+import cz.vernjan.alice.ScheduleGenerator.Shape;
+import cz.vernjan.alice.domain.CrewProfile;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Leveling of an already evaluated schedule, every crew is capped at a fraction of its unconstrained peak.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class LevelingEngineBenchmark {
+
+    @Param({"1000", "100000"})
+    int size;
+
+    @Param({"CHAIN", "FAN", "LAYERED"})
+    Shape shape;
+
+    /**
+     * Capacity of every crew as a fraction of its unconstrained peak.
+     */
+    @Param({"0.25", "0.5"})
+    double capacity;
+
+    private final LevelingEngine levelingEngine = new LevelingEngine();
+
+    private Schedule schedule;
+    private Map<String, Integer> capacities;
+
+    @Setup
+    public void setUp() {
+        schedule = new CpmEngine().schedule(TaskGraph.of(ScheduleGenerator.generate(shape, size, BenchmarkDefaults.SEED)));
+        capacities = new HashMap<>();
+        for (CrewProfile profile : schedule.crewProfiles(false)) {
+            // the generator assigns at most 8 members to a task
+            capacities.put(profile.crew(), Math.max(8, (int) (profile.peak() * capacity)));
+        }
+    }
+
+    @Benchmark
+    public Schedule level() {
+        return levelingEngine.level(schedule, capacities);
+    }
+
+}
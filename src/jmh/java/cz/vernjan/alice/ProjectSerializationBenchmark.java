@@ -0,0 +1,50 @@
+package cz.vernjan.alice;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import cz.vernjan.alice.ScheduleGenerator.Shape;
+import cz.vernjan.alice.domain.Project;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JSON serialization of an evaluated project, as done by {@code GET /project/{id}/task}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class ProjectSerializationBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    int size;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private Project project;
+
+    @Setup
+    public void setUp() {
+        project = new CpmEngine().evaluate(ScheduleGenerator.generate(Shape.LAYERED, size, BenchmarkDefaults.SEED));
+    }
+
+    @Benchmark
+    public void writeProject() throws IOException {
+        objectMapper.writeValue(OutputStream.nullOutputStream(), project);
+    }
+
+}
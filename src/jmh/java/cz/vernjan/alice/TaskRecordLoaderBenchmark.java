@@ -0,0 +1,57 @@
+package cz.vernjan.alice;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import cz.vernjan.alice.ScheduleGenerator.Shape;
+import cz.vernjan.alice.domain.TaskRecord;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parsing of the bundled project and of generated projects serialized to JSON in memory.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class TaskRecordLoaderBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    int size;
+
+    private final TaskRecordLoader loader = new TaskRecordLoader();
+
+    private byte[] json;
+
+    @Setup
+    public void setUp() throws IOException {
+        json = new ObjectMapper().writeValueAsBytes(ScheduleGenerator.generate(Shape.LAYERED, size, BenchmarkDefaults.SEED));
+    }
+
+    @Benchmark
+    public List<TaskRecord> loadFromResource() {
+        return loader.loadFromResource("LEO2-BE.json");
+    }
+
+    @Benchmark
+    public void read(Blackhole blackhole) throws IOException {
+        loader.read(new ByteArrayInputStream(json), blackhole::consume);
+    }
+
+}
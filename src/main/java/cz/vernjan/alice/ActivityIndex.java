@@ -0,0 +1,176 @@
+package cz.vernjan.alice;
+
+import java.util.Arrays;
+
+/**
+ * Interval index of the tasks of a schedule, answers which tasks are active during a time window without scanning
+ * all tasks.
+ * <p>
+ * Tasks are sorted by start. Tasks starting within the window are a contiguous run of the sorted array, found by a
+ * binary search and reported at {@code O(1)} each. Tasks which started before the window and are still active are
+ * found through the sorted array read as an implicit balanced search tree: the root of a range is its middle
+ * element and every node keeps the latest end within its subtree, so subtrees ending before the window are
+ * skipped. A query costs {@code O(log n + k)} plus at most {@code O(log n)} per task which was already active when
+ * the window started. A second copy of the tree is partitioned by crew, so a query for one crew only visits tasks
+ * of that crew.
+ * <p>
+ * A zero-duration task is active when its instant lies in the window, like in {@link TaskFilter}.
+ */
+final class ActivityIndex {
+
+    private final int[] start;
+    private final int[] finish;
+
+    // all tasks by start
+    private final int[] order;
+    private final int[] maxEnd;
+
+    // tasks with a crew by crew and start, tasks of crew c are crewOrder[crewOffsets[c] .. crewOffsets[c + 1])
+    private final int[] crewOrder;
+    private final int[] crewMaxEnd;
+    private final int[] crewOffsets;
+
+    private ActivityIndex(int[] start, int[] finish, int[] order, int[] crewOrder, int[] crewOffsets) {
+        this.start = start;
+        this.finish = finish;
+        this.order = order;
+        this.maxEnd = new int[order.length];
+        this.crewOrder = crewOrder;
+        this.crewMaxEnd = new int[crewOrder.length];
+        this.crewOffsets = crewOffsets;
+
+        build(order, maxEnd, 0, order.length);
+        for (int crew = 0; crew < crewOffsets.length - 1; crew++) {
+            build(crewOrder, crewMaxEnd, crewOffsets[crew], crewOffsets[crew + 1]);
+        }
+    }
+
+    /**
+     * @param start  start of every task, the array is kept by the index
+     * @param finish finish of every task, the array is kept by the index
+     * @param crews  crew id of every task, {@code -1} for tasks without a crew
+     */
+    static ActivityIndex of(int[] start, int[] finish, int[] crews, int crewCount) {
+        int size = start.length;
+        // start times are never negative, so the packed keys sort by start and then by id
+        long[] keys = new long[size];
+        for (int id = 0; id < size; id++) {
+            keys[id] = (long) start[id] << 32 | id;
+        }
+        Arrays.sort(keys);
+        int[] order = new int[size];
+        for (int i = 0; i < size; i++) {
+            order[i] = (int) keys[i];
+        }
+
+        int[] crewOffsets = new int[crewCount + 1];
+        for (int id = 0; id < size; id++) {
+            if (crews[id] >= 0) {
+                crewOffsets[crews[id] + 1]++;
+            }
+        }
+        for (int crew = 0; crew < crewCount; crew++) {
+            crewOffsets[crew + 1] += crewOffsets[crew];
+        }
+        // a stable partition of the start order keeps every crew in start order
+        int[] crewOrder = new int[crewOffsets[crewCount]];
+        int[] cursor = Arrays.copyOf(crewOffsets, crewCount);
+        for (int id : order) {
+            if (crews[id] >= 0) {
+                crewOrder[cursor[crews[id]]++] = id;
+            }
+        }
+        return new ActivityIndex(start, finish, order, crewOrder, crewOffsets);
+    }
+
+    /**
+     * @param from start of the time window (inclusive)
+     * @param to   end of the time window (exclusive)
+     * @param crew crew id or {@code -1} for tasks of all crews
+     * @return ids of the tasks active during the window, by start
+     */
+    int[] active(int from, int to, int crew) {
+        Result result = new Result();
+        if (crew < 0) {
+            active(order, maxEnd, 0, order.length, from, to, result);
+        } else {
+            active(crewOrder, crewMaxEnd, crewOffsets[crew], crewOffsets[crew + 1], from, to, result);
+        }
+        return Arrays.copyOf(result.ids, result.count);
+    }
+
+    private void active(int[] order, int[] maxEnd, int lo, int hi, int from, int to, Result result) {
+        // tasks started before the window which are still active, then the tasks starting within it
+        collect(order, maxEnd, lo, hi, from, Math.min(from, to), result);
+        for (int i = firstStartingAt(order, lo, hi, from); i < hi && start[order[i]] < to; i++) {
+            result.add(order[i]);
+        }
+    }
+
+    /**
+     * @return index of the first task of the range starting at or after the time, {@code hi} if there is none
+     */
+    private int firstStartingAt(int[] order, int lo, int hi, int time) {
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (start[order[mid]] < time) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    /**
+     * @return the exclusive end of the task, a zero-duration task occupies its instant
+     */
+    private int end(int id) {
+        return Math.max(finish[id], start[id] + 1);
+    }
+
+    private int build(int[] order, int[] maxEnd, int lo, int hi) {
+        if (lo >= hi) {
+            return Integer.MIN_VALUE;
+        }
+        int mid = (lo + hi) >>> 1;
+        int end = Math.max(end(order[mid]), Math.max(build(order, maxEnd, lo, mid), build(order, maxEnd, mid + 1, hi)));
+        maxEnd[mid] = end;
+        return end;
+    }
+
+    /**
+     * Collect tasks which end after {@code from} and start before {@code before}, by start.
+     */
+    private void collect(int[] order, int[] maxEnd, int lo, int hi, int from, int before, Result result) {
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (maxEnd[mid] <= from) {
+                return;
+            }
+            collect(order, maxEnd, lo, mid, from, before, result);
+            int id = order[mid];
+            if (start[id] >= before) {
+                return;
+            }
+            if (end(id) > from) {
+                result.add(id);
+            }
+            lo = mid + 1;
+        }
+    }
+
+    private static final class Result {
+
+        private int[] ids = new int[16];
+        private int count;
+
+        void add(int id) {
+            if (count == ids.length) {
+                ids = Arrays.copyOf(ids, count * 2);
+            }
+            ids[count++] = id;
+        }
+    }
+
+}
@@ -1,25 +1,68 @@
 package cz.vernjan.alice;
 
-import cz.vernjan.alice.domain.Interval;
+import cz.vernjan.alice.domain.CrewPeak;
 import cz.vernjan.alice.domain.Project;
-import cz.vernjan.alice.domain.ProjectTask;
+import cz.vernjan.alice.domain.SimulationResult;
+import cz.vernjan.alice.ProjectMetrics.Phase;
 import cz.vernjan.alice.domain.TaskRecord;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
-import java.util.*;
-
-import static java.util.stream.Collectors.*;
+import javax.annotation.PreDestroy;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
 
 /**
  * Represents Critical path method algorithm.
  *
+ * <p>
+ * Large graphs (see {@link CpmEngineProperties#parallelThreshold()}) are evaluated in parallel. A graph of several
+ * independent subgraphs (weakly connected components, e.g. separate buildings of a programme) has its components
+ * evaluated concurrently, each one sequentially. Otherwise it's evaluated level by level, tasks of the same
+ * topological level don't depend on each other, so each level is split among fork-join workers. The result is
+ * identical to the sequential evaluation.
+ *
  * @see <a href="https://en.wikipedia.org/wiki/Critical_path_method">Critical path method (wiki)</a>
  */
 @Component
 public class CpmEngine {
 
+    private static final Logger LOG = LoggerFactory.getLogger(CpmEngine.class);
+
+    private final CpmEngineProperties properties;
+    private final ProjectMetrics metrics;
+    private final ForkJoinPool pool;
+
+    public CpmEngine() {
+        this(CpmEngineProperties.SEQUENTIAL);
+    }
+
+    public CpmEngine(CpmEngineProperties properties) {
+        this(properties, ProjectMetrics.NOOP);
+    }
+
+    @Autowired
+    public CpmEngine(CpmEngineProperties properties, ProjectMetrics metrics) {
+        this.properties = properties;
+        this.metrics = metrics;
+        this.pool = properties.parallelism() > 0 ? new ForkJoinPool(properties.parallelism()) : ForkJoinPool.commonPool();
+        metrics.bindPool(pool, "cpm");
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (pool != ForkJoinPool.commonPool()) {
+            pool.shutdown();
+        }
+    }
+
     /**
      * Compute project summary and start and intervals for all project tasks.
      *
@@ -27,207 +70,318 @@ public class CpmEngine {
      * @return evaluated project
      */
     public Project evaluate(List<TaskRecord> taskRecords) {
-        List<TaskNode> taskNodes = initializeTaskHierarchy(taskRecords);
+        return evaluate(TaskGraph.of(taskRecords));
+    }
 
-        CpmProject cpmProject = new CpmProject(taskNodes);
+    /**
+     * Compute project summary and start and intervals for all tasks of a compiled task graph.
+     *
+     * @param graph task graph
+     * @return evaluated project
+     */
+    public Project evaluate(TaskGraph graph) {
+        return schedule(graph).project();
+    }
 
-        return new Project(
+    /**
+     * Compute early and late intervals for all tasks of a compiled task graph.
+     *
+     * @param graph task graph
+     * @return evaluated schedule
+     */
+    public Schedule schedule(TaskGraph graph) {
+        boolean parallel = properties.isParallel(graph.size());
+        if (parallel) {
+            LOG.debug("Evaluating {} tasks in parallel (parallelism: {})", graph.size(), pool.getParallelism());
+        }
+        metrics.recordGraph(graph);
+        CpmProject cpmProject = new CpmProject(graph, parallel ? pool : null, metrics);
+
+        long crewStart = metrics.start();
+        CrewPeak crewPeak = cpmProject.calculateCrewPeak();
+        metrics.stop(Phase.CREW_PEAK, crewStart);
+
+        return new Schedule(
+                graph,
+                cpmProject.earlyStart,
+                cpmProject.earlyFinish,
+                cpmProject.lateStart,
+                cpmProject.lateFinish,
                 cpmProject.getTotalDuration(),
-                cpmProject.calculateHighestCrewAssignment(),
-                cpmProject.getTasks());
+                crewPeak);
     }
 
-    private List<TaskNode> initializeTaskHierarchy(List<TaskRecord> taskRecords) {
-        Map<String, TaskNode> taskNodeMap = taskRecords.stream()
-                .map(TaskNode::new)
-                .collect(toMap(TaskNode::taskCode, node -> node, (e1, e2) -> e1, LinkedHashMap::new));
-
-        taskNodeMap.values().forEach(task ->
-                task.record.dependencies().forEach(taskDependency ->
-                        taskNodeMap.get(taskDependency).addChild(task)));
-
-        return List.copyOf(taskNodeMap.values());
+    /**
+     * Run a Monte Carlo schedule risk simulation, iterations are spread over the engine's fork-join pool.
+     *
+     * @param graph    task graph
+     * @param settings duration distributions and number of iterations
+     * @return distribution of the total duration and criticality index of every task
+     */
+    public SimulationResult simulate(TaskGraph graph, SimulationSettings settings) {
+        long seed = settings.seed() != null ? settings.seed() : ThreadLocalRandom.current().nextLong();
+        long start = metrics.start();
+        SimulationResult result = new MonteCarloSimulation(graph, settings).run(settings.iterations(), seed, pool);
+        metrics.stop(Phase.SIMULATION, start);
+        return result;
     }
 
     private static class CpmProject {
 
         private static final Logger LOG = LoggerFactory.getLogger(CpmProject.class);
 
-        private final List<TaskNode> taskNodes;
+        /**
+         * Minimum number of tasks of one level which is worth splitting among fork-join workers.
+         */
+        private static final int PARALLEL_GRAIN = 1024;
 
-        private CpmProject(List<TaskNode> taskNodes) {
-            this.taskNodes = taskNodes;
-            evaluateTaskIntervals();
-        }
+        private final TaskGraph graph;
+        private final ProjectMetrics metrics;
+        private final int[] durations;
+        private final int[] predecessorOffsets;
+        private final int[] predecessors;
+        private final int[] successorOffsets;
+        private final int[] successors;
 
-        private void evaluateTaskIntervals() {
-            Set<TaskNode> leafNodes = taskLeafNodes();
-            LOG.debug("Found leaf tasks: {}", leafNodes);
-            leafNodes.forEach(this::calculateEarlyInterval);
+        private final int[] earlyStart;
+        private final int[] earlyFinish;
+        private final int[] lateStart;
+        private final int[] lateFinish;
 
-            Set<TaskNode> rootNodes = taskRootNodes();
-            LOG.debug("Found root tasks: {}", rootNodes);
-            rootNodes.forEach(root -> calculateLateInterval(root, getTotalDuration()));
-        }
+        private int totalDuration;
 
-        private Set<TaskNode> taskRootNodes() {
-            return taskNodes.stream()
-                    .filter(task -> task.parents().isEmpty())
-                    .collect(toUnmodifiableSet());
+        /**
+         * @param pool pool for parallel evaluation or {@code null} to evaluate sequentially
+         */
+        private CpmProject(TaskGraph graph, ForkJoinPool pool, ProjectMetrics metrics) {
+            this.graph = graph;
+            this.metrics = metrics;
+            this.durations = graph.durations();
+            this.predecessorOffsets = graph.predecessorOffsets();
+            this.predecessors = graph.predecessors();
+            this.successorOffsets = graph.successorOffsets();
+            this.successors = graph.successors();
+
+            int size = graph.size();
+            this.earlyStart = new int[size];
+            this.earlyFinish = new int[size];
+            this.lateStart = new int[size];
+            this.lateFinish = new int[size];
+
+            if (pool != null && graph.componentCount() > 1 && graph.largestComponentSize() <= size / 2) {
+                evaluateComponentsInParallel(pool);
+            } else if (pool != null) {
+                evaluateTaskIntervalsInParallel(pool);
+            } else {
+                evaluateTaskIntervals();
+            }
         }
 
-        private Set<TaskNode> taskLeafNodes() {
-            return taskNodes.stream()
-                    .filter(task -> task.children().isEmpty())
-                    .collect(toUnmodifiableSet());
-        }
+        /**
+         * Forward pass visits tasks in topological order so all dependencies are already resolved, backward pass
+         * in reverse topological order so all dependants are already resolved.
+         */
+        private void evaluateTaskIntervals() {
+            int[] order = graph.topologicalOrder();
 
-        private TaskNode calculateEarlyInterval(TaskNode node) {
-            if (node.earlyFinish != null) {
-                return node;
+            long start = metrics.start();
+            int maxFinish = 0;
+            for (int id : order) {
+                maxFinish = Math.max(maxFinish, calculateEarlyInterval(id));
             }
+            totalDuration = maxFinish;
+            metrics.stop(Phase.FORWARD_PASS, start);
 
-            int earlyStart = node.parents().stream()
-                    .mapToInt(parent -> calculateEarlyInterval(parent).earlyFinish)
-                    .max()
-                    .orElse(0);
-
-            node.earlyStart = earlyStart;
-            node.earlyFinish = earlyStart + node.duration();
-
-            LOG.debug("Calculated early interval for {}: {}-{}", node, node.earlyStart, node.earlyFinish);
-
-            return node;
-        }
-
-        private TaskNode calculateLateInterval(TaskNode node, int totalDuration) {
-            if (node.lateFinish != null) {
-                return node;
+            start = metrics.start();
+            for (int k = order.length - 1; k >= 0; k--) {
+                calculateLateInterval(order[k]);
             }
+            metrics.stop(Phase.BACKWARD_PASS, start);
 
-            int lateFinish = node.children().stream()
-                    .mapToInt(child -> calculateLateInterval(child, totalDuration).lateStart)
-                    .min()
-                    .orElse(totalDuration);
-
-            node.lateStart = lateFinish - node.duration();
-            node.lateFinish = lateFinish;
+            LOG.debug("Calculated intervals for {} tasks (total duration: {})", order.length, totalDuration);
+        }
 
-            LOG.debug("Calculated late interval for {}: {}-{}", node, node.lateStart, node.lateFinish);
+        private void evaluateTaskIntervalsInParallel(ForkJoinPool pool) {
+            int[] levelOrder = graph.levelOrder();
+            int[] levelOffsets = graph.levelOffsets();
+            int depth = levelOffsets.length - 1;
 
-            return node;
-        }
+            long start = metrics.start();
+            for (int level = 0; level < depth; level++) {
+                forEachInParallel(pool, levelOrder, levelOffsets[level], levelOffsets[level + 1], this::calculateEarlyInterval);
+            }
 
-        /**
-         * @return the shortest possible duration of all tasks (i.e. the greatest early finish)
-         */
-        private int getTotalDuration() {
-            return taskLeafNodes().stream()
-                    .mapToInt(TaskNode::earlyFinish)
-                    .max()
-                    .orElse(0);
-        }
+            int maxFinish = 0;
+            for (int finish : earlyFinish) {
+                maxFinish = Math.max(maxFinish, finish);
+            }
+            totalDuration = maxFinish;
+            metrics.stop(Phase.FORWARD_PASS, start);
 
-        /**
-         * @return tasks with start interval and end interval
-         */
-        private List<ProjectTask> getTasks() {
-            return taskNodes.stream()
-                    .map(this::convertToProjectTask)
-                    .toList();
-        }
+            start = metrics.start();
+            for (int level = depth - 1; level >= 0; level--) {
+                forEachInParallel(pool, levelOrder, levelOffsets[level], levelOffsets[level + 1], this::calculateLateInterval);
+            }
+            metrics.stop(Phase.BACKWARD_PASS, start);
 
-        private ProjectTask convertToProjectTask(TaskNode node) {
-            return new ProjectTask(
-                    node.record,
-                    new Interval(node.earlyStart, node.lateStart),
-                    new Interval(node.earlyFinish, node.lateFinish));
+            LOG.debug("Calculated intervals for {} tasks in {} levels (total duration: {})",
+                    levelOrder.length, depth, totalDuration);
         }
 
         /**
-         * @return highest crew assignment at any given time (based on the early interval)
+         * Components don't depend on each other, so the passes run over whole components concurrently. Only the
+         * total duration, the greatest early finish of all components, is shared by the backward passes.
          */
-        private int calculateHighestCrewAssignment() {
-            List<TaskNode> tasksSortedByEarlyStart = taskNodes.stream()
-                    .sorted(Comparator.comparingInt(TaskNode::earlyStart))
-                    .toList();
+        private void evaluateComponentsInParallel(ForkJoinPool pool) {
+            int[] componentOrder = graph.componentOrder();
+            int[] componentOffsets = graph.componentOffsets();
+            int count = componentOffsets.length - 1;
 
-            Set<TaskNode> concurrentTasks = new TreeSet<>(
-                    Comparator.comparingInt(TaskNode::earlyFinish).thenComparing(TaskNode::taskCode));
+            long start = metrics.start();
+            pool.invoke(new ComponentAction(componentOrder, componentOffsets, 0, count, false, this::calculateEarlyInterval));
 
-            int highestCrewAssignment = 0;
+            int maxFinish = 0;
+            for (int finish : earlyFinish) {
+                maxFinish = Math.max(maxFinish, finish);
+            }
+            totalDuration = maxFinish;
+            metrics.stop(Phase.FORWARD_PASS, start);
 
-            for (TaskNode task : tasksSortedByEarlyStart) {
-                removeTasksFinishedBefore(concurrentTasks, task.earlyStart);
-                concurrentTasks.add(task);
+            start = metrics.start();
+            pool.invoke(new ComponentAction(componentOrder, componentOffsets, 0, count, true, this::calculateLateInterval));
+            metrics.stop(Phase.BACKWARD_PASS, start);
 
-                int currentCrewAssignment = concurrentTasks.stream()
-                        .mapToInt(concurrentTask -> concurrentTask.record.crew().assignment())
-                        .sum();
+            LOG.debug("Calculated intervals for {} tasks in {} components (total duration: {})",
+                    componentOrder.length, count, totalDuration);
+        }
 
-                highestCrewAssignment = Math.max(highestCrewAssignment, currentCrewAssignment);
+        private static void forEachInParallel(ForkJoinPool pool, int[] tasks, int from, int to, IntConsumer action) {
+            if (to - from < PARALLEL_GRAIN) {
+                for (int i = from; i < to; i++) {
+                    action.accept(tasks[i]);
+                }
+            } else {
+                pool.invoke(new LevelAction(tasks, from, to, action));
             }
-
-            return highestCrewAssignment;
         }
 
-        private void removeTasksFinishedBefore(Set<TaskNode> concurrentTasks, int before) {
-            Iterator<TaskNode> iterator = concurrentTasks.iterator();
-            while (iterator.hasNext() && iterator.next().earlyFinish <= before) {
-                iterator.remove();
+        /**
+         * @return early finish of the task
+         */
+        private int calculateEarlyInterval(int id) {
+            int start = 0;
+            for (int i = predecessorOffsets[id]; i < predecessorOffsets[id + 1]; i++) {
+                start = Math.max(start, earlyFinish[predecessors[i]]);
             }
+            earlyStart[id] = start;
+            earlyFinish[id] = start + durations[id];
+            return earlyFinish[id];
         }
-    }
 
-    private static class TaskNode {
-
-        private final TaskRecord record;
-        private final Set<TaskNode> children;
-        private final Set<TaskNode> parents;
-
-        private Integer earlyStart;
-        private Integer earlyFinish;
-        private Integer lateStart;
-        private Integer lateFinish;
-
-        TaskNode(TaskRecord record) {
-            this.record = record;
-            this.children = new HashSet<>();
-            this.parents = new HashSet<>();
+        private void calculateLateInterval(int id) {
+            int finish = totalDuration;
+            for (int i = successorOffsets[id]; i < successorOffsets[id + 1]; i++) {
+                finish = Math.min(finish, lateStart[successors[i]]);
+            }
+            lateStart[id] = finish - durations[id];
+            lateFinish[id] = finish;
         }
 
-        String taskCode() {
-            return record.taskCode();
+        /**
+         * @return the shortest possible duration of all tasks (i.e. the greatest early finish)
+         */
+        private int getTotalDuration() {
+            return totalDuration;
         }
 
-        int duration() {
-            return record.duration();
+        /**
+         * @return highest crew assignment at any given time and when it occurs (based on the early interval)
+         */
+        private CrewPeak calculateCrewPeak() {
+            int[] tasks = IntStream.range(0, graph.size()).toArray();
+            return CrewLoad.peak(tasks, earlyStart, earlyFinish, graph.crewAssignments());
         }
+    }
 
-        Set<TaskNode> children() {
-            return children;
+    /**
+     * Applies an action to all tasks of a range of components, every component in (reverse) topological order.
+     * The range is split in halves by number of tasks until it's a single component or small enough.
+     */
+    private static class ComponentAction extends RecursiveAction {
+
+        private final int[] order;
+        private final int[] offsets;
+        private final int from;
+        private final int to;
+        private final boolean reverse;
+        private final IntConsumer action;
+
+        ComponentAction(int[] order, int[] offsets, int from, int to, boolean reverse, IntConsumer action) {
+            this.order = order;
+            this.offsets = offsets;
+            this.from = from;
+            this.to = to;
+            this.reverse = reverse;
+            this.action = action;
         }
 
-        void addChild(TaskNode child) {
-            child.parents.add(this);
-            children.add(child);
-        }
+        @Override
+        protected void compute() {
+            if (to - from == 1 || offsets[to] - offsets[from] <= CpmProject.PARALLEL_GRAIN) {
+                for (int component = from; component < to; component++) {
+                    apply(component);
+                }
+                return;
+            }
 
-        Set<TaskNode> parents() {
-            return parents;
+            int half = (offsets[from] + offsets[to]) >>> 1;
+            int middle = Arrays.binarySearch(offsets, from + 1, to, half);
+            middle = Math.min(Math.max(middle >= 0 ? middle : -middle - 1, from + 1), to - 1);
+            invokeAll(
+                    new ComponentAction(order, offsets, from, middle, reverse, action),
+                    new ComponentAction(order, offsets, middle, to, reverse, action));
         }
 
-        Integer earlyStart() {
-            return earlyStart;
+        private void apply(int component) {
+            if (reverse) {
+                for (int i = offsets[component + 1] - 1; i >= offsets[component]; i--) {
+                    action.accept(order[i]);
+                }
+            } else {
+                for (int i = offsets[component]; i < offsets[component + 1]; i++) {
+                    action.accept(order[i]);
+                }
+            }
         }
+    }
 
-        Integer earlyFinish() {
-            return earlyFinish;
+    /**
+     * Applies an action to a range of tasks of one level, the range is split in halves until it's small enough.
+     */
+    private static class LevelAction extends RecursiveAction {
+
+        private final int[] tasks;
+        private final int from;
+        private final int to;
+        private final IntConsumer action;
+
+        LevelAction(int[] tasks, int from, int to, IntConsumer action) {
+            this.tasks = tasks;
+            this.from = from;
+            this.to = to;
+            this.action = action;
         }
 
         @Override
-        public String toString() {
-            return String.format("%s (parents: %d, children: %d)", taskCode(), parents.size(), children.size());
+        protected void compute() {
+            if (to - from <= CpmProject.PARALLEL_GRAIN) {
+                for (int i = from; i < to; i++) {
+                    action.accept(tasks[i]);
+                }
+            } else {
+                int middle = (from + to) >>> 1;
+                invokeAll(new LevelAction(tasks, from, middle, action), new LevelAction(tasks, middle, to, action));
+            }
         }
     }
 
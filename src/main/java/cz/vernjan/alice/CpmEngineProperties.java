@@ -0,0 +1,26 @@
+package cz.vernjan.alice;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.ConstructorBinding;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * CPM engine settings.
+ *
+ * @param parallelThreshold minimum number of tasks for which the CPM passes run in parallel,
+ *                          {@code 0} disables parallel evaluation
+ * @param parallelism       number of threads of a dedicated fork-join pool, {@code 0} uses the common pool
+ */
+@ConstructorBinding
+@ConfigurationProperties("alice.engine")
+public record CpmEngineProperties(
+        @DefaultValue("200000") int parallelThreshold,
+        @DefaultValue("0") int parallelism) {
+
+    static final CpmEngineProperties SEQUENTIAL = new CpmEngineProperties(0, 0);
+
+    boolean isParallel(int taskCount) {
+        return parallelThreshold > 0 && taskCount >= parallelThreshold;
+    }
+
+}
@@ -0,0 +1,207 @@
+package cz.vernjan.alice;
+
+import cz.vernjan.alice.domain.CrewPeak;
+import cz.vernjan.alice.domain.CrewProfile;
+import cz.vernjan.alice.domain.Interval;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Crew assignment over time.
+ * <p>
+ * A task occupies its crew during the half-open interval {@code [start, finish)}, so a task finishing at time
+ * {@code t} never overlaps with a task starting at {@code t}. Zero-duration tasks occupy their crew only at the
+ * instant {@code start}, together with all tasks running at that time but not with each other: zero-duration
+ * tasks at the same instant are counted one at a time, so simultaneous milestones never stack.
+ * <p>
+ * All calculations sweep over start and finish events sorted by time while keeping a running sum of crew
+ * assignments. Events are encoded as {@code time | kind | task id} longs, so sorting them is a primitive sort
+ * and events of the same time are ordered finish, start, instant.
+ */
+final class CrewLoad {
+
+    private static final long FINISH = 0;
+    private static final long START = 1;
+    private static final long INSTANT = 2;
+
+    private static final int ID_BITS = 30;
+    private static final long ID_MASK = (1L << ID_BITS) - 1;
+
+    private CrewLoad() {
+    }
+
+    /**
+     * @param tasks       ids of tasks to consider
+     * @param start       start times indexed by task id
+     * @param finish      finish times indexed by task id
+     * @param assignments crew assignments indexed by task id
+     * @return highest crew assignment at any given time and when it occurs
+     */
+    static CrewPeak peak(int[] tasks, int[] start, int[] finish, int[] assignments) {
+        PeakCollector peak = new PeakCollector();
+        sweep(events(tasks, 0, tasks.length, start, finish), assignments, peak);
+        return peak.highest > 0 ? new CrewPeak(peak.highest, List.copyOf(peak.windows)) : CrewPeak.NONE;
+    }
+
+    /**
+     * Assignment profile of every crew, tasks without a crew are ignored.
+     *
+     * @param graph  task graph
+     * @param start  start times indexed by task id
+     * @param finish finish times indexed by task id
+     * @return profiles ordered by crew id
+     */
+    static List<CrewProfile> profiles(TaskGraph graph, int[] start, int[] finish) {
+        int[] crews = graph.crews();
+        int crewCount = graph.crewCount();
+
+        // counting sort of task ids by crew
+        int[] offsets = new int[crewCount + 1];
+        for (int crew : crews) {
+            if (crew >= 0) {
+                offsets[crew + 1]++;
+            }
+        }
+        for (int crew = 0; crew < crewCount; crew++) {
+            offsets[crew + 1] += offsets[crew];
+        }
+        int[] tasksByCrew = new int[offsets[crewCount]];
+        int[] cursor = Arrays.copyOf(offsets, crewCount);
+        for (int id = 0; id < crews.length; id++) {
+            if (crews[id] >= 0) {
+                tasksByCrew[cursor[crews[id]]++] = id;
+            }
+        }
+
+        List<CrewProfile> profiles = new ArrayList<>(crewCount);
+        for (int crew = 0; crew < crewCount; crew++) {
+            long[] events = events(tasksByCrew, offsets[crew], offsets[crew + 1], start, finish);
+            StepCollector steps = new StepCollector();
+            sweep(events, graph.crewAssignments(), steps);
+            profiles.add(new CrewProfile(graph.crewName(crew), steps.highest, List.copyOf(steps.steps)));
+        }
+        return profiles;
+    }
+
+    private static long[] events(int[] tasks, int from, int to, int[] start, int[] finish) {
+        long[] events = new long[(to - from) * 2];
+        int eventCount = 0;
+        for (int i = from; i < to; i++) {
+            int id = tasks[i];
+            if (finish[id] > start[id]) {
+                events[eventCount++] = event(start[id], START, id);
+                events[eventCount++] = event(finish[id], FINISH, id);
+            } else {
+                events[eventCount++] = event(start[id], INSTANT, id);
+            }
+        }
+        events = Arrays.copyOf(events, eventCount);
+        Arrays.sort(events);
+        return events;
+    }
+
+    private static void sweep(long[] events, int[] assignments, LoadConsumer consumer) {
+        int running = 0;
+        int i = 0;
+        while (i < events.length) {
+            int time = time(events[i]);
+            int instant = 0;
+            for (; i < events.length && time(events[i]) == time; i++) {
+                int assignment = assignments[id(events[i])];
+                switch (kind(events[i])) {
+                    case (int) FINISH -> running -= assignment;
+                    case (int) START -> running += assignment;
+                    default -> instant = Math.max(instant, assignment);
+                }
+            }
+            int until = i < events.length ? time(events[i]) : time;
+            consumer.accept(time, until, running, instant);
+        }
+    }
+
+    private static long event(int time, long kind, int id) {
+        return ((long) time << 32) | (kind << ID_BITS) | id;
+    }
+
+    private static int time(long event) {
+        return (int) (event >> 32);
+    }
+
+    private static int kind(long event) {
+        return (int) ((event >>> ID_BITS) & 0b11);
+    }
+
+    private static int id(long event) {
+        return (int) (event & ID_MASK);
+    }
+
+    private interface LoadConsumer {
+
+        /**
+         * @param time    time of the events
+         * @param until   time of the next events
+         * @param running assignment of tasks running during {@code [time, until)}
+         * @param instant additional assignment at {@code time}, the highest one of the zero-duration tasks at that
+         *                time
+         */
+        void accept(int time, int until, int running, int instant);
+    }
+
+    private static class PeakCollector implements LoadConsumer {
+
+        private final List<Interval> windows = new ArrayList<>();
+        private int highest;
+
+        @Override
+        public void accept(int time, int until, int running, int instant) {
+            int current = running + instant;
+            if (current > highest) {
+                highest = current;
+                windows.clear();
+            }
+            if (current == highest && highest > 0) {
+                if (instant > 0) {
+                    windows.add(new Interval(time, time));
+                } else {
+                    addWindow(time, until);
+                }
+            }
+        }
+
+        private void addWindow(int from, int to) {
+            int last = windows.size() - 1;
+            if (last >= 0 && windows.get(last).to() == from && windows.get(last).from() != from) {
+                windows.set(last, new Interval(windows.get(last).from(), to));
+            } else {
+                windows.add(new Interval(from, to));
+            }
+        }
+    }
+
+    private static class StepCollector implements LoadConsumer {
+
+        private final List<CrewProfile.Step> steps = new ArrayList<>();
+        private int highest;
+
+        @Override
+        public void accept(int time, int until, int running, int instant) {
+            highest = Math.max(highest, running + instant);
+            if (instant > 0) {
+                steps.add(new CrewProfile.Step(time, time, running + instant));
+            }
+            if (running > 0 && until > time) {
+                int last = steps.size() - 1;
+                CrewProfile.Step previous = last >= 0 ? steps.get(last) : null;
+                if (previous != null && previous.to() == time && previous.from() != previous.to()
+                        && previous.assignment() == running) {
+                    steps.set(last, new CrewProfile.Step(previous.from(), until, running));
+                } else {
+                    steps.add(new CrewProfile.Step(time, until, running));
+                }
+            }
+        }
+    }
+
+}
@@ -0,0 +1,16 @@
+package cz.vernjan.alice;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Project has more tasks than working copies of edited projects can hold, so its edits can't be kept.
+ */
+@ResponseStatus(HttpStatus.INSUFFICIENT_STORAGE)
+public class EditTooLargeException extends RuntimeException {
+
+    public EditTooLargeException(String id, long tasks, long maxTasks) {
+        super("Project " + id + " has " + tasks + " tasks, edits can be kept for at most " + maxTasks);
+    }
+
+}
@@ -0,0 +1,756 @@
+package cz.vernjan.alice;
+
+import cz.vernjan.alice.domain.Interval;
+import cz.vernjan.alice.domain.Project;
+import cz.vernjan.alice.domain.ProjectTask;
+import cz.vernjan.alice.domain.ScheduleChange;
+import cz.vernjan.alice.domain.TaskRecord;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
+
+/**
+ * Mutable copy of an evaluated schedule for "what-if" edits.
+ * <p>
+ * Edits (duration changes, added or removed dependencies and tasks) are collected and applied by
+ * {@link #evaluate()}, which recomputes early intervals only for descendants of the edited tasks and late
+ * intervals only for their ancestors (or for everything if the total duration changes). Tasks are processed in
+ * topological rank order, the ranks are maintained incrementally when a dependency is added (Pearce-Kelly
+ * dynamic topological sort), so an edit never requires a full topological sort.
+ * <p>
+ * A batch of edits is {@link #apply(Consumer) applied} all or nothing: every edit logs how to undo it, and if an
+ * edit of the batch fails, the preceding ones are undone in reverse order.
+ * <p>
+ * This class is not thread safe.
+ */
+public class EditableSchedule {
+
+    private static final int UNSET = Integer.MIN_VALUE;
+
+    private final Map<String, Integer> ids;
+
+    private int size;
+    private TaskRecord[] records;
+    private int[] durations;
+    private int[] crewAssignments;
+    private int[][] predecessors;
+    private int[] predecessorCounts;
+    private int[][] successors;
+    private int[] successorCounts;
+    private int[] ranks;
+    private int nextRank;
+
+    private int[] earlyStart;
+    private int[] earlyFinish;
+    private int[] lateStart;
+    private int[] lateFinish;
+    private int totalDuration;
+    private int highestCrewAssignment;
+
+    // bookkeeping of pending edits
+    private final IntHeap forwardQueue = new IntHeap(false);
+    private final IntHeap backwardQueue = new IntHeap(true);
+    private boolean[] forwardQueued;
+    private boolean[] backwardQueued;
+    private final List<String> removedTasks = new ArrayList<>();
+    private boolean totalDurationMayDecrease;
+
+    // undo actions of the edits of the current batch, in the order of the edits
+    private final List<Runnable> undoLog = new ArrayList<>();
+    private boolean undoing;
+
+    private int[] visited;
+    private int visitEpoch;
+
+    // tasks touched by the last evaluation and their intervals before it
+    private int[] touched;
+    private int touchEpoch;
+    private int[] previous;
+    private final IntList touchedTasks = new IntList();
+
+    private EditableSchedule(Schedule schedule) {
+        TaskGraph graph = schedule.graph();
+        int capacity = Math.max(16, graph.size());
+
+        this.size = graph.size();
+        this.ids = new HashMap<>(capacity * 2);
+        this.records = new TaskRecord[capacity];
+        this.durations = Arrays.copyOf(graph.durations(), capacity);
+        this.crewAssignments = Arrays.copyOf(graph.crewAssignments(), capacity);
+        this.predecessors = new int[capacity][];
+        this.predecessorCounts = new int[capacity];
+        this.successors = new int[capacity][];
+        this.successorCounts = new int[capacity];
+        this.ranks = new int[capacity];
+
+        for (int id = 0; id < size; id++) {
+            records[id] = graph.record(id);
+            ids.put(graph.taskCode(id), id);
+            predecessors[id] = slice(graph.predecessors(), graph.predecessorOffsets(), id);
+            predecessorCounts[id] = predecessors[id].length;
+            successors[id] = slice(graph.successors(), graph.successorOffsets(), id);
+            successorCounts[id] = successors[id].length;
+        }
+        int[] order = graph.topologicalOrder();
+        for (int rank = 0; rank < order.length; rank++) {
+            ranks[order[rank]] = rank;
+        }
+        this.nextRank = order.length;
+
+        this.earlyStart = Arrays.copyOf(schedule.earlyStart(), capacity);
+        this.earlyFinish = Arrays.copyOf(schedule.earlyFinish(), capacity);
+        this.lateStart = Arrays.copyOf(schedule.lateStart(), capacity);
+        this.lateFinish = Arrays.copyOf(schedule.lateFinish(), capacity);
+        this.totalDuration = schedule.totalDuration();
+        this.highestCrewAssignment = schedule.highestCrewAssignment();
+
+        this.forwardQueued = new boolean[capacity];
+        this.backwardQueued = new boolean[capacity];
+        this.visited = new int[capacity];
+        this.touched = new int[capacity];
+        this.previous = new int[capacity * 4];
+    }
+
+    public static EditableSchedule of(Schedule schedule) {
+        return new EditableSchedule(schedule);
+    }
+
+    public int totalDuration() {
+        return totalDuration;
+    }
+
+    public int highestCrewAssignment() {
+        return highestCrewAssignment;
+    }
+
+    /**
+     * @return current state of the schedule, pending edits are not included until {@link #evaluate()} is called
+     */
+    public Project project() {
+        List<ProjectTask> tasks = IntStream.range(0, size)
+                .filter(this::exists)
+                .mapToObj(this::task)
+                .toList();
+        return new Project(totalDuration, highestCrewAssignment, tasks);
+    }
+
+    /**
+     * Apply a batch of edits and evaluate them. If one of the edits fails, the preceding edits of the batch are
+     * undone and the failure is rethrown, the schedule is left as it was before the batch.
+     *
+     * @return new summary and tasks whose intervals changed
+     */
+    public ScheduleChange apply(Consumer<EditableSchedule> edits) {
+        undoLog.clear();
+        try {
+            edits.accept(this);
+        } catch (RuntimeException e) {
+            undo();
+            throw e;
+        } finally {
+            undoLog.clear();
+        }
+        return evaluate();
+    }
+
+    private void undo() {
+        undoing = true;
+        try {
+            for (int i = undoLog.size() - 1; i >= 0; i--) {
+                undoLog.get(i).run();
+            }
+        } finally {
+            undoing = false;
+        }
+        removedTasks.clear();
+        evaluate();
+    }
+
+    private void logUndo(Runnable action) {
+        if (!undoing) {
+            undoLog.add(action);
+        }
+    }
+
+    public void setDuration(String taskCode, int duration) {
+        if (duration < 0) {
+            throw new ScheduleEditException("Duration of task " + taskCode + " must not be negative");
+        }
+        int id = idOf(taskCode);
+        int previousDuration = durations[id];
+        TaskRecord previousRecord = records[id];
+        logUndo(() -> {
+            durations[id] = previousDuration;
+            records[id] = previousRecord;
+            enqueueForward(id);
+            enqueueBackward(id);
+        });
+        durations[id] = duration;
+        records[id] = withDuration(records[id], duration);
+        enqueueForward(id);
+        enqueueBackward(id);
+    }
+
+    /**
+     * Make {@code taskCode} depend on {@code dependencyCode}.
+     *
+     * @throws ScheduleEditException if the new dependency would create a cycle
+     */
+    public void addDependency(String taskCode, String dependencyCode) {
+        int task = idOf(taskCode);
+        int dependency = idOf(dependencyCode);
+        if (contains(predecessors[task], predecessorCounts[task], dependency)) {
+            return;
+        }
+        if (task == dependency) {
+            throw new ScheduleEditException("Task " + taskCode + " can't depend on itself");
+        }
+
+        TaskRecord previousRecord = records[task];
+        link(dependency, task);
+        records[task] = withDependencies(records[task], predecessors[task], predecessorCounts[task]);
+        logUndo(() -> {
+            removeEdge(dependency, task);
+            records[task] = previousRecord;
+            enqueueForward(task);
+            enqueueBackward(dependency);
+        });
+    }
+
+    public void removeDependency(String taskCode, String dependencyCode) {
+        int task = idOf(taskCode);
+        int dependency = idOf(dependencyCode);
+        if (!contains(predecessors[task], predecessorCounts[task], dependency)) {
+            throw new ScheduleEditException("Task " + taskCode + " doesn't depend on " + dependencyCode);
+        }
+
+        TaskRecord previousRecord = records[task];
+        logUndo(() -> {
+            link(dependency, task);
+            records[task] = previousRecord;
+        });
+        removeEdge(dependency, task);
+        records[task] = withDependencies(records[task], predecessors[task], predecessorCounts[task]);
+        enqueueForward(task);
+        enqueueBackward(dependency);
+    }
+
+    /**
+     * Add a new task, its dependencies must already exist. Dependants can be added by
+     * {@link #addDependency(String, String)} afterwards.
+     */
+    public void addTask(TaskRecord record) {
+        if (record.taskCode() == null || ids.containsKey(record.taskCode())) {
+            throw new ScheduleEditException("Task " + record.taskCode() + " already exists");
+        }
+        if (record.duration() < 0) {
+            throw new ScheduleEditException("Duration of task " + record.taskCode() + " must not be negative");
+        }
+        int[] dependencies = record.dependencies().stream()
+                .distinct()
+                .mapToInt(this::idOf)
+                .toArray();
+
+        ensureCapacity(size + 1);
+        int id = size++;
+        ids.put(record.taskCode(), id);
+        records[id] = record;
+        durations[id] = record.duration();
+        crewAssignments[id] = record.crew().assignment();
+        predecessors[id] = new int[Math.max(2, dependencies.length)];
+        predecessorCounts[id] = 0;
+        successors[id] = new int[2];
+        successorCounts[id] = 0;
+        ranks[id] = nextRank++;
+        earlyStart[id] = earlyFinish[id] = lateStart[id] = lateFinish[id] = UNSET;
+
+        for (int dependency : dependencies) {
+            addEdge(dependency, id);
+            enqueueBackward(dependency);
+        }
+        enqueueForward(id);
+        enqueueBackward(id);
+        logUndo(() -> removeTask(record.taskCode()));
+    }
+
+    /**
+     * Remove a task, dependants of the task lose the dependency on it.
+     */
+    public void removeTask(String taskCode) {
+        int id = idOf(taskCode);
+        TaskRecord record = records[id];
+        int[] dependencies = Arrays.copyOf(predecessors[id], predecessorCounts[id]);
+        int[] dependants = Arrays.copyOf(successors[id], successorCounts[id]);
+        TaskRecord[] dependantRecords = new TaskRecord[dependants.length];
+        for (int i = 0; i < dependants.length; i++) {
+            dependantRecords[i] = records[dependants[i]];
+        }
+        logUndo(() -> {
+            ids.put(taskCode, id);
+            records[id] = record;
+            for (int dependency : dependencies) {
+                link(dependency, id);
+            }
+            for (int i = 0; i < dependants.length; i++) {
+                link(id, dependants[i]);
+                records[dependants[i]] = dependantRecords[i];
+            }
+            enqueueForward(id);
+            enqueueBackward(id);
+        });
+
+        while (predecessorCounts[id] > 0) {
+            int dependency = predecessors[id][predecessorCounts[id] - 1];
+            removeEdge(dependency, id);
+            enqueueBackward(dependency);
+        }
+        while (successorCounts[id] > 0) {
+            int dependant = successors[id][successorCounts[id] - 1];
+            removeEdge(id, dependant);
+            records[dependant] = withDependencies(records[dependant], predecessors[dependant], predecessorCounts[dependant]);
+            enqueueForward(dependant);
+        }
+
+        ids.remove(taskCode);
+        records[id] = null;
+        removedTasks.add(taskCode);
+        totalDurationMayDecrease |= earlyFinish[id] == totalDuration;
+    }
+
+    /**
+     * Apply pending edits.
+     *
+     * @return new summary and tasks whose intervals changed
+     */
+    public ScheduleChange evaluate() {
+        touchEpoch++;
+        touchedTasks.clear();
+        forwardQueue.heapify();
+        backwardQueue.heapify();
+
+        int previousTotalDuration = totalDuration;
+        calculateEarlyIntervals();
+        if (totalDurationMayDecrease) {
+            totalDuration = IntStream.range(0, size).filter(this::exists).map(id -> earlyFinish[id]).max().orElse(0);
+            totalDurationMayDecrease = false;
+        }
+        if (totalDuration != previousTotalDuration) {
+            for (int id = 0; id < size; id++) {
+                if (exists(id) && successorCounts[id] == 0) {
+                    enqueueBackward(id);
+                }
+            }
+        }
+        calculateLateIntervals();
+
+        List<ProjectTask> changedTasks = new ArrayList<>();
+        touchedTasks.sort();
+        for (int i = 0; i < touchedTasks.size(); i++) {
+            int id = touchedTasks.get(i);
+            if (exists(id) && intervalsChanged(id)) {
+                changedTasks.add(task(id));
+            }
+        }
+
+        if (!changedTasks.isEmpty() || !removedTasks.isEmpty()) {
+            int[] tasks = IntStream.range(0, size).filter(this::exists).toArray();
+            highestCrewAssignment = CrewLoad.peak(tasks, earlyStart, earlyFinish, crewAssignments).assignment();
+        }
+
+        ScheduleChange change = new ScheduleChange(
+                totalDuration, highestCrewAssignment, changedTasks, List.copyOf(removedTasks));
+        removedTasks.clear();
+        return change;
+    }
+
+    private void calculateEarlyIntervals() {
+        while (!forwardQueue.isEmpty()) {
+            int id = forwardQueue.poll();
+            forwardQueued[id] = false;
+            if (!exists(id)) {
+                continue;
+            }
+            int start = 0;
+            for (int i = 0; i < predecessorCounts[id]; i++) {
+                start = Math.max(start, earlyFinish[predecessors[id][i]]);
+            }
+            int finish = start + durations[id];
+            if (start == earlyStart[id] && finish == earlyFinish[id]) {
+                continue;
+            }
+
+            touch(id);
+            totalDurationMayDecrease |= earlyFinish[id] == totalDuration && finish < totalDuration;
+            earlyStart[id] = start;
+            earlyFinish[id] = finish;
+            totalDuration = Math.max(totalDuration, finish);
+            for (int i = 0; i < successorCounts[id]; i++) {
+                enqueueForward(successors[id][i]);
+            }
+        }
+    }
+
+    private void calculateLateIntervals() {
+        while (!backwardQueue.isEmpty()) {
+            int id = backwardQueue.poll();
+            backwardQueued[id] = false;
+            if (!exists(id)) {
+                continue;
+            }
+            int finish = totalDuration;
+            for (int i = 0; i < successorCounts[id]; i++) {
+                finish = Math.min(finish, lateStart[successors[id][i]]);
+            }
+            int start = finish - durations[id];
+            if (start == lateStart[id] && finish == lateFinish[id]) {
+                continue;
+            }
+
+            touch(id);
+            lateStart[id] = start;
+            lateFinish[id] = finish;
+            for (int i = 0; i < predecessorCounts[id]; i++) {
+                enqueueBackward(predecessors[id][i]);
+            }
+        }
+    }
+
+    /**
+     * Restore topological ranks before adding the edge {@code from -> to} where {@code rank(from) > rank(to)}.
+     * Only tasks ranked between the two are visited.
+     */
+    private void reorder(int from, int to) {
+        int lowerBound = ranks[to];
+        int upperBound = ranks[from];
+        int epoch = ++visitEpoch;
+
+        IntList forward = new IntList();
+        IntList stack = new IntList();
+        stack.add(to);
+        visited[to] = epoch;
+        while (!stack.isEmpty()) {
+            int id = stack.removeLast();
+            forward.add(id);
+            for (int i = 0; i < successorCounts[id]; i++) {
+                int successor = successors[id][i];
+                if (successor == from) {
+                    throw new ScheduleEditException(String.format(
+                            "Dependency of %s on %s would create a cycle", records[to].taskCode(), records[from].taskCode()));
+                }
+                if (visited[successor] != epoch && ranks[successor] < upperBound) {
+                    visited[successor] = epoch;
+                    stack.add(successor);
+                }
+            }
+        }
+
+        IntList backward = new IntList();
+        stack.add(from);
+        visited[from] = epoch;
+        while (!stack.isEmpty()) {
+            int id = stack.removeLast();
+            backward.add(id);
+            for (int i = 0; i < predecessorCounts[id]; i++) {
+                int predecessor = predecessors[id][i];
+                if (visited[predecessor] != epoch && ranks[predecessor] > lowerBound) {
+                    visited[predecessor] = epoch;
+                    stack.add(predecessor);
+                }
+            }
+        }
+
+        long[] backwardByRank = sortByRank(backward);
+        long[] forwardByRank = sortByRank(forward);
+        int[] pool = new int[backwardByRank.length + forwardByRank.length];
+        int k = 0;
+        for (long entry : backwardByRank) {
+            pool[k++] = (int) (entry >>> 32);
+        }
+        for (long entry : forwardByRank) {
+            pool[k++] = (int) (entry >>> 32);
+        }
+        Arrays.sort(pool);
+
+        k = 0;
+        for (long entry : backwardByRank) {
+            ranks[(int) entry] = pool[k++];
+        }
+        for (long entry : forwardByRank) {
+            ranks[(int) entry] = pool[k++];
+        }
+    }
+
+    private long[] sortByRank(IntList tasks) {
+        long[] byRank = new long[tasks.size()];
+        for (int i = 0; i < byRank.length; i++) {
+            int id = tasks.get(i);
+            byRank[i] = ((long) ranks[id] << 32) | id;
+        }
+        Arrays.sort(byRank);
+        return byRank;
+    }
+
+    /**
+     * Add the edge {@code from -> to}, restoring topological ranks first if needed, and enqueue both tasks.
+     *
+     * @throws ScheduleEditException if the edge would create a cycle
+     */
+    private void link(int from, int to) {
+        if (ranks[from] > ranks[to]) {
+            reorder(from, to);
+        }
+        addEdge(from, to);
+        enqueueForward(to);
+        enqueueBackward(from);
+    }
+
+    private void addEdge(int from, int to) {
+        predecessors[to] = append(predecessors[to], predecessorCounts[to]++, from);
+        successors[from] = append(successors[from], successorCounts[from]++, to);
+    }
+
+    private void removeEdge(int from, int to) {
+        predecessorCounts[to] = remove(predecessors[to], predecessorCounts[to], from);
+        successorCounts[from] = remove(successors[from], successorCounts[from], to);
+    }
+
+    private void enqueueForward(int id) {
+        if (!forwardQueued[id]) {
+            forwardQueued[id] = true;
+            forwardQueue.add(id);
+        }
+    }
+
+    private void enqueueBackward(int id) {
+        if (!backwardQueued[id]) {
+            backwardQueued[id] = true;
+            backwardQueue.add(id);
+        }
+    }
+
+    private void touch(int id) {
+        if (touched[id] != touchEpoch) {
+            touched[id] = touchEpoch;
+            touchedTasks.add(id);
+            previous[id * 4] = earlyStart[id];
+            previous[id * 4 + 1] = earlyFinish[id];
+            previous[id * 4 + 2] = lateStart[id];
+            previous[id * 4 + 3] = lateFinish[id];
+        }
+    }
+
+    private boolean intervalsChanged(int id) {
+        return previous[id * 4] != earlyStart[id]
+                || previous[id * 4 + 1] != earlyFinish[id]
+                || previous[id * 4 + 2] != lateStart[id]
+                || previous[id * 4 + 3] != lateFinish[id];
+    }
+
+    private boolean exists(int id) {
+        return records[id] != null;
+    }
+
+    private ProjectTask task(int id) {
+        return new ProjectTask(
+                records[id],
+                new Interval(earlyStart[id], lateStart[id]),
+                new Interval(earlyFinish[id], lateFinish[id]));
+    }
+
+    private int idOf(String taskCode) {
+        Integer id = ids.get(taskCode);
+        if (id == null) {
+            throw new TaskNotFoundException(taskCode);
+        }
+        return id;
+    }
+
+    private TaskRecord withDuration(TaskRecord record, int duration) {
+        return new TaskRecord(
+                record.taskCode(), record.operationName(), record.elementName(),
+                duration, record.crew(), record.dependencies());
+    }
+
+    private TaskRecord withDependencies(TaskRecord record, int[] dependencies, int count) {
+        List<String> dependencyCodes = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            dependencyCodes.add(records[dependencies[i]].taskCode());
+        }
+        return new TaskRecord(
+                record.taskCode(), record.operationName(), record.elementName(),
+                record.duration(), record.crew(), List.copyOf(dependencyCodes));
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= records.length) {
+            return;
+        }
+        int newCapacity = Math.max(capacity, records.length * 2);
+        records = Arrays.copyOf(records, newCapacity);
+        durations = Arrays.copyOf(durations, newCapacity);
+        crewAssignments = Arrays.copyOf(crewAssignments, newCapacity);
+        predecessors = Arrays.copyOf(predecessors, newCapacity);
+        predecessorCounts = Arrays.copyOf(predecessorCounts, newCapacity);
+        successors = Arrays.copyOf(successors, newCapacity);
+        successorCounts = Arrays.copyOf(successorCounts, newCapacity);
+        ranks = Arrays.copyOf(ranks, newCapacity);
+        earlyStart = Arrays.copyOf(earlyStart, newCapacity);
+        earlyFinish = Arrays.copyOf(earlyFinish, newCapacity);
+        lateStart = Arrays.copyOf(lateStart, newCapacity);
+        lateFinish = Arrays.copyOf(lateFinish, newCapacity);
+        forwardQueued = Arrays.copyOf(forwardQueued, newCapacity);
+        backwardQueued = Arrays.copyOf(backwardQueued, newCapacity);
+        visited = Arrays.copyOf(visited, newCapacity);
+        touched = Arrays.copyOf(touched, newCapacity);
+        previous = Arrays.copyOf(previous, newCapacity * 4);
+    }
+
+    private static int[] slice(int[] values, int[] offsets, int id) {
+        return Arrays.copyOfRange(values, offsets[id], offsets[id + 1]);
+    }
+
+    private static boolean contains(int[] values, int count, int value) {
+        for (int i = 0; i < count; i++) {
+            if (values[i] == value) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static int[] append(int[] values, int count, int value) {
+        int[] result = count < values.length ? values : Arrays.copyOf(values, Math.max(2, count * 2));
+        result[count] = value;
+        return result;
+    }
+
+    /**
+     * Remove all occurrences of the value, order of the remaining values is preserved.
+     *
+     * @return new count
+     */
+    private static int remove(int[] values, int count, int value) {
+        int kept = 0;
+        for (int i = 0; i < count; i++) {
+            if (values[i] != value) {
+                values[kept++] = values[i];
+            }
+        }
+        return kept;
+    }
+
+    /**
+     * Binary heap of task ids ordered by their topological rank. Ranks may change while edits are collected,
+     * so the heap has to be {@link #heapify() rebuilt} before it's polled.
+     */
+    private class IntHeap {
+
+        private final boolean reversed;
+        private int[] heap = new int[16];
+        private int heapSize;
+
+        IntHeap(boolean reversed) {
+            this.reversed = reversed;
+        }
+
+        boolean isEmpty() {
+            return heapSize == 0;
+        }
+
+        void add(int id) {
+            if (heapSize == heap.length) {
+                heap = Arrays.copyOf(heap, heapSize * 2);
+            }
+            int i = heapSize++;
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (!before(id, heap[parent])) {
+                    break;
+                }
+                heap[i] = heap[parent];
+                i = parent;
+            }
+            heap[i] = id;
+        }
+
+        void heapify() {
+            for (int i = heapSize / 2 - 1; i >= 0; i--) {
+                siftDown(i, heap[i]);
+            }
+        }
+
+        int poll() {
+            int result = heap[0];
+            int last = heap[--heapSize];
+            if (heapSize > 0) {
+                siftDown(0, last);
+            }
+            return result;
+        }
+
+        private void siftDown(int i, int id) {
+            while (true) {
+                int child = 2 * i + 1;
+                if (child >= heapSize) {
+                    break;
+                }
+                if (child + 1 < heapSize && before(heap[child + 1], heap[child])) {
+                    child++;
+                }
+                if (!before(heap[child], id)) {
+                    break;
+                }
+                heap[i] = heap[child];
+                i = child;
+            }
+            heap[i] = id;
+        }
+
+        private boolean before(int a, int b) {
+            return reversed ? ranks[a] > ranks[b] : ranks[a] < ranks[b];
+        }
+    }
+
+    private static class IntList {
+
+        private int[] values = new int[16];
+        private int size;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        int get(int index) {
+            return values[index];
+        }
+
+        int removeLast() {
+            return values[--size];
+        }
+
+        int size() {
+            return size;
+        }
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+
+        void clear() {
+            size = 0;
+        }
+
+        void sort() {
+            Arrays.sort(values, 0, size);
+        }
+    }
+
+}
@@ -0,0 +1,179 @@
+package cz.vernjan.alice;
+
+import cz.vernjan.alice.domain.Project;
+import cz.vernjan.alice.domain.ScheduleChange;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+
+/**
+ * Working copies of projects edited by "what-if" edits, bounded like {@link ProjectCache}.
+ * <p>
+ * Every working copy is tagged with the content hash of the published version it was copied from, once a new
+ * version is published, the next edit starts over from a copy of that version. Working copies expire after the
+ * TTL since their last edit and the least recently edited ones are evicted once the total weight (number of tasks)
+ * exceeds the maximum. A project heavier than the maximum can't be edited at all, its edits would not be kept.
+ * <p>
+ * Copies are created outside of any lock, so a large project being copied doesn't hold up edits of other
+ * projects. Locks are {@link ReentrantLock}s, so virtual threads waiting for them don't pin their carrier thread.
+ */
+final class EditedProjects {
+
+    private static final Logger LOG = LoggerFactory.getLogger(EditedProjects.class);
+
+    private final long ttlNanos;
+    private final long maxWeight;
+    private final LongSupplier ticker;
+
+    private final LinkedHashMap<String, WorkingCopy> copies = new LinkedHashMap<>(16, 0.75f, true);
+    private final Lock lock = new ReentrantLock();
+    private long weight;
+
+    EditedProjects(ProjectCacheProperties properties, LongSupplier ticker) {
+        this.ttlNanos = properties.ttl().toNanos();
+        this.maxWeight = properties.maxWeight();
+        this.ticker = ticker;
+    }
+
+    /**
+     * Apply a batch of edits to the working copy of the project, all or nothing.
+     *
+     * @param source      published schedule of the project, copied if there is no working copy of its version
+     * @param contentHash content hash of the published version
+     * @return tasks whose intervals changed
+     * @throws EditTooLargeException if the project has more tasks than the maximum weight
+     */
+    ScheduleChange edit(String id, Schedule source, long contentHash, Consumer<EditableSchedule> edits) {
+        WorkingCopy copy = workingCopy(id, source, contentHash);
+        copy.lock.lock();
+        try {
+            return copy.schedule.apply(edits);
+        } finally {
+            copy.lock.unlock();
+        }
+    }
+
+    /**
+     * @return current state of the working copy of the version or {@code null} if there is none
+     */
+    Project project(String id, long contentHash) {
+        WorkingCopy copy = current(id, contentHash);
+        if (copy == null) {
+            return null;
+        }
+        copy.lock.lock();
+        try {
+            return copy.schedule.project();
+        } finally {
+            copy.lock.unlock();
+        }
+    }
+
+    void discard(String id) {
+        lock.lock();
+        try {
+            remove(id);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    int size() {
+        lock.lock();
+        try {
+            return copies.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private WorkingCopy workingCopy(String id, Schedule source, long contentHash) {
+        WorkingCopy copy = current(id, contentHash);
+        if (copy != null) {
+            return copy;
+        }
+
+        long copyWeight = Math.max(1, source.size());
+        if (copyWeight > maxWeight) {
+            throw new EditTooLargeException(id, copyWeight, maxWeight);
+        }
+        WorkingCopy created = new WorkingCopy(EditableSchedule.of(source), contentHash, copyWeight);
+        lock.lock();
+        try {
+            // another edit may have created the copy meanwhile, all edits have to go to the same one
+            copy = current(id, contentHash);
+            if (copy != null) {
+                return copy;
+            }
+            created.lastUsed = ticker.getAsLong();
+            copies.put(id, created);
+            weight += created.weight;
+            evictLeastRecentlyUsed();
+            return created;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return the working copy of the version or {@code null} if there is none, a stale or expired copy is dropped
+     */
+    private WorkingCopy current(String id, long contentHash) {
+        lock.lock();
+        try {
+            WorkingCopy copy = copies.get(id);
+            long now = ticker.getAsLong();
+            if (copy != null && copy.contentHash == contentHash && now - copy.lastUsed < ttlNanos) {
+                copy.lastUsed = now;
+                return copy;
+            }
+            if (copy != null) {
+                LOG.debug("Dropping stale working copy of project '{}'", id);
+                remove(id);
+            }
+            return null;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void remove(String id) {
+        WorkingCopy removed = copies.remove(id);
+        if (removed != null) {
+            weight -= removed.weight;
+        }
+    }
+
+    private void evictLeastRecentlyUsed() {
+        Iterator<Map.Entry<String, WorkingCopy>> iterator = copies.entrySet().iterator();
+        while (weight > maxWeight && iterator.hasNext()) {
+            Map.Entry<String, WorkingCopy> eldest = iterator.next();
+            LOG.debug("Evicting working copy of project '{}'", eldest.getKey());
+            weight -= eldest.getValue().weight;
+            iterator.remove();
+        }
+    }
+
+    private static final class WorkingCopy {
+
+        private final EditableSchedule schedule;
+        private final long contentHash;
+        private final long weight;
+        private final Lock lock = new ReentrantLock();
+        private long lastUsed;
+
+        WorkingCopy(EditableSchedule schedule, long contentHash, long weight) {
+            this.schedule = schedule;
+            this.contentHash = contentHash;
+            this.weight = weight;
+        }
+    }
+
+}
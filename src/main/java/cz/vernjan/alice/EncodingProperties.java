@@ -0,0 +1,18 @@
+package cz.vernjan.alice;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.ConstructorBinding;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * Limits of the encoded task list bodies kept with evaluated schedules, see {@link TaskListEncoder}.
+ *
+ * @param maxRetainedSize maximum total size of the kept bodies of all schedules, bodies beyond it are encoded for
+ *                        every request
+ */
+@ConstructorBinding
+@ConfigurationProperties("alice.encoding")
+public record EncodingProperties(@DefaultValue("256MB") DataSize maxRetainedSize) {
+
+}
@@ -0,0 +1,24 @@
+package cz.vernjan.alice;
+
+import cz.vernjan.alice.domain.ValidationReport;
+
+/**
+ * Task records can't be compiled into a task graph, the report lists all the problems found.
+ */
+public class GraphValidationException extends IllegalArgumentException {
+
+    private final transient ValidationReport report;
+
+    public GraphValidationException(ValidationReport report) {
+        super(String.format(
+                "Invalid task dependencies (duplicate tasks: %d, dangling dependencies: %d, cycles: %d, unnamed tasks: %d)",
+                report.duplicateTasks().size(), report.danglingDependencies().size(), report.cycles().size(),
+                report.unnamedTasks().size()));
+        this.report = report;
+    }
+
+    public ValidationReport report() {
+        return report;
+    }
+
+}
@@ -0,0 +1,16 @@
+package cz.vernjan.alice;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Uploaded project is not a JSON array of task records.
+ */
+@ResponseStatus(HttpStatus.BAD_REQUEST)
+public class InvalidUploadException extends RuntimeException {
+
+    public InvalidUploadException(String message, Throwable cause) {
+        super(message, cause);
+    }
+
+}
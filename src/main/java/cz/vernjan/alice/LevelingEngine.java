@@ -0,0 +1,472 @@
+package cz.vernjan.alice;
+
+import cz.vernjan.alice.ProjectMetrics.Phase;
+import cz.vernjan.alice.domain.CrewPeak;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+/**
+ * Resource-constrained scheduling: tasks are delayed until their crew has enough free capacity.
+ * <p>
+ * Serial list scheduling, tasks whose dependencies are all scheduled are kept in a binary heap ordered by their
+ * late start, then total float, of the unconstrained CPM schedule. The first one is scheduled at the earliest
+ * time when all its dependencies are finished and its crew has enough capacity for its whole duration.
+ * <p>
+ * A task occupies its crew during {@code [start, finish)} like in {@link CrewLoad}. Zero-duration tasks occupy
+ * their crew at their instant together with all tasks running at that time, times are whole units, so that's the
+ * same as occupying {@code [start, start + 1)}.
+ */
+@Component
+public class LevelingEngine {
+
+    private static final Logger LOG = LoggerFactory.getLogger(LevelingEngine.class);
+
+    private final ProjectMetrics metrics;
+
+    public LevelingEngine() {
+        this(ProjectMetrics.NOOP);
+    }
+
+    @Autowired
+    public LevelingEngine(ProjectMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * Level the schedule so that no crew ever exceeds its capacity. The early and late intervals of the leveled
+     * schedule are the same, moving a task may break the capacity of its crew.
+     *
+     * @param schedule   unconstrained schedule evaluated by {@link CpmEngine}
+     * @param capacities maximum concurrent assignment by crew name, crews without capacity are not limited
+     * @return leveled schedule
+     * @throws LevelingException if a capacity is negative or lower than the assignment of one of the crew tasks
+     */
+    public Schedule level(Schedule schedule, Map<String, Integer> capacities) {
+        long start = metrics.start();
+        Schedule leveled = new Leveling(schedule, capacities).run();
+        metrics.stop(Phase.LEVELING, start);
+        LOG.debug("Leveled {} tasks (total duration: {} -> {})",
+                schedule.size(), schedule.totalDuration(), leveled.totalDuration());
+        return leveled;
+    }
+
+    private static class Leveling {
+
+        private final TaskGraph graph;
+        private final int[] lateStart;
+        private final int[] totalFloat;
+        private final int[] durations;
+        private final int[] crews;
+        private final int[] crewAssignments;
+        private final int[] successorOffsets;
+        private final int[] successors;
+
+        /**
+         * Timelines indexed by crew id, {@code null} for crews which are not limited.
+         */
+        private final CapacityTimeline[] timelines;
+
+        private final int[] start;
+        private final int[] finish;
+        /**
+         * Greatest finish of already scheduled dependencies.
+         */
+        private final int[] ready;
+        private final int[] unscheduledDependencies;
+
+        private final int[] heap;
+        private int heapSize;
+
+        private Leveling(Schedule schedule, Map<String, Integer> capacities) {
+            this.graph = schedule.graph();
+            this.lateStart = schedule.lateStart();
+            this.durations = graph.durations();
+            this.crews = graph.crews();
+            this.crewAssignments = graph.crewAssignments();
+            this.successorOffsets = graph.successorOffsets();
+            this.successors = graph.successors();
+
+            int size = graph.size();
+            this.totalFloat = new int[size];
+            int[] earlyStart = schedule.earlyStart();
+            for (int id = 0; id < size; id++) {
+                totalFloat[id] = lateStart[id] - earlyStart[id];
+            }
+
+            this.timelines = new CapacityTimeline[graph.crewCount()];
+            for (Map.Entry<String, Integer> capacity : capacities.entrySet()) {
+                if (capacity.getValue() == null || capacity.getValue() < 0) {
+                    throw new LevelingException("Capacity of crew " + capacity.getKey() + " must not be negative");
+                }
+                int crew = graph.crewIndexOf(capacity.getKey());
+                if (crew >= 0) {
+                    timelines[crew] = new CapacityTimeline(capacity.getValue());
+                }
+            }
+            for (int id = 0; id < size; id++) {
+                CapacityTimeline timeline = crews[id] >= 0 ? timelines[crews[id]] : null;
+                if (timeline != null && crewAssignments[id] > timeline.capacity) {
+                    throw new LevelingException("Task " + graph.taskCode(id) + " needs " + crewAssignments[id]
+                            + " of " + graph.crewName(crews[id]) + ", but its capacity is " + timeline.capacity);
+                }
+            }
+
+            this.start = new int[size];
+            this.finish = new int[size];
+            this.ready = new int[size];
+            this.unscheduledDependencies = new int[size];
+            this.heap = new int[size];
+        }
+
+        private Schedule run() {
+            int[] predecessorOffsets = graph.predecessorOffsets();
+            for (int id = 0; id < graph.size(); id++) {
+                unscheduledDependencies[id] = predecessorOffsets[id + 1] - predecessorOffsets[id];
+                if (unscheduledDependencies[id] == 0) {
+                    push(id);
+                }
+            }
+
+            int totalDuration = 0;
+            while (heapSize > 0) {
+                int id = pop();
+                CapacityTimeline timeline = crews[id] >= 0 ? timelines[crews[id]] : null;
+                start[id] = timeline != null
+                        ? timeline.earliestStart(ready[id], durations[id], crewAssignments[id])
+                        : ready[id];
+                finish[id] = start[id] + durations[id];
+                if (timeline != null) {
+                    timeline.reserve(start[id], durations[id], crewAssignments[id]);
+                }
+                totalDuration = Math.max(totalDuration, finish[id]);
+
+                for (int i = successorOffsets[id]; i < successorOffsets[id + 1]; i++) {
+                    int successor = successors[i];
+                    ready[successor] = Math.max(ready[successor], finish[id]);
+                    if (--unscheduledDependencies[successor] == 0) {
+                        push(successor);
+                    }
+                }
+            }
+
+            int[] tasks = IntStream.range(0, graph.size()).toArray();
+            CrewPeak crewPeak = CrewLoad.peak(tasks, start, finish, crewAssignments);
+            return new Schedule(graph, start, finish, start, finish, totalDuration, crewPeak);
+        }
+
+        /**
+         * @return whether task {@code a} goes before task {@code b}
+         */
+        private boolean precedes(int a, int b) {
+            if (lateStart[a] != lateStart[b]) {
+                return lateStart[a] < lateStart[b];
+            }
+            if (totalFloat[a] != totalFloat[b]) {
+                return totalFloat[a] < totalFloat[b];
+            }
+            return a < b;
+        }
+
+        private void push(int id) {
+            int i = heapSize++;
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (!precedes(id, heap[parent])) {
+                    break;
+                }
+                heap[i] = heap[parent];
+                i = parent;
+            }
+            heap[i] = id;
+        }
+
+        private int pop() {
+            int first = heap[0];
+            int last = heap[--heapSize];
+            int i = 0;
+            while (true) {
+                int child = 2 * i + 1;
+                if (child >= heapSize) {
+                    break;
+                }
+                if (child + 1 < heapSize && precedes(heap[child + 1], heap[child])) {
+                    child++;
+                }
+                if (!precedes(heap[child], last)) {
+                    break;
+                }
+                heap[i] = heap[child];
+                i = child;
+            }
+            heap[i] = last;
+            return first;
+        }
+    }
+
+    /**
+     * Assignment of one crew over time as steps, a step is the assignment from its time until the time of the next
+     * step. Adjacent steps never have the same assignment, so a fully booked stretch is a single step however many
+     * tasks it consists of.
+     * <p>
+     * Steps are kept sorted in blocks of primitive arrays. Every block knows the lowest and highest assignment of
+     * its steps and has a pending assignment added to all of them, so searches skip whole blocks which are all
+     * free or all booked and a reservation spanning whole blocks updates just the pending assignment.
+     */
+    private static class CapacityTimeline {
+
+        private static final int BLOCK_SIZE = 64;
+
+        private final int capacity;
+        private Block[] blocks = new Block[16];
+        private int blockCount;
+
+        /**
+         * Position found by the last search.
+         */
+        private int foundBlock;
+        private int foundStep;
+
+        CapacityTimeline(int capacity) {
+            this.capacity = capacity;
+            Block first = new Block();
+            first.insert(0, Integer.MIN_VALUE, 0);
+            blocks[blockCount++] = first;
+        }
+
+        /**
+         * @return the earliest start not before {@code ready} when the assignment fits for the whole duration
+         */
+        int earliestStart(int ready, int duration, int assignment) {
+            int limit = capacity - assignment;
+            int candidate = ready;
+            locate(candidate);
+            while (true) {
+                int end = candidate + Math.max(duration, 1);
+                if (!findAbove(foundBlock, foundStep, limit, end)) {
+                    return candidate;
+                }
+                // the last step is always free, all tasks finish eventually
+                findAtMost(foundBlock, foundStep, limit);
+                candidate = blocks[foundBlock].times[foundStep];
+            }
+        }
+
+        void reserve(int from, int duration, int assignment) {
+            if (assignment == 0) {
+                return;
+            }
+            int to = from + Math.max(duration, 1);
+            split(from);
+            split(to);
+
+            locate(from);
+            for (int b = foundBlock, i = foundStep; b < blockCount; b++, i = 0) {
+                Block block = blocks[b];
+                if (block.times[block.size - 1] < to && i == 0) {
+                    block.add += assignment;
+                    continue;
+                }
+                for (; i < block.size && block.times[i] < to; i++) {
+                    block.values[i] += assignment;
+                }
+                block.updateBounds();
+                if (i < block.size) {
+                    break;
+                }
+            }
+
+            merge(from);
+            merge(to);
+        }
+
+        /**
+         * Find the step in effect at the time, i.e. the last step not after it.
+         */
+        private void locate(int time) {
+            int low = 0;
+            int high = blockCount - 1;
+            while (low < high) {
+                int middle = (low + high + 1) >>> 1;
+                if (blocks[middle].times[0] <= time) {
+                    low = middle;
+                } else {
+                    high = middle - 1;
+                }
+            }
+            foundBlock = low;
+            foundStep = blocks[low].floor(time);
+        }
+
+        /**
+         * Find the first step from the position on, before {@code end}, whose assignment is above the limit.
+         */
+        private boolean findAbove(int b, int i, int limit, int end) {
+            for (; b < blockCount; b++, i = 0) {
+                Block block = blocks[b];
+                if (block.times[i] >= end) {
+                    return false;
+                }
+                if (block.max + block.add <= limit) {
+                    continue;
+                }
+                for (; i < block.size && block.times[i] < end; i++) {
+                    if (block.values[i] + block.add > limit) {
+                        foundBlock = b;
+                        foundStep = i;
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Find the first step from the position on whose assignment is within the limit.
+         */
+        private void findAtMost(int b, int i, int limit) {
+            for (; b < blockCount; b++, i = 0) {
+                Block block = blocks[b];
+                if (block.min + block.add > limit) {
+                    continue;
+                }
+                for (; i < block.size; i++) {
+                    if (block.values[i] + block.add <= limit) {
+                        foundBlock = b;
+                        foundStep = i;
+                        return;
+                    }
+                }
+            }
+            throw new IllegalStateException("Timeline doesn't end with a free step");
+        }
+
+        /**
+         * Make sure a step starts at the time.
+         */
+        private void split(int time) {
+            locate(time);
+            Block block = blocks[foundBlock];
+            if (block.times[foundStep] == time) {
+                return;
+            }
+            int value = block.values[foundStep] + block.add;
+            if (block.size == BLOCK_SIZE) {
+                Block next = block.splitHalf();
+                insertBlock(foundBlock + 1, next);
+                if (foundStep >= block.size) {
+                    foundStep -= block.size;
+                    block = next;
+                }
+            }
+            block.insert(foundStep + 1, time, value - block.add);
+        }
+
+        /**
+         * Remove the step at the time if it has the same assignment as the previous one.
+         */
+        private void merge(int time) {
+            locate(time);
+            Block block = blocks[foundBlock];
+            int value = block.values[foundStep] + block.add;
+            Block previousBlock = foundStep > 0 ? block : blocks[foundBlock - 1];
+            int previousStep = foundStep > 0 ? foundStep - 1 : previousBlock.size - 1;
+            if (previousBlock.values[previousStep] + previousBlock.add != value) {
+                return;
+            }
+            block.remove(foundStep);
+            if (block.size == 0) {
+                System.arraycopy(blocks, foundBlock + 1, blocks, foundBlock, blockCount - foundBlock - 1);
+                blocks[--blockCount] = null;
+            }
+        }
+
+        private void insertBlock(int index, Block block) {
+            if (blockCount == blocks.length) {
+                blocks = Arrays.copyOf(blocks, blockCount * 2);
+            }
+            System.arraycopy(blocks, index, blocks, index + 1, blockCount - index);
+            blocks[index] = block;
+            blockCount++;
+        }
+    }
+
+    /**
+     * Sorted steps of a timeline, assignments are relative to the pending assignment of the block.
+     */
+    private static class Block {
+
+        private final int[] times = new int[CapacityTimeline.BLOCK_SIZE];
+        private final int[] values = new int[CapacityTimeline.BLOCK_SIZE];
+        private int size;
+        private int add;
+        private int min;
+        private int max;
+
+        /**
+         * @return index of the last step not after the time, the first step of the block is not after it
+         */
+        int floor(int time) {
+            int low = 0;
+            int high = size - 1;
+            while (low < high) {
+                int middle = (low + high + 1) >>> 1;
+                if (times[middle] <= time) {
+                    low = middle;
+                } else {
+                    high = middle - 1;
+                }
+            }
+            return low;
+        }
+
+        void insert(int index, int time, int value) {
+            System.arraycopy(times, index, times, index + 1, size - index);
+            System.arraycopy(values, index, values, index + 1, size - index);
+            times[index] = time;
+            values[index] = value;
+            size++;
+            updateBounds();
+        }
+
+        void remove(int index) {
+            System.arraycopy(times, index + 1, times, index, size - index - 1);
+            System.arraycopy(values, index + 1, values, index, size - index - 1);
+            size--;
+            updateBounds();
+        }
+
+        /**
+         * Move the upper half of the steps to a new block.
+         */
+        Block splitHalf() {
+            Block upper = new Block();
+            int half = size / 2;
+            upper.size = size - half;
+            upper.add = add;
+            System.arraycopy(times, half, upper.times, 0, upper.size);
+            System.arraycopy(values, half, upper.values, 0, upper.size);
+            size = half;
+            updateBounds();
+            upper.updateBounds();
+            return upper;
+        }
+
+        void updateBounds() {
+            int low = Integer.MAX_VALUE;
+            int high = Integer.MIN_VALUE;
+            for (int i = 0; i < size; i++) {
+                low = Math.min(low, values[i]);
+                high = Math.max(high, values[i]);
+            }
+            min = low;
+            max = high;
+        }
+    }
+
+}
@@ -0,0 +1,16 @@
+package cz.vernjan.alice;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Requested crew capacities can't be satisfied.
+ */
+@ResponseStatus(HttpStatus.BAD_REQUEST)
+public class LevelingException extends RuntimeException {
+
+    public LevelingException(String message) {
+        super(message);
+    }
+
+}
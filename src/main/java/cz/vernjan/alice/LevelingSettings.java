@@ -0,0 +1,16 @@
+package cz.vernjan.alice;
+
+import java.util.Map;
+
+/**
+ * Resource leveling settings.
+ *
+ * @param capacities maximum concurrent assignment by crew name, crews without capacity are not limited
+ */
+public record LevelingSettings(Map<String, Integer> capacities) {
+
+    public Map<String, Integer> capacities() {
+        return capacities != null ? capacities : Map.of();
+    }
+
+}
@@ -0,0 +1,164 @@
+package cz.vernjan.alice;
+
+import cz.vernjan.alice.domain.CriticalPaths;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Finds the longest paths of an evaluated schedule, longest first.
+ * <p>
+ * Best-first search over path prefixes: a prefix is ranked by its length plus the longest completion of its last
+ * task, which the CPM backward pass already knows exactly ({@code totalDuration - lateStart}). So the best prefix
+ * always extends to a complete path of its rank and paths are completed in order of their length, every one
+ * after at most as many steps as it has tasks. Prefixes share their beginnings as parent links, a step only adds
+ * one entry per dependant of the last task. Prefixes whose rank is below the float limit are never added.
+ * <p>
+ * Of prefixes of the same rank, the latest one is extended first, so ties, e.g. many equally long paths, are
+ * followed depth-first rather than all at once.
+ */
+final class LongestPaths {
+
+    private final Schedule schedule;
+    private final int totalDuration;
+    private final int[] durations;
+    private final int[] lateStart;
+    private final int[] successorOffsets;
+    private final int[] successors;
+
+    // prefix entries: last task, entry of the prefix without it, length including it and rank
+    private int[] tasks = new int[64];
+    private int[] parents = new int[64];
+    private int[] lengths = new int[64];
+    private int[] ranks = new int[64];
+    private int entryCount;
+
+    private int[] heap = new int[64];
+    private int heapSize;
+
+    private LongestPaths(Schedule schedule) {
+        this.schedule = schedule;
+        this.totalDuration = schedule.totalDuration();
+        this.durations = schedule.graph().durations();
+        this.lateStart = schedule.lateStart();
+        this.successorOffsets = schedule.graph().successorOffsets();
+        this.successors = schedule.graph().successors();
+    }
+
+    /**
+     * @param count    maximum number of paths
+     * @param maxFloat maximum total float of a path
+     * @return the longest paths, longest first
+     */
+    static List<CriticalPaths.TaskPath> find(Schedule schedule, int count, int maxFloat) {
+        return new LongestPaths(schedule).find(count, maxFloat);
+    }
+
+    private List<CriticalPaths.TaskPath> find(int count, int maxFloat) {
+        int minLength = totalDuration - maxFloat;
+        int[] predecessorOffsets = schedule.graph().predecessorOffsets();
+        for (int id = 0; id < durations.length; id++) {
+            if (predecessorOffsets[id] == predecessorOffsets[id + 1]) {
+                add(id, -1, 0, minLength);
+            }
+        }
+
+        List<CriticalPaths.TaskPath> paths = new ArrayList<>(Math.min(count, 16));
+        while (heapSize > 0 && paths.size() < count) {
+            int entry = pop();
+            int id = tasks[entry];
+            if (successorOffsets[id] == successorOffsets[id + 1]) {
+                paths.add(path(entry));
+                continue;
+            }
+            for (int i = successorOffsets[id]; i < successorOffsets[id + 1]; i++) {
+                add(successors[i], entry, lengths[entry], minLength);
+            }
+        }
+        return paths;
+    }
+
+    /**
+     * @param prefixLength length of the prefix the task is added to
+     */
+    private void add(int id, int parent, int prefixLength, int minLength) {
+        int rank = prefixLength + totalDuration - lateStart[id];
+        if (rank < minLength) {
+            return;
+        }
+        if (entryCount == tasks.length) {
+            int capacity = entryCount * 2;
+            tasks = Arrays.copyOf(tasks, capacity);
+            parents = Arrays.copyOf(parents, capacity);
+            lengths = Arrays.copyOf(lengths, capacity);
+            ranks = Arrays.copyOf(ranks, capacity);
+        }
+        int entry = entryCount++;
+        tasks[entry] = id;
+        parents[entry] = parent;
+        lengths[entry] = prefixLength + durations[id];
+        ranks[entry] = rank;
+        push(entry);
+    }
+
+    private CriticalPaths.TaskPath path(int entry) {
+        int length = 0;
+        for (int e = entry; e >= 0; e = parents[e]) {
+            length++;
+        }
+        CriticalPaths.PathTask[] pathTasks = new CriticalPaths.PathTask[length];
+        for (int e = entry; e >= 0; e = parents[e]) {
+            int id = tasks[e];
+            pathTasks[--length] = new CriticalPaths.PathTask(
+                    schedule.graph().taskCode(id), schedule.totalFloat(id), schedule.freeFloat(id));
+        }
+        return new CriticalPaths.TaskPath(lengths[entry], totalDuration - lengths[entry], List.of(pathTasks));
+    }
+
+    private boolean precedes(int a, int b) {
+        if (ranks[a] != ranks[b]) {
+            return ranks[a] > ranks[b];
+        }
+        return a > b;
+    }
+
+    private void push(int entry) {
+        if (heapSize == heap.length) {
+            heap = Arrays.copyOf(heap, heapSize * 2);
+        }
+        int i = heapSize++;
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (!precedes(entry, heap[parent])) {
+                break;
+            }
+            heap[i] = heap[parent];
+            i = parent;
+        }
+        heap[i] = entry;
+    }
+
+    private int pop() {
+        int first = heap[0];
+        int last = heap[--heapSize];
+        int i = 0;
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= heapSize) {
+                break;
+            }
+            if (child + 1 < heapSize && precedes(heap[child + 1], heap[child])) {
+                child++;
+            }
+            if (!precedes(heap[child], last)) {
+                break;
+            }
+            heap[i] = heap[child];
+            i = child;
+        }
+        heap[i] = last;
+        return first;
+    }
+
+}
@@ -0,0 +1,322 @@
+package cz.vernjan.alice;
+
+import cz.vernjan.alice.domain.DurationDistribution;
+import cz.vernjan.alice.domain.SimulationResult;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * Monte Carlo schedule risk simulation: task durations are sampled from their distributions and the schedule
+ * is evaluated by the CPM forward and backward passes many times over.
+ * <p>
+ * The passes are the ones of {@link CpmEngine} run on {@code double} durations over the compiled graph: one
+ * topological order and the CSR arrays shared by all iterations. Distribution parameters are resolved to
+ * primitive arrays up front and every worker allocates its working arrays once, so an iteration allocates
+ * nothing.
+ * <p>
+ * Iterations are split into fixed blocks and each block draws from its own {@link SplittableRandom} split off
+ * the seed in block order, so the result for a seed doesn't depend on the number of workers.
+ */
+final class MonteCarloSimulation {
+
+    private static final int BLOCK_SIZE = 256;
+
+    private static final byte FIXED = 0;
+    private static final byte TRIANGULAR = 1;
+    private static final byte BETA = 2;
+
+    /**
+     * Weight of the mode of PERT distribution.
+     */
+    private static final double PERT_LAMBDA = 4;
+
+    private final TaskGraph graph;
+    private final int[] order;
+    private final int[] predecessorOffsets;
+    private final int[] predecessors;
+    private final int[] successorOffsets;
+    private final int[] successors;
+
+    private final byte[] kinds;
+    private final double[] minimum;
+    private final double[] range;
+    /**
+     * Mode as a fraction of the range for triangular distributions, alpha for beta distributions.
+     */
+    private final double[] first;
+    /**
+     * Beta for beta distributions.
+     */
+    private final double[] second;
+
+    MonteCarloSimulation(TaskGraph graph, SimulationSettings settings) {
+        this.graph = graph;
+        this.order = graph.topologicalOrder();
+        this.predecessorOffsets = graph.predecessorOffsets();
+        this.predecessors = graph.predecessors();
+        this.successorOffsets = graph.successorOffsets();
+        this.successors = graph.successors();
+
+        int size = graph.size();
+        this.kinds = new byte[size];
+        this.minimum = new double[size];
+        this.range = new double[size];
+        this.first = new double[size];
+        this.second = new double[size];
+
+        double spread = settings.spread();
+        if (spread < 0 || spread > 1) {
+            throw new SimulationException("Spread must be between 0 and 1");
+        }
+        if (spread > 0 && settings.shape() == DurationDistribution.Shape.BETA) {
+            throw new SimulationException("Spread can't be of BETA shape, it has no shape parameters");
+        }
+        for (int id = 0; id < size; id++) {
+            int duration = graph.duration(id);
+            setDistribution(id, new DurationDistribution(
+                    settings.shape(), duration * (1 - spread), duration, duration * (1 + spread), 0, 0));
+        }
+        for (Map.Entry<String, DurationDistribution> task : settings.tasks().entrySet()) {
+            int id = graph.indexOf(task.getKey());
+            if (id < 0) {
+                throw new TaskNotFoundException(task.getKey());
+            }
+            validate(task.getKey(), task.getValue());
+            setDistribution(id, task.getValue());
+        }
+    }
+
+    private static void validate(String taskCode, DurationDistribution distribution) {
+        if (distribution.shape() == null) {
+            throw new SimulationException("Distribution of task " + taskCode + " has no shape");
+        }
+        if (distribution.min() < 0 || distribution.min() > distribution.max()) {
+            throw new SimulationException("Distribution of task " + taskCode + " must have 0 <= min <= max");
+        }
+        if (distribution.shape() == DurationDistribution.Shape.BETA) {
+            if (distribution.alpha() <= 0 || distribution.beta() <= 0) {
+                throw new SimulationException("Distribution of task " + taskCode + " must have positive alpha and beta");
+            }
+        } else if (distribution.mode() < distribution.min() || distribution.mode() > distribution.max()) {
+            throw new SimulationException("Distribution of task " + taskCode + " must have min <= mode <= max");
+        }
+    }
+
+    private void setDistribution(int id, DurationDistribution distribution) {
+        minimum[id] = distribution.min();
+        range[id] = distribution.max() - distribution.min();
+        if (range[id] == 0) {
+            kinds[id] = FIXED;
+            return;
+        }
+
+        double mode = (distribution.mode() - distribution.min()) / range[id];
+        switch (distribution.shape()) {
+            case TRIANGULAR -> {
+                kinds[id] = TRIANGULAR;
+                first[id] = mode;
+            }
+            case PERT -> {
+                kinds[id] = BETA;
+                first[id] = 1 + PERT_LAMBDA * mode;
+                second[id] = 1 + PERT_LAMBDA * (1 - mode);
+            }
+            case BETA -> {
+                kinds[id] = BETA;
+                first[id] = distribution.alpha();
+                second[id] = distribution.beta();
+            }
+        }
+    }
+
+    SimulationResult run(int iterations, long seed, ForkJoinPool pool) {
+        if (iterations < 1 || iterations > SimulationSettings.MAX_ITERATIONS) {
+            throw new SimulationException("Iterations must be between 1 and " + SimulationSettings.MAX_ITERATIONS);
+        }
+        if ((long) iterations * graph.size() > SimulationSettings.MAX_SAMPLES) {
+            throw new SimulationException("Project of " + graph.size() + " tasks can be simulated at most "
+                    + SimulationSettings.MAX_SAMPLES / graph.size() + " times");
+        }
+
+        int blocks = (iterations + BLOCK_SIZE - 1) / BLOCK_SIZE;
+        SplittableRandom root = new SplittableRandom(seed);
+        SplittableRandom[] blockRandoms = new SplittableRandom[blocks];
+        for (int block = 0; block < blocks; block++) {
+            blockRandoms[block] = root.split();
+        }
+
+        double[] totals = new double[iterations];
+        int workerCount = Math.min(pool.getParallelism(), blocks);
+        List<Callable<int[]>> workers = new ArrayList<>(workerCount);
+        for (int worker = 0; worker < workerCount; worker++) {
+            workers.add(new Worker(worker, workerCount, blockRandoms, totals));
+        }
+
+        int[] criticalCounts = new int[graph.size()];
+        for (Future<int[]> worker : pool.invokeAll(workers)) {
+            int[] counts = join(worker);
+            for (int id = 0; id < counts.length; id++) {
+                criticalCounts[id] += counts[id];
+            }
+        }
+
+        List<SimulationResult.TaskCriticality> tasks = new ArrayList<>(graph.size());
+        for (int id = 0; id < graph.size(); id++) {
+            tasks.add(new SimulationResult.TaskCriticality(graph.taskCode(id), (double) criticalCounts[id] / iterations));
+        }
+        return new SimulationResult(iterations, seed, percentiles(totals), tasks);
+    }
+
+    private static int[] join(Future<int[]> worker) {
+        try {
+            return worker.get();
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : new IllegalStateException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Simulation interrupted", e);
+        }
+    }
+
+    /**
+     * Nearest-rank percentiles.
+     */
+    private static SimulationResult.Percentiles percentiles(double[] totals) {
+        Arrays.sort(totals);
+        double sum = 0;
+        for (double total : totals) {
+            sum += total;
+        }
+        return new SimulationResult.Percentiles(
+                sum / totals.length,
+                percentile(totals, 0.5),
+                percentile(totals, 0.8),
+                percentile(totals, 0.95));
+    }
+
+    private static double percentile(double[] sorted, double p) {
+        return sorted[Math.max(0, (int) Math.ceil(p * sorted.length) - 1)];
+    }
+
+    /**
+     * Runs every {@code workerCount}-th block of iterations starting with block {@code worker}.
+     */
+    private final class Worker implements Callable<int[]> {
+
+        private final int worker;
+        private final int workerCount;
+        private final SplittableRandom[] blockRandoms;
+        private final double[] totals;
+
+        private final double[] durations = new double[graph.size()];
+        private final double[] earlyFinish = new double[graph.size()];
+        private final double[] lateStart = new double[graph.size()];
+        private final int[] criticalCounts = new int[graph.size()];
+
+        Worker(int worker, int workerCount, SplittableRandom[] blockRandoms, double[] totals) {
+            this.worker = worker;
+            this.workerCount = workerCount;
+            this.blockRandoms = blockRandoms;
+            this.totals = totals;
+        }
+
+        @Override
+        public int[] call() {
+            for (int block = worker; block < blockRandoms.length; block += workerCount) {
+                SplittableRandom random = blockRandoms[block];
+                int end = Math.min(totals.length, (block + 1) * BLOCK_SIZE);
+                for (int iteration = block * BLOCK_SIZE; iteration < end; iteration++) {
+                    totals[iteration] = iterate(random);
+                }
+            }
+            return criticalCounts;
+        }
+
+        /**
+         * @return total duration of one simulated schedule
+         */
+        private double iterate(SplittableRandom random) {
+            for (int id = 0; id < durations.length; id++) {
+                durations[id] = sample(id, random);
+            }
+
+            double totalDuration = 0;
+            for (int id : order) {
+                double start = 0;
+                for (int i = predecessorOffsets[id]; i < predecessorOffsets[id + 1]; i++) {
+                    start = Math.max(start, earlyFinish[predecessors[i]]);
+                }
+                earlyFinish[id] = start + durations[id];
+                totalDuration = Math.max(totalDuration, earlyFinish[id]);
+            }
+
+            // sums of sampled durations differ by rounding errors depending on the path they were summed along
+            double tolerance = Math.ulp(totalDuration) * 16;
+            for (int k = order.length - 1; k >= 0; k--) {
+                int id = order[k];
+                double finish = totalDuration;
+                for (int i = successorOffsets[id]; i < successorOffsets[id + 1]; i++) {
+                    finish = Math.min(finish, lateStart[successors[i]]);
+                }
+                lateStart[id] = finish - durations[id];
+                if (finish - earlyFinish[id] <= tolerance) {
+                    criticalCounts[id]++;
+                }
+            }
+            return totalDuration;
+        }
+    }
+
+    private double sample(int id, SplittableRandom random) {
+        return switch (kinds[id]) {
+            case TRIANGULAR -> minimum[id] + range[id] * sampleTriangular(first[id], random.nextDouble());
+            case BETA -> minimum[id] + range[id] * sampleBeta(first[id], second[id], random);
+            default -> minimum[id];
+        };
+    }
+
+    /**
+     * Inverse CDF of the triangular distribution on {@code [0, 1]} with the given mode.
+     */
+    private static double sampleTriangular(double mode, double u) {
+        return u < mode ? Math.sqrt(u * mode) : 1 - Math.sqrt((1 - u) * (1 - mode));
+    }
+
+    private static double sampleBeta(double alpha, double beta, SplittableRandom random) {
+        double x = sampleGamma(alpha, random);
+        double y = sampleGamma(beta, random);
+        return x / (x + y);
+    }
+
+    /**
+     * Marsaglia and Tsang's method, shapes below one are boosted by {@code U^(1/shape)}.
+     */
+    private static double sampleGamma(double shape, SplittableRandom random) {
+        if (shape < 1) {
+            return sampleGamma(shape + 1, random) * Math.pow(random.nextDouble(), 1 / shape);
+        }
+        double d = shape - 1.0 / 3;
+        double c = 1 / Math.sqrt(9 * d);
+        while (true) {
+            double x = random.nextGaussian();
+            double v = 1 + c * x;
+            if (v <= 0) {
+                continue;
+            }
+            v = v * v * v;
+            double u = random.nextDouble();
+            if (Math.log(u) < 0.5 * x * x + d - d * v + d * Math.log(v)) {
+                return d * v;
+            }
+        }
+    }
+
+}
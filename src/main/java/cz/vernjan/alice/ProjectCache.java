@@ -0,0 +1,237 @@
+package cz.vernjan.alice;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Bounded cache of evaluated project schedules.
+ * <p>
+ * Every project id holds at most one entry, tagged with the content hash of the source it was evaluated from.
+ * A lookup with a different hash invalidates the entry. Entries expire after a configured TTL and the least
+ * recently used entries are evicted once the total weight (number of tasks) exceeds the configured maximum. The
+ * encoded task list bodies kept with cached schedules are bounded separately by {@link TaskListEncoder}.
+ * <p>
+ * Loads are single-flight: while a project version is being evaluated, other lookups of the same version wait for
+ * that evaluation instead of starting their own, so a burst of requests after expiry or on a cold start evaluates
+ * the project once.
+ */
+@Component
+public class ProjectCache implements MeterBinder {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ProjectCache.class);
+
+    private final long ttlNanos;
+    private final long maxWeight;
+    private final LongSupplier ticker;
+
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<Flight, CompletableFuture<Schedule>> flights = new HashMap<>();
+    private long weight;
+
+    private long hits;
+    private long misses;
+    private long coalesced;
+    private long evictions;
+
+    @Autowired
+    public ProjectCache(ProjectCacheProperties properties) {
+        this(properties, System::nanoTime);
+    }
+
+    ProjectCache(ProjectCacheProperties properties, LongSupplier ticker) {
+        this.ttlNanos = properties.ttl().toNanos();
+        this.maxWeight = properties.maxWeight();
+        this.ticker = ticker;
+    }
+
+    /**
+     * Return the cached schedule or evaluate and cache a new one. If the same version of the project is already
+     * being evaluated, wait for that evaluation instead, its failure is rethrown to all waiting callers.
+     *
+     * @param id          project id
+     * @param contentHash content hash of the project source
+     * @param loader      evaluates the project on a cache miss, in the calling thread
+     * @return evaluated schedule
+     */
+    public Schedule get(String id, long contentHash, Supplier<Schedule> loader) {
+        Flight flight = new Flight(id, contentHash);
+        CompletableFuture<Schedule> pending;
+        CompletableFuture<Schedule> own = null;
+        synchronized (this) {
+            Schedule cached = getIfPresent(id, contentHash);
+            if (cached != null) {
+                return cached;
+            }
+            pending = flights.get(flight);
+            if (pending != null) {
+                coalesced++;
+            } else {
+                misses++;
+                own = new CompletableFuture<>();
+                flights.put(flight, own);
+            }
+        }
+
+        if (own == null) {
+            return await(pending);
+        }
+        try {
+            Schedule schedule = loader.get();
+            synchronized (this) {
+                put(id, contentHash, schedule);
+                flights.remove(flight);
+            }
+            own.complete(schedule);
+            return schedule;
+        } catch (RuntimeException | Error e) {
+            synchronized (this) {
+                flights.remove(flight);
+            }
+            own.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    private static Schedule await(CompletableFuture<Schedule> flight) {
+        try {
+            return flight.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * @return the cached schedule or {@code null} if it's not cached, stale or expired
+     */
+    public synchronized Schedule getIfPresent(String id, long contentHash) {
+        Entry entry = entries.get(id);
+        if (entry != null && entry.contentHash() == contentHash && ticker.getAsLong() - entry.loadedAt() < ttlNanos) {
+            hits++;
+            return entry.schedule();
+        }
+        if (entry != null) {
+            LOG.debug("Project '{}' is stale, invalidating cache entry", id);
+            remove(id);
+        }
+        return null;
+    }
+
+    private void put(String id, long contentHash, Schedule schedule) {
+        long entryWeight = Math.max(1, schedule.size());
+        if (entryWeight > maxWeight) {
+            LOG.warn("Project '{}' is too large to be cached (tasks: {})", id, entryWeight);
+            return;
+        }
+
+        remove(id);
+        entries.put(id, new Entry(schedule, contentHash, entryWeight, ticker.getAsLong()));
+        weight += entryWeight;
+        evictLeastRecentlyUsed();
+    }
+
+    /**
+     * Drop the cached schedule, if any.
+     */
+    public synchronized void invalidate(String id) {
+        remove(id);
+    }
+
+    public synchronized Stats stats() {
+        return new Stats(hits, misses, coalesced, evictions, entries.size(), weight);
+    }
+
+    /**
+     * Publish the statistics with the common cache meter names ({@code cache_gets}, {@code cache_size}, ...),
+     * the values are read from {@link #stats()} when metrics are scraped.
+     */
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("cache.gets", this, cache -> cache.stats().hits())
+                .tags("cache", "projects", "result", "hit")
+                .description("Number of lookups served from the cache")
+                .register(registry);
+        FunctionCounter.builder("cache.gets", this, cache -> cache.stats().misses())
+                .tags("cache", "projects", "result", "miss")
+                .description("Number of lookups which had to evaluate the project")
+                .register(registry);
+        FunctionCounter.builder("cache.gets", this, cache -> cache.stats().coalesced())
+                .tags("cache", "projects", "result", "coalesced")
+                .description("Number of lookups which waited for an evaluation already in progress")
+                .register(registry);
+        FunctionCounter.builder("cache.evictions", this, cache -> cache.stats().evictions())
+                .tag("cache", "projects")
+                .description("Number of entries evicted to stay within the weight limit")
+                .register(registry);
+        Gauge.builder("cache.size", this, cache -> cache.stats().size())
+                .tag("cache", "projects")
+                .description("Number of cached projects")
+                .register(registry);
+        Gauge.builder("cache.weight", this, cache -> cache.stats().weight())
+                .tag("cache", "projects")
+                .baseUnit("tasks")
+                .description("Total number of tasks of all cached projects")
+                .register(registry);
+    }
+
+    private void remove(String id) {
+        Entry removed = entries.remove(id);
+        if (removed != null) {
+            weight -= removed.weight();
+        }
+    }
+
+    private void evictLeastRecentlyUsed() {
+        Iterator<Map.Entry<String, Entry>> iterator = entries.entrySet().iterator();
+        while (weight > maxWeight && iterator.hasNext()) {
+            Map.Entry<String, Entry> eldest = iterator.next();
+            LOG.debug("Evicting project '{}' from cache", eldest.getKey());
+            weight -= eldest.getValue().weight();
+            evictions++;
+            iterator.remove();
+        }
+    }
+
+    private record Entry(Schedule schedule, long contentHash, long weight, long loadedAt) {
+
+    }
+
+    /**
+     * Evaluation of one version of a project.
+     */
+    private record Flight(String id, long contentHash) {
+
+    }
+
+    /**
+     * Cache statistics.
+     *
+     * @param hits      number of lookups served from the cache
+     * @param misses    number of lookups which had to evaluate the project
+     * @param coalesced number of lookups which waited for an evaluation already in progress
+     * @param evictions number of entries evicted to stay within the weight limit
+     * @param size      number of cached projects
+     * @param weight    total number of tasks of all cached projects
+     */
+    public record Stats(long hits, long misses, long coalesced, long evictions, int size, long weight) {
+
+    }
+
+}
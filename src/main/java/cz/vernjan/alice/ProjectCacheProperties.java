@@ -0,0 +1,21 @@
+package cz.vernjan.alice;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.ConstructorBinding;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Limits of the evaluated project cache.
+ *
+ * @param ttl       how long an evaluated project is served before it is evaluated again
+ * @param maxWeight maximum total number of tasks of all cached projects
+ */
+@ConstructorBinding
+@ConfigurationProperties("alice.cache")
+public record ProjectCacheProperties(
+        @DefaultValue("10m") Duration ttl,
+        @DefaultValue("1000000") long maxWeight) {
+
+}
@@ -1,22 +1,92 @@
 package cz.vernjan.alice;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import cz.vernjan.alice.ProjectMetrics.Phase;
+import cz.vernjan.alice.domain.ComponentSummary;
+import cz.vernjan.alice.domain.CrewProfile;
+import cz.vernjan.alice.domain.CriticalPaths;
 import cz.vernjan.alice.domain.Project;
+import cz.vernjan.alice.domain.ProjectDiff;
 import cz.vernjan.alice.domain.ProjectTask;
+import cz.vernjan.alice.domain.ScheduleChange;
+import cz.vernjan.alice.domain.SimulationResult;
+import cz.vernjan.alice.domain.TaskDiff;
+import cz.vernjan.alice.domain.TaskRecord;
+import cz.vernjan.alice.domain.ValidationReport;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.util.Arrays;
 import java.util.List;
+import java.util.regex.Pattern;
 
 @RestController
 @RequestMapping("project")
 public class ProjectController {
 
+    static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+    static final int MAX_NEAR_CRITICAL_PATHS = 100;
+
+    private static final Pattern ZERO_QUALITY = Pattern.compile("q\\s*=\\s*0(\\.0{0,3})?");
+
     private final ProjectService projectService;
+    private final ProjectUploader projectUploader;
+    private final ObjectMapper objectMapper;
+    private final ProjectMetrics metrics;
+    private final TaskListEncoder taskListEncoder;
 
-    public ProjectController(ProjectService projectService) {
+    public ProjectController(
+            ProjectService projectService,
+            ProjectUploader projectUploader,
+            ObjectMapper objectMapper,
+            ProjectMetrics metrics,
+            EncodingProperties encodingProperties) {
         this.projectService = projectService;
+        this.projectUploader = projectUploader;
+        this.objectMapper = objectMapper;
+        this.metrics = metrics;
+        this.taskListEncoder = new TaskListEncoder(objectMapper, metrics, encodingProperties);
+    }
+
+    /**
+     * Evaluate an uploaded JSON array of task records, gzip compressed if sent with
+     * {@code Content-Encoding: gzip}. The body is parsed as it's received.
+     *
+     * @return project summary, the project can be queried by its id until it's evicted from the cache
+     */
+    @PostMapping(consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<UploadedProjectView> uploadProject(
+            InputStream body,
+            @RequestHeader(name = HttpHeaders.CONTENT_ENCODING, required = false) String contentEncoding,
+            @RequestHeader(name = HttpHeaders.CONTENT_LENGTH, required = false) Long contentLength) {
+        ProjectUploader.Upload upload = projectUploader.upload(
+                body,
+                "gzip".equalsIgnoreCase(contentEncoding),
+                contentLength != null ? contentLength : -1);
+        Schedule schedule = upload.schedule();
+        return ResponseEntity.created(URI.create("/project/" + upload.id()))
+                .body(new UploadedProjectView(upload.id(), schedule.totalDuration(), schedule.highestCrewAssignment()));
     }
 
     @GetMapping("/{id}")
@@ -25,14 +95,388 @@ public class ProjectController {
         return new ProjectView(project.totalDuration(), project.highestCrewAssignment());
     }
 
-    @GetMapping("/{id}/task")
-    public List<ProjectTask> getProjectTasks(@PathVariable String id) {
-        Project project = projectService.loadProject(id);
-        return project.tasks();
+    /**
+     * List tasks matching the query, if there are more tasks than the limit, the cursor of the next page is sent
+     * in the {@value #NEXT_CURSOR_HEADER} header.
+     * <p>
+     * The whole task list, i.e. a query without any parameter, is served from bodies encoded once per project
+     * version, in the format and content coding negotiated by the {@code Accept} and {@code Accept-Encoding}
+     * headers, with a strong ETag.
+     */
+    @GetMapping(path = "/{id}/task",
+            produces = {MediaType.APPLICATION_JSON_VALUE, TaskListEncoder.APPLICATION_SMILE_VALUE, MediaType.APPLICATION_CBOR_VALUE})
+    public ResponseEntity<?> getProjectTasks(
+            @PathVariable String id, TaskQuery query, @RequestHeader HttpHeaders headers) {
+        Schedule schedule = projectService.loadSchedule(id);
+        if (query.isEmpty()) {
+            TaskListEncoder.Format format = TaskListEncoder.Format.negotiate(headers.getAccept());
+            boolean gzip = acceptsGzip(headers.get(HttpHeaders.ACCEPT_ENCODING));
+            TaskListEncoder.Body body = taskListEncoder.body(schedule, new TaskListEncoder.Encoding(format, gzip));
+            // a GET with a matching If-None-Match gets 304 Not Modified from Spring, the ETag is checked for us
+            ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                    .contentType(format.mediaType())
+                    .varyBy(HttpHeaders.ACCEPT, HttpHeaders.ACCEPT_ENCODING)
+                    .eTag(body.eTag());
+            if (gzip) {
+                response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+            }
+            return response.body(body.bytes());
+        }
+
+        Schedule.TaskPage page = schedule.select(query.filter().compile(schedule), query.cursor(), query.limit());
+        List<ProjectTask> tasks = Arrays.stream(page.ids()).mapToObj(schedule::task).toList();
+        return withNextCursor(page).body(tasks);
+    }
+
+    /**
+     * Same as {@link #getProjectTasks(String, TaskQuery, HttpHeaders)}, but tasks are written one per line straight from the
+     * schedule columns, no intermediate list is built.
+     */
+    @GetMapping(path = "/{id}/task", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamProjectTasks(@PathVariable String id, TaskQuery query) {
+        Schedule schedule = projectService.loadSchedule(id);
+        Schedule.TaskPage page = schedule.select(query.filter().compile(schedule), query.cursor(), query.limit());
+        return withNextCursor(page)
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(outputStream -> {
+                    long start = metrics.start();
+                    writeTasks(schedule, page.ids(), objectMapper.getFactory().createGenerator(outputStream));
+                    metrics.stop(Phase.SERIALIZE, start);
+                });
+    }
+
+    /**
+     * Differences between the project and another version of it, written one per line: a {@link ProjectDiff}
+     * summary first, then a {@link TaskDiff} for every added, changed and removed task.
+     */
+    @GetMapping(path = "/{id}/diff/{otherId}", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> diffProjects(@PathVariable String id, @PathVariable String otherId) {
+        ScheduleDiff diff = new ScheduleDiff(projectService.loadSchedule(id), projectService.loadSchedule(otherId));
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(outputStream -> {
+                    long start = metrics.start();
+                    try (JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream)) {
+                        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+                        generator.setRootValueSeparator(null);
+                        generator.writeObject(diff.summary());
+                        generator.writeRaw('\n');
+                        diff.forEach(task -> {
+                            try {
+                                generator.writeObject(task);
+                                generator.writeRaw('\n');
+                            } catch (IOException e) {
+                                throw new UncheckedIOException(e);
+                            }
+                        });
+                    } finally {
+                        metrics.stop(Phase.SERIALIZE, start);
+                    }
+                });
+    }
+
+    @GetMapping("/{id}/task/{taskCode}")
+    public ProjectTask getProjectTask(@PathVariable String id, @PathVariable String taskCode) {
+        Schedule schedule = projectService.loadSchedule(id);
+        return schedule.task(indexOf(schedule, taskCode));
+    }
+
+    /**
+     * @param depth    maximum number of dependency edges from the task, all transitive dependencies by default
+     * @param critical only tasks with zero slack, other tasks are still traversed
+     * @return transitive dependencies of the task, nearest first
+     */
+    @GetMapping("/{id}/task/{taskCode}/upstream")
+    public List<ProjectTask> getUpstreamTasks(
+            @PathVariable String id,
+            @PathVariable String taskCode,
+            @RequestParam(required = false) Integer depth,
+            @RequestParam(defaultValue = "false") boolean critical) {
+        return cone(id, taskCode, Traversal.Direction.UPSTREAM, depth, critical);
+    }
+
+    /**
+     * @param depth    maximum number of dependency edges from the task, all transitive dependants by default
+     * @param critical only tasks with zero slack, other tasks are still traversed
+     * @return transitive dependants of the task, nearest first
+     */
+    @GetMapping("/{id}/task/{taskCode}/downstream")
+    public List<ProjectTask> getDownstreamTasks(
+            @PathVariable String id,
+            @PathVariable String taskCode,
+            @RequestParam(required = false) Integer depth,
+            @RequestParam(defaultValue = "false") boolean critical) {
+        return cone(id, taskCode, Traversal.Direction.DOWNSTREAM, depth, critical);
+    }
+
+    /**
+     * @param late whether to use late intervals instead of the early ones
+     * @return assignment of every crew over time
+     */
+    @GetMapping("/{id}/resources")
+    public List<CrewProfile> getProjectResources(
+            @PathVariable String id, @RequestParam(defaultValue = "false") boolean late) {
+        return projectService.loadSchedule(id).crewProfiles(late);
+    }
+
+    /**
+     * @return summaries of the independent parts of the project, i.e. groups of tasks with no dependencies
+     * between the groups
+     */
+    @GetMapping("/{id}/components")
+    public List<ComponentSummary> getProjectComponents(@PathVariable String id) {
+        return projectService.loadSchedule(id).components();
+    }
+
+    /**
+     * @param from start of the time window (inclusive)
+     * @param to   end of the time window (exclusive), the window is a single time unit by default
+     * @param crew only tasks of the crew
+     * @param late whether to use late intervals instead of the early ones
+     * @return tasks active during the time window, by start
+     */
+    @GetMapping("/{id}/active")
+    public List<ProjectTask> getActiveTasks(
+            @PathVariable String id,
+            @RequestParam int from,
+            @RequestParam(required = false) Integer to,
+            @RequestParam(required = false) String crew,
+            @RequestParam(defaultValue = "false") boolean late) {
+        Schedule schedule = projectService.loadSchedule(id);
+        int crewId = -1;
+        if (crew != null) {
+            crewId = schedule.graph().crewIndexOf(crew);
+            if (crewId < 0) {
+                return List.of();
+            }
+        }
+        int[] ids = schedule.activeTasks(from, to != null ? to : from + 1, crewId, late);
+        return Arrays.stream(ids).mapToObj(schedule::task).toList();
+    }
+
+    /**
+     * @param k        maximum number of near-critical paths, capped at {@value #MAX_NEAR_CRITICAL_PATHS}
+     * @param maxFloat maximum total float of a near-critical path, unlimited by default
+     * @return the critical path followed by the longest near-critical paths with total and free float of their
+     * tasks
+     */
+    @GetMapping("/{id}/critical-paths")
+    public CriticalPaths getCriticalPaths(
+            @PathVariable String id,
+            @RequestParam(defaultValue = "3") int k,
+            @RequestParam(required = false) Integer maxFloat) {
+        return projectService.loadSchedule(id).criticalPaths(
+                Math.min(Math.max(k, 0), MAX_NEAR_CRITICAL_PATHS),
+                maxFloat != null ? Math.max(maxFloat, 0) : Integer.MAX_VALUE);
+    }
+
+    /**
+     * Monte Carlo schedule risk simulation with the given task duration distributions.
+     */
+    @PostMapping("/{id}/simulation")
+    public SimulationResult simulateProject(@PathVariable String id, @RequestBody SimulationSettings settings) {
+        return projectService.simulateProject(id, settings);
+    }
+
+    /**
+     * Schedule tasks so that no crew exceeds its capacity, tasks are delayed as needed.
+     */
+    @PostMapping("/{id}/leveling")
+    public Project levelProject(@PathVariable String id, @RequestBody LevelingSettings settings) {
+        return projectService.levelProject(id, settings);
+    }
+
+    @PatchMapping("/{id}/task/{taskCode}")
+    public ScheduleChange editProjectTask(
+            @PathVariable String id, @PathVariable String taskCode, @RequestBody TaskEdit edit) {
+        return projectService.editProject(id, schedule -> {
+            if (edit.duration() != null) {
+                schedule.setDuration(taskCode, edit.duration());
+            }
+            edit.removeDependencies().forEach(dependency -> schedule.removeDependency(taskCode, dependency));
+            edit.addDependencies().forEach(dependency -> schedule.addDependency(taskCode, dependency));
+        });
+    }
+
+    @PatchMapping("/{id}/task")
+    public ScheduleChange editProjectTasks(@PathVariable String id, @RequestBody TasksEdit edit) {
+        return projectService.editProject(id, schedule -> {
+            edit.removeTasks().forEach(schedule::removeTask);
+            edit.addTasks().forEach(schedule::addTask);
+        });
+    }
+
+    /**
+     * @return the project with all "what-if" edits applied, the published project if there are none
+     */
+    @GetMapping("/{id}/edit")
+    public Project getEditedProject(@PathVariable String id) {
+        return projectService.loadEditedProject(id);
+    }
+
+    @DeleteMapping("/{id}/edit")
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    public void discardProjectEdits(@PathVariable String id) {
+        projectService.discardEdits(id);
+    }
+
+    /**
+     * Project tasks can't be compiled, all the problems are reported at once.
+     */
+    @ExceptionHandler(GraphValidationException.class)
+    @ResponseStatus(HttpStatus.UNPROCESSABLE_ENTITY)
+    public ValidationReport handleGraphValidation(GraphValidationException e) {
+        return e.report();
+    }
+
+    private List<ProjectTask> cone(
+            String id, String taskCode, Traversal.Direction direction, Integer depth, boolean critical) {
+        Schedule schedule = projectService.loadSchedule(id);
+        int[] ids = Traversal.cone(
+                schedule.graph(),
+                indexOf(schedule, taskCode),
+                direction,
+                depth != null ? Math.max(depth, 0) : Integer.MAX_VALUE,
+                critical ? schedule::isCritical : task -> true);
+        return Arrays.stream(ids).mapToObj(schedule::task).toList();
+    }
+
+    private static int indexOf(Schedule schedule, String taskCode) {
+        int taskId = schedule.graph().indexOf(taskCode);
+        if (taskId < 0) {
+            throw new TaskNotFoundException(taskCode);
+        }
+        return taskId;
+    }
+
+    /**
+     * @param acceptEncodings values of the {@code Accept-Encoding} header
+     */
+    static boolean acceptsGzip(List<String> acceptEncodings) {
+        if (acceptEncodings == null) {
+            return false;
+        }
+        for (String value : acceptEncodings) {
+            for (String coding : value.split(",")) {
+                String[] parameters = coding.split(";");
+                if (!parameters[0].trim().equalsIgnoreCase("gzip")) {
+                    continue;
+                }
+                for (int i = 1; i < parameters.length; i++) {
+                    if (ZERO_QUALITY.matcher(parameters[i].trim()).matches()) {
+                        return false;
+                    }
+                }
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static ResponseEntity.BodyBuilder withNextCursor(Schedule.TaskPage page) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.nextCursor() >= 0) {
+            response.header(NEXT_CURSOR_HEADER, Integer.toString(page.nextCursor()));
+        }
+        return response;
+    }
+
+    private static void writeTasks(Schedule schedule, int[] ids, JsonGenerator generator) throws IOException {
+        int[] earlyStart = schedule.earlyStart();
+        int[] earlyFinish = schedule.earlyFinish();
+        int[] lateStart = schedule.lateStart();
+        int[] lateFinish = schedule.lateFinish();
+
+        try (generator) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.setRootValueSeparator(null);
+            for (int id : ids) {
+                generator.writeStartObject();
+                generator.writeObjectField("record", schedule.graph().record(id));
+                writeInterval(generator, "startInterval", earlyStart[id], lateStart[id]);
+                writeInterval(generator, "endInterval", earlyFinish[id], lateFinish[id]);
+                generator.writeEndObject();
+                generator.writeRaw('\n');
+            }
+        }
+    }
+
+    private static void writeInterval(JsonGenerator generator, String name, int from, int to) throws IOException {
+        generator.writeObjectFieldStart(name);
+        generator.writeNumberField("from", from);
+        generator.writeNumberField("to", to);
+        generator.writeEndObject();
     }
 
     record ProjectView(int totalDuration, int highestCrewAssignment) {
 
     }
 
+    record UploadedProjectView(String id, int totalDuration, int highestCrewAssignment) {
+
+    }
+
+    /**
+     * @param critical  only tasks with zero slack
+     * @param crew      crew name
+     * @param element   element name prefix
+     * @param operation operation name prefix
+     * @param from      start of the time window
+     * @param to        end of the time window
+     * @param cursor    cursor of the page, the first page by default
+     * @param limit     maximum number of tasks in the page, all tasks by default
+     */
+    record TaskQuery(
+            Boolean critical,
+            String crew,
+            String element,
+            String operation,
+            Integer from,
+            Integer to,
+            Integer cursor,
+            Integer limit) {
+
+        /**
+         * @return whether the query has no parameter, i.e. selects the whole task list
+         */
+        boolean isEmpty() {
+            return critical == null && crew == null && element == null && operation == null
+                    && from == null && to == null && cursor == null && limit == null;
+        }
+
+        TaskFilter filter() {
+            return new TaskFilter(Boolean.TRUE.equals(critical), crew, element, operation, from, to);
+        }
+
+        public Integer cursor() {
+            return cursor != null ? cursor : 0;
+        }
+
+        public Integer limit() {
+            return limit != null && limit > 0 ? limit : Integer.MAX_VALUE;
+        }
+    }
+
+    record TaskEdit(Integer duration, List<String> addDependencies, List<String> removeDependencies) {
+
+        public List<String> addDependencies() {
+            return addDependencies != null ? addDependencies : List.of();
+        }
+
+        public List<String> removeDependencies() {
+            return removeDependencies != null ? removeDependencies : List.of();
+        }
+    }
+
+    record TasksEdit(List<TaskRecord> addTasks, List<String> removeTasks) {
+
+        public List<TaskRecord> addTasks() {
+            return addTasks != null ? addTasks : List.of();
+        }
+
+        public List<String> removeTasks() {
+            return removeTasks != null ? removeTasks : List.of();
+        }
+    }
+
 }
@@ -0,0 +1,138 @@
+package cz.vernjan.alice;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Timers of project loading and evaluation phases and size distributions of evaluated task graphs.
+ * <p>
+ * Phases are timed with two {@link System#nanoTime()} calls and no allocation, so the meters can stay enabled
+ * in production. Timers publish percentile histograms, i.e. {@code alice_phase_seconds_bucket{phase="..."}}.
+ */
+@Component
+public class ProjectMetrics {
+
+    /**
+     * Metrics which are not published anywhere, for components created outside of the application context.
+     */
+    static final ProjectMetrics NOOP = new ProjectMetrics(new CompositeMeterRegistry());
+
+    enum Phase {
+        /**
+         * Computing the checksum of the project source.
+         */
+        CHECKSUM,
+        /**
+         * Reading task records from the project source.
+         */
+        PARSE,
+        /**
+         * Reading a compiled task graph from a binary snapshot.
+         */
+        SNAPSHOT,
+        /**
+         * Compiling task records to a task graph.
+         */
+        BUILD,
+        FORWARD_PASS,
+        BACKWARD_PASS,
+        CREW_PEAK,
+        /**
+         * Creating project tasks from the schedule columns.
+         */
+        MATERIALIZE,
+        /**
+         * Writing streamed responses.
+         */
+        SERIALIZE,
+        /**
+         * Encoding cached response bodies of whole task lists.
+         */
+        ENCODE,
+        /**
+         * Running a whole Monte Carlo simulation.
+         */
+        SIMULATION,
+        /**
+         * Leveling a schedule to crew capacities.
+         */
+        LEVELING
+    }
+
+    private final MeterRegistry registry;
+    private final Map<Phase, Timer> timers = new EnumMap<>(Phase.class);
+    private final DistributionSummary tasks;
+    private final DistributionSummary edges;
+    private final DistributionSummary depth;
+    private final DistributionSummary maxFanIn;
+    private final DistributionSummary maxFanOut;
+
+    @Autowired
+    public ProjectMetrics(MeterRegistry registry) {
+        this.registry = registry;
+        for (Phase phase : Phase.values()) {
+            timers.put(phase, Timer.builder("alice.phase")
+                    .description("Duration of a project loading or evaluation phase")
+                    .tag("phase", phase.name().toLowerCase(Locale.ROOT))
+                    .publishPercentileHistogram()
+                    .minimumExpectedValue(Duration.ofMillis(1))
+                    .maximumExpectedValue(Duration.ofMinutes(1))
+                    .register(registry));
+        }
+        this.tasks = graphSummary(registry, "alice.graph.tasks", "Number of tasks of evaluated graphs");
+        this.edges = graphSummary(registry, "alice.graph.edges", "Number of dependencies of evaluated graphs");
+        this.depth = graphSummary(registry, "alice.graph.depth", "Number of topological levels of evaluated graphs");
+        this.maxFanIn = graphSummary(registry, "alice.graph.fan.in", "Highest number of dependencies of one task");
+        this.maxFanOut = graphSummary(registry, "alice.graph.fan.out", "Highest number of dependants of one task");
+    }
+
+    private static DistributionSummary graphSummary(MeterRegistry registry, String name, String description) {
+        return DistributionSummary.builder(name)
+                .description(description)
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+
+    /**
+     * Publish stats of a thread pool, i.e. {@code executor_*{name="..."}}.
+     */
+    void bindPool(ExecutorService pool, String name) {
+        new ExecutorServiceMetrics(pool, name, List.of()).bindTo(registry);
+    }
+
+    /**
+     * @return start of a phase to be passed to {@link #stop(Phase, long)}
+     */
+    long start() {
+        return System.nanoTime();
+    }
+
+    void stop(Phase phase, long start) {
+        timers.get(phase).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Record the shape of an evaluated graph.
+     */
+    void recordGraph(TaskGraph graph) {
+        tasks.record(graph.size());
+        edges.record(graph.edgeCount());
+        depth.record(graph.depth());
+        maxFanIn.record(graph.maxInDegree());
+        maxFanOut.record(graph.maxOutDegree());
+    }
+
+}
@@ -0,0 +1,13 @@
+package cz.vernjan.alice;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.NOT_FOUND)
+public class ProjectNotFoundException extends RuntimeException {
+
+    public ProjectNotFoundException(String id) {
+        super("Project " + id + " not found");
+    }
+
+}
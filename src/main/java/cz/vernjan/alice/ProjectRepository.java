@@ -0,0 +1,378 @@
+package cz.vernjan.alice;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.LongSupplier;
+import java.util.regex.Pattern;
+
+/**
+ * Evaluated project schedules by project id.
+ * <p>
+ * Projects are loaded from {@code <id>.json} files of the configured directory, or all ids are served from the
+ * bundled resource if no directory is configured, as one project. Every loaded project of the bundled resource or
+ * of a watched directory has a published version, the schedule and the content hash of the file it was evaluated
+ * from, and readers are served the published version, it doesn't expire. The first load of a project is coalesced
+ * through {@link ProjectCache}.
+ * <p>
+ * When a watched file changes, the new version is evaluated in the background and only then published by
+ * swapping the version reference, so until it's ready readers keep getting the previous schedule without waiting.
+ * Files of projects which were never loaded are not evaluated until requested.
+ * <p>
+ * Files which are not watched may change at any time, their schedules are kept only in {@link ProjectCache} and
+ * the files are checked on every load, but only by their size and last modified time, they are hashed again only
+ * when either changes. A schedule is always evaluated from content matching its content hash, a file which
+ * changes while it's being loaded is loaded again.
+ * <p>
+ * Uploaded projects get an id of their own and are kept in a store of their own, bounded by the upload limits,
+ * so uploads never evict projects loaded from files. Once they are evicted from it or expire they are not found
+ * anymore. Ids with the upload prefix are reserved for uploaded projects.
+ */
+@Component
+public class ProjectRepository {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ProjectRepository.class);
+
+    private static final String BUNDLED_RESOURCE = "LEO2-BE.json";
+    // every id is served from the bundled resource, so they all share its cache entry
+    private static final String BUNDLED_ID = "bundled";
+    private static final String EXTENSION = ".json";
+    private static final Pattern PROJECT_ID = Pattern.compile("[\\w-][\\w.-]*");
+    private static final String UPLOAD_PREFIX = "upload-";
+    // an uploaded project never changes, its id is its version
+    private static final long UPLOAD_VERSION = 0;
+    private static final int MAX_LOAD_ATTEMPTS = 3;
+
+    private final ProjectRepositoryProperties properties;
+    private final TaskRecordLoader recordLoader;
+    private final CpmEngine cpmEngine;
+    private final ProjectCache projectCache;
+    private final ProjectCache uploads;
+
+    private final Map<String, Version> published = new ConcurrentHashMap<>();
+    private final Map<String, FileVersion> fileVersions = new ConcurrentHashMap<>();
+
+    private WatchService watchService;
+    private ExecutorService reloader;
+
+    @Autowired
+    public ProjectRepository(
+            ProjectRepositoryProperties properties,
+            TaskRecordLoader recordLoader,
+            CpmEngine cpmEngine,
+            ProjectCache projectCache,
+            UploadProperties uploadProperties) {
+        this.properties = properties;
+        this.recordLoader = recordLoader;
+        this.cpmEngine = cpmEngine;
+        this.projectCache = projectCache;
+        this.uploads = new ProjectCache(
+                new ProjectCacheProperties(uploadProperties.ttl(), uploadProperties.maxStoredTasks()));
+    }
+
+    @PostConstruct
+    void start() throws IOException {
+        if (properties.directory() == null) {
+            return;
+        }
+        if (properties.eager()) {
+            loadAll();
+        }
+        if (properties.watch()) {
+            startWatching();
+        }
+    }
+
+    @PreDestroy
+    void stop() throws IOException {
+        if (watchService != null) {
+            watchService.close();
+            reloader.shutdownNow();
+        }
+    }
+
+    /**
+     * @return schedule of the published version of the project
+     * @throws ProjectNotFoundException if there is no such project
+     */
+    public Schedule load(String id) {
+        return loadPublished(id).schedule();
+    }
+
+    /**
+     * @return schedule of the published version of the project and the content hash of that version
+     * @throws ProjectNotFoundException if there is no such project
+     */
+    public Published loadPublished(String id) {
+        if (id.startsWith(UPLOAD_PREFIX)) {
+            Schedule schedule = uploads.getIfPresent(id, UPLOAD_VERSION);
+            if (schedule == null) {
+                throw new ProjectNotFoundException(id);
+            }
+            return new Published(schedule, UPLOAD_VERSION);
+        }
+
+        String key = properties.directory() == null ? BUNDLED_ID : id;
+        Resource resource = resource(key);
+        Version version;
+        if (tracksVersions()) {
+            version = published.get(key);
+            if (version == null) {
+                Version first = load(key, resource, () -> recordLoader.checksum(resource));
+                Version current = published.putIfAbsent(key, first);
+                version = current != null ? current : first;
+            }
+        } else {
+            version = load(key, resource, () -> fileVersion(key, resource));
+        }
+        return new Published(version.schedule(), version.contentHash());
+    }
+
+    /**
+     * Publish the schedule of an uploaded project under a new project id.
+     *
+     * @return project id of the uploaded project
+     */
+    public String publishUpload(Schedule schedule) {
+        String id = UPLOAD_PREFIX + UUID.randomUUID();
+        uploads.get(id, UPLOAD_VERSION, () -> schedule);
+        return id;
+    }
+
+    /**
+     * Versions are tracked for the bundled resource, which never changes, and for watched files. Files which are
+     * not watched may change at any time, so their version is checked on every load.
+     */
+    private boolean tracksVersions() {
+        return properties.directory() == null || properties.watch();
+    }
+
+    /**
+     * Content hash of a file which is not watched, the file is hashed again only when its size or last modified
+     * time differ from when it was hashed last. The attributes are read before the content, so a write during
+     * hashing is caught by the next load.
+     */
+    private long fileVersion(String id, Resource resource) {
+        BasicFileAttributes attributes;
+        try {
+            attributes = Files.readAttributes(properties.directory().resolve(id + EXTENSION), BasicFileAttributes.class);
+        } catch (IOException e) {
+            fileVersions.remove(id);
+            throw new ProjectNotFoundException(id);
+        }
+        long size = attributes.size();
+        long lastModified = attributes.lastModifiedTime().toMillis();
+
+        FileVersion version = fileVersions.get(id);
+        if (version == null || version.size() != size || version.lastModified() != lastModified) {
+            version = new FileVersion(size, lastModified, recordLoader.checksum(resource));
+            fileVersions.put(id, version);
+        }
+        return version.contentHash();
+    }
+
+    private Resource resource(String id) {
+        if (properties.directory() == null) {
+            return new ClassPathResource(BUNDLED_RESOURCE);
+        }
+        if (!PROJECT_ID.matcher(id).matches()) {
+            throw new ProjectNotFoundException(id);
+        }
+        Path file = properties.directory().resolve(id + EXTENSION);
+        if (!Files.isRegularFile(file)) {
+            fileVersions.remove(id);
+            throw new ProjectNotFoundException(id);
+        }
+        return new FileSystemResource(file);
+    }
+
+    /**
+     * Get the schedule of the current content from the cache or evaluate it, concurrent loads of the same content
+     * are coalesced. If the content changes while it's being evaluated, it's hashed and evaluated again.
+     */
+    private Version load(String id, Resource resource, LongSupplier contentHash) {
+        for (int attempt = 1; ; attempt++) {
+            long hash = contentHash.getAsLong();
+            try {
+                return new Version(hash, projectCache.get(id, hash, () -> evaluate(id, resource, hash)));
+            } catch (SourceChangedException e) {
+                fileVersions.remove(id);
+                if (attempt == MAX_LOAD_ATTEMPTS) {
+                    throw e;
+                }
+                LOG.debug("Project '{}' changed while it was being loaded, loading it again", id);
+            }
+        }
+    }
+
+    private Schedule evaluate(String id, Resource resource, long contentHash) {
+        TaskGraph graph = recordLoader.loadGraph(resource, contentHash);
+        Schedule schedule = cpmEngine.schedule(graph);
+        LOG.info("Project '{}' successfully loaded (total tasks: {})", id, schedule.size());
+        return schedule;
+    }
+
+    private void loadAll() throws IOException {
+        List<String> ids = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(properties.directory(), "*" + EXTENSION)) {
+            for (Path file : files) {
+                String fileName = file.getFileName().toString();
+                ids.add(fileName.substring(0, fileName.length() - EXTENSION.length()));
+            }
+        }
+
+        int parallelism = properties.loadParallelism() > 0
+                ? properties.loadParallelism()
+                : Runtime.getRuntime().availableProcessors();
+        ExecutorService executor = Executors.newFixedThreadPool(parallelism);
+        try {
+            List<Future<Schedule>> loads = new ArrayList<>(ids.size());
+            for (String id : ids) {
+                loads.add(executor.submit(() -> load(id)));
+            }
+            for (int i = 0; i < ids.size(); i++) {
+                try {
+                    loads.get(i).get();
+                } catch (ExecutionException e) {
+                    LOG.error("Failed to load project '{}'", ids.get(i), e.getCause());
+                }
+            }
+            LOG.info("Loaded {} projects from {}", ids.size(), properties.directory());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private void startWatching() throws IOException {
+        watchService = properties.directory().getFileSystem().newWatchService();
+        properties.directory().register(watchService,
+                StandardWatchEventKinds.ENTRY_CREATE,
+                StandardWatchEventKinds.ENTRY_MODIFY,
+                StandardWatchEventKinds.ENTRY_DELETE);
+
+        // a single thread, so versions of one project are never evaluated concurrently and published out of order
+        reloader = Executors.newSingleThreadExecutor(runnable -> daemon(runnable, "project-reloader"));
+        daemon(this::watch, "project-watcher").start();
+        LOG.info("Watching {} for project changes", properties.directory());
+    }
+
+    private static Thread daemon(Runnable runnable, String name) {
+        Thread thread = new Thread(runnable, name);
+        thread.setDaemon(true);
+        return thread;
+    }
+
+    private void watch() {
+        try {
+            while (true) {
+                WatchKey key = watchService.take();
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                        published.keySet().forEach(id -> reloader.execute(() -> reload(id)));
+                        continue;
+                    }
+                    String fileName = event.context().toString();
+                    if (!fileName.endsWith(EXTENSION)) {
+                        continue;
+                    }
+                    String id = fileName.substring(0, fileName.length() - EXTENSION.length());
+                    if (event.kind() == StandardWatchEventKinds.ENTRY_DELETE) {
+                        LOG.info("Project '{}' was deleted", id);
+                        published.remove(id);
+                        projectCache.invalidate(id);
+                    } else {
+                        reloader.execute(() -> reload(id));
+                    }
+                }
+                key.reset();
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            LOG.debug("Stopped watching {}", properties.directory());
+        }
+    }
+
+    /**
+     * Evaluate the current version of a loaded project and publish it. A file which is still being written may
+     * fail to load, the previous version is kept then and the next change event of the file triggers a new load.
+     */
+    private void reload(String id) {
+        Version current = published.get(id);
+        if (current == null) {
+            return;
+        }
+
+        try {
+            Resource resource = resource(id);
+            long contentHash = recordLoader.checksum(resource);
+            if (contentHash == current.contentHash()) {
+                return;
+            }
+
+            Version next = new Version(contentHash, evaluate(id, resource, contentHash));
+            // a project deleted meanwhile is not published again
+            if (published.replace(id, current, next)) {
+                // only the coalesced first load left the previous schedule in the cache, it's not served anymore
+                projectCache.invalidate(id);
+                LOG.info("Published new version of project '{}'", id);
+            }
+        } catch (SourceChangedException e) {
+            // the change which came in during the load has an event of its own, which loads it again
+            LOG.debug("Project '{}' changed while it was being reloaded", id);
+        } catch (RuntimeException e) {
+            LOG.warn("Failed to reload project '{}', keeping the previous version", id, e);
+        }
+    }
+
+    /**
+     * @param contentHash content hash of the source the schedule was evaluated from
+     */
+    public record Published(Schedule schedule, long contentHash) {
+
+    }
+
+    /**
+     * @param contentHash content hash of the project file
+     * @param schedule    schedule evaluated from the content with the hash
+     */
+    private record Version(long contentHash, Schedule schedule) {
+
+    }
+
+    /**
+     * @param size         size of the project file when it was hashed
+     * @param lastModified last modified time of the project file when it was hashed, in milliseconds
+     * @param contentHash  content hash of the project file
+     */
+    private record FileVersion(long size, long lastModified, long contentHash) {
+
+    }
+
+}
@@ -0,0 +1,26 @@
+package cz.vernjan.alice;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.ConstructorBinding;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.nio.file.Path;
+
+/**
+ * Where projects are loaded from.
+ *
+ * @param directory       directory of project files, project {@code id} is loaded from {@code <id>.json}. When not
+ *                        set, every id is served from the bundled {@code LEO2-BE.json} resource.
+ * @param eager           whether to load all projects of the directory at startup
+ * @param watch           whether to re-evaluate changed project files in the background
+ * @param loadParallelism number of threads loading projects at startup, {@code 0} uses the number of processors
+ */
+@ConstructorBinding
+@ConfigurationProperties("alice.projects")
+public record ProjectRepositoryProperties(
+        Path directory,
+        @DefaultValue("false") boolean eager,
+        @DefaultValue("true") boolean watch,
+        @DefaultValue("0") int loadParallelism) {
+
+}
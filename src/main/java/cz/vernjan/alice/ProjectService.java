@@ -1,33 +1,88 @@
 package cz.vernjan.alice;
 
+import cz.vernjan.alice.ProjectMetrics.Phase;
 import cz.vernjan.alice.domain.Project;
-import cz.vernjan.alice.domain.TaskRecord;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
+import cz.vernjan.alice.domain.ScheduleChange;
+import cz.vernjan.alice.domain.SimulationResult;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
-import java.util.List;
+import java.util.function.Consumer;
 
 @Service
 public class ProjectService {
 
-    private static final Logger LOG = LoggerFactory.getLogger(ProjectService.class);
-
-    private final TaskRecordLoader recordLoader;
+    private final ProjectRepository projectRepository;
     private final CpmEngine cpmEngine;
+    private final LevelingEngine levelingEngine;
+    private final ProjectMetrics metrics;
+    private final EditedProjects editedProjects;
 
     @Autowired
-    public ProjectService(TaskRecordLoader recordLoader, CpmEngine cpmEngine) {
-        this.recordLoader = recordLoader;
+    public ProjectService(
+            ProjectRepository projectRepository,
+            CpmEngine cpmEngine,
+            LevelingEngine levelingEngine,
+            ProjectMetrics metrics,
+            ProjectCacheProperties cacheProperties) {
+        this.projectRepository = projectRepository;
         this.cpmEngine = cpmEngine;
+        this.levelingEngine = levelingEngine;
+        this.metrics = metrics;
+        this.editedProjects = new EditedProjects(cacheProperties, System::nanoTime);
     }
 
     public Project loadProject(String id) {
-        List<TaskRecord> taskRecords = recordLoader.loadFromResource("LEO2-BE.json");
-        Project project = cpmEngine.evaluate(taskRecords);
-        LOG.info("Project '{}' successfully loaded (total tasks: {})", id, project.tasks().size());
+        Schedule schedule = loadSchedule(id);
+        long start = metrics.start();
+        Project project = schedule.project();
+        metrics.stop(Phase.MATERIALIZE, start);
         return project;
     }
 
+    public Schedule loadSchedule(String id) {
+        return projectRepository.load(id);
+    }
+
+    /**
+     * Simulate the project with random task durations.
+     */
+    public SimulationResult simulateProject(String id, SimulationSettings settings) {
+        return cpmEngine.simulate(loadSchedule(id).graph(), settings);
+    }
+
+    /**
+     * Level the project schedule so that no crew exceeds its capacity.
+     */
+    public Project levelProject(String id, LevelingSettings settings) {
+        return levelingEngine.level(loadSchedule(id), settings.capacities()).project();
+    }
+
+    /**
+     * Apply "what-if" edits to a working copy of the project. The working copy is created from the published
+     * project schedule by the first edit and kept until {@link #discardEdits(String) discarded}, until a new
+     * version of the project is published or until it expires or is evicted like cached projects.
+     * <p>
+     * Edits are applied in order, if one of them fails the preceding ones are undone and nothing is applied.
+     *
+     * @return tasks whose intervals changed
+     */
+    public ScheduleChange editProject(String id, Consumer<EditableSchedule> edits) {
+        ProjectRepository.Published published = projectRepository.loadPublished(id);
+        return editedProjects.edit(id, published.schedule(), published.contentHash(), edits);
+    }
+
+    /**
+     * @return the working copy of the project with all edits applied, or the published project if it wasn't edited
+     */
+    public Project loadEditedProject(String id) {
+        ProjectRepository.Published published = projectRepository.loadPublished(id);
+        Project project = editedProjects.project(id, published.contentHash());
+        return project != null ? project : published.schedule().project();
+    }
+
+    public void discardEdits(String id) {
+        editedProjects.discard(id);
+    }
+
 }
@@ -0,0 +1,208 @@
+package cz.vernjan.alice;
+
+import cz.vernjan.alice.ProjectMetrics.Phase;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Evaluates projects uploaded by clients.
+ * <p>
+ * The body is parsed while it's being received, task records go straight into a task graph builder, so the body
+ * is never held in memory. Bodies and task counts over the configured {@link UploadProperties limits} are cut off
+ * as soon as the limit is crossed.
+ * <p>
+ * Uploads are parsed and evaluated on a bounded executor, an upload which finds all its threads busy and its
+ * queue full is rejected rather than waiting. The request thread waits for its upload, so the number of uploads
+ * being received is bounded too.
+ */
+@Service
+public class ProjectUploader {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ProjectUploader.class);
+
+    private final UploadProperties properties;
+    private final TaskRecordLoader recordLoader;
+    private final CpmEngine cpmEngine;
+    private final ProjectRepository projectRepository;
+    private final ProjectMetrics metrics;
+    private final ThreadPoolExecutor executor;
+
+    @Autowired
+    public ProjectUploader(
+            UploadProperties properties,
+            TaskRecordLoader recordLoader,
+            CpmEngine cpmEngine,
+            ProjectRepository projectRepository,
+            ProjectMetrics metrics) {
+        this.properties = properties;
+        this.recordLoader = recordLoader;
+        this.cpmEngine = cpmEngine;
+        this.projectRepository = projectRepository;
+        this.metrics = metrics;
+
+        BlockingQueue<Runnable> queue = properties.queueCapacity() > 0
+                ? new ArrayBlockingQueue<>(properties.queueCapacity())
+                : new SynchronousQueue<>();
+        AtomicInteger threads = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(
+                properties.parallelism(), properties.parallelism(), 0, TimeUnit.MILLISECONDS, queue,
+                runnable -> {
+                    Thread thread = new Thread(runnable, "project-upload-" + threads.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        metrics.bindPool(executor, "upload");
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Parse and evaluate an uploaded project and publish it under a new project id.
+     *
+     * @param body          JSON array of task records, it's not closed by this method
+     * @param gzip          whether the body is gzip compressed
+     * @param contentLength declared length of the body, {@code -1} if unknown
+     * @throws UploadTooLargeException  if the body or the number of tasks exceeds the limits
+     * @throws UploadRejectedException  if there are too many uploads already
+     * @throws InvalidUploadException   if the body is not a JSON array of task records
+     * @throws GraphValidationException if the tasks don't form a valid task graph
+     */
+    public Upload upload(InputStream body, boolean gzip, long contentLength) {
+        long maxSize = properties.maxSize().toBytes();
+        if (contentLength > maxSize) {
+            throw new UploadTooLargeException("Project is larger than " + maxSize + " bytes");
+        }
+
+        Future<Upload> upload;
+        try {
+            upload = executor.submit(() -> evaluate(body, gzip, maxSize));
+        } catch (RejectedExecutionException e) {
+            throw new UploadRejectedException();
+        }
+
+        try {
+            return upload.get();
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : new IllegalStateException(e.getCause());
+        } catch (InterruptedException e) {
+            upload.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Upload interrupted", e);
+        }
+    }
+
+    private Upload evaluate(InputStream body, boolean gzip, long maxSize) {
+        InputStream limited = new LimitedInputStream(body, maxSize);
+        TaskGraph.Builder builder = TaskGraph.builder();
+        int[] tasks = {0};
+
+        long start = metrics.start();
+        try {
+            InputStream json = gzip ? new LimitedInputStream(new GZIPInputStream(limited, 8192), maxSize) : limited;
+            recordLoader.read(json, record -> {
+                if (++tasks[0] > properties.maxTasks()) {
+                    throw new UploadTooLargeException("Project has more than " + properties.maxTasks() + " tasks");
+                }
+                builder.add(record);
+            });
+        } catch (IOException e) {
+            throw new InvalidUploadException("Failed to read uploaded project: " + e.getMessage(), e);
+        } finally {
+            metrics.stop(Phase.PARSE, start);
+        }
+
+        start = metrics.start();
+        TaskGraph graph = builder.build();
+        metrics.stop(Phase.BUILD, start);
+
+        Schedule schedule = cpmEngine.schedule(graph);
+        String id = projectRepository.publishUpload(schedule);
+        LOG.info("Uploaded project '{}' successfully loaded (total tasks: {})", id, schedule.size());
+        return new Upload(id, schedule);
+    }
+
+    /**
+     * @param id project id of the uploaded project
+     */
+    public record Upload(String id, Schedule schedule) {
+
+    }
+
+    /**
+     * Fails the read which crosses the limit, so an oversized body is cut off rather than read to the end.
+     */
+    private static final class LimitedInputStream extends FilterInputStream {
+
+        private final long limit;
+        private long count;
+
+        LimitedInputStream(InputStream in, long limit) {
+            super(in);
+            this.limit = limit;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                count(1);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int read = super.read(b, off, len);
+            if (read > 0) {
+                count(read);
+            }
+            return read;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(n);
+            count(skipped);
+            return skipped;
+        }
+
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
+
+        @Override
+        public void close() {
+            // the request body is closed by the servlet container
+        }
+
+        private void count(long bytes) {
+            count += bytes;
+            if (count > limit) {
+                throw new UploadTooLargeException("Project is larger than " + limit + " bytes");
+            }
+        }
+    }
+
+}
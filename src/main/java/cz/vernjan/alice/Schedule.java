@@ -0,0 +1,292 @@
+package cz.vernjan.alice;
+
+import cz.vernjan.alice.domain.ComponentSummary;
+import cz.vernjan.alice.domain.CrewPeak;
+import cz.vernjan.alice.domain.CrewProfile;
+import cz.vernjan.alice.domain.CriticalPaths;
+import cz.vernjan.alice.domain.Interval;
+import cz.vernjan.alice.domain.Project;
+import cz.vernjan.alice.domain.ProjectTask;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.RandomAccess;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiFunction;
+import java.util.function.BiPredicate;
+import java.util.function.IntPredicate;
+
+/**
+ * Task graph evaluated by {@link CpmEngine} or {@link LevelingEngine}, i.e. early and late intervals of all tasks
+ * kept in int columns indexed by task id.
+ * <p>
+ * Arrays returned by the package-private accessors are shared, callers must not modify them.
+ */
+public final class Schedule {
+
+    private final TaskGraph graph;
+    private final int[] earlyStart;
+    private final int[] earlyFinish;
+    private final int[] lateStart;
+    private final int[] lateFinish;
+    private final int totalDuration;
+    private final CrewPeak crewPeak;
+
+    private final AtomicReferenceArray<TaskListEncoder.Body> encodedTasks =
+            new AtomicReferenceArray<>(TaskListEncoder.Encoding.COUNT);
+    private final Lock encodeLock = new ReentrantLock();
+
+    private volatile ActivityIndex earlyActivity;
+    private volatile ActivityIndex lateActivity;
+
+    Schedule(
+            TaskGraph graph,
+            int[] earlyStart,
+            int[] earlyFinish,
+            int[] lateStart,
+            int[] lateFinish,
+            int totalDuration,
+            CrewPeak crewPeak) {
+        this.graph = graph;
+        this.earlyStart = earlyStart;
+        this.earlyFinish = earlyFinish;
+        this.lateStart = lateStart;
+        this.lateFinish = lateFinish;
+        this.totalDuration = totalDuration;
+        this.crewPeak = crewPeak;
+    }
+
+    public TaskGraph graph() {
+        return graph;
+    }
+
+    public int size() {
+        return graph.size();
+    }
+
+    public int totalDuration() {
+        return totalDuration;
+    }
+
+    public int highestCrewAssignment() {
+        return crewPeak.assignment();
+    }
+
+    /**
+     * @return highest crew assignment and when it occurs (based on the early interval)
+     */
+    public CrewPeak crewPeak() {
+        return crewPeak;
+    }
+
+    /**
+     * @param late whether to use the late intervals instead of the early ones
+     * @return assignment of every crew over time
+     */
+    public List<CrewProfile> crewProfiles(boolean late) {
+        return late
+                ? CrewLoad.profiles(graph, lateStart, lateFinish)
+                : CrewLoad.profiles(graph, earlyStart, earlyFinish);
+    }
+
+    /**
+     * @return summaries of the weakly connected components of the task graph, in the order of their first tasks
+     */
+    public List<ComponentSummary> components() {
+        int[] order = graph.componentOrder();
+        int[] offsets = graph.componentOffsets();
+        List<ComponentSummary> components = new ArrayList<>(offsets.length - 1);
+        for (int component = 0; component < offsets.length - 1; component++) {
+            int[] tasks = Arrays.copyOfRange(order, offsets[component], offsets[component + 1]);
+            int first = Integer.MAX_VALUE;
+            int duration = 0;
+            for (int id : tasks) {
+                first = Math.min(first, id);
+                duration = Math.max(duration, earlyFinish[id]);
+            }
+            components.add(new ComponentSummary(
+                    graph.taskCode(first),
+                    tasks.length,
+                    duration,
+                    CrewLoad.peak(tasks, earlyStart, earlyFinish, graph.crewAssignments())));
+        }
+        return components;
+    }
+
+    /**
+     * @return whether the task has zero slack, i.e. any delay of the task delays the whole project
+     */
+    public boolean isCritical(int id) {
+        return earlyStart[id] == lateStart[id];
+    }
+
+    /**
+     * @return by how much the task can be delayed without delaying the whole project
+     */
+    public int totalFloat(int id) {
+        return lateStart[id] - earlyStart[id];
+    }
+
+    /**
+     * @return by how much the task can be delayed without delaying the early start of any of its dependants
+     */
+    public int freeFloat(int id) {
+        int[] successorOffsets = graph.successorOffsets();
+        int[] successors = graph.successors();
+        int earliest = totalDuration;
+        for (int i = successorOffsets[id]; i < successorOffsets[id + 1]; i++) {
+            earliest = Math.min(earliest, earlyStart[successors[i]]);
+        }
+        return earliest - earlyFinish[id];
+    }
+
+    /**
+     * @param count    maximum number of paths on top of the critical path
+     * @param maxFloat maximum total float of the paths on top of the critical path
+     * @return the critical path followed by the longest other paths, longest first
+     */
+    public CriticalPaths criticalPaths(int count, int maxFloat) {
+        return new CriticalPaths(totalDuration, LongestPaths.find(this, count + 1, maxFloat));
+    }
+
+    /**
+     * Tasks whose interval overlaps the time window, answered by an interval index built on the first call.
+     *
+     * @param from start of the time window (inclusive)
+     * @param to   end of the time window (exclusive)
+     * @param crew crew id or {@code -1} for tasks of all crews
+     * @param late whether to use the late intervals instead of the early ones
+     * @return ids of the active tasks, by start
+     */
+    public int[] activeTasks(int from, int to, int crew, boolean late) {
+        return activity(late).active(from, to, crew);
+    }
+
+    public Interval startInterval(int id) {
+        return new Interval(earlyStart[id], lateStart[id]);
+    }
+
+    public Interval endInterval(int id) {
+        return new Interval(earlyFinish[id], lateFinish[id]);
+    }
+
+    public ProjectTask task(int id) {
+        return new ProjectTask(graph.record(id), startInterval(id), endInterval(id));
+    }
+
+    /**
+     * @return project summary and all tasks with start interval and end interval, the tasks are a view of the
+     * schedule columns and every task is created when it's read
+     */
+    public Project project() {
+        return new Project(totalDuration, highestCrewAssignment(), new Tasks());
+    }
+
+    /**
+     * Response body of the whole task list in the encoding, encoded by the encoder on the first call. The body is
+     * kept as long as the schedule, unless the retention check refuses it.
+     */
+    TaskListEncoder.Body encodedTasks(
+            TaskListEncoder.Encoding encoding,
+            BiFunction<Schedule, TaskListEncoder.Encoding, TaskListEncoder.Body> encoder,
+            BiPredicate<Schedule, TaskListEncoder.Body> retention) {
+        TaskListEncoder.Body body = encodedTasks.get(encoding.index());
+        if (body == null) {
+            // concurrent callers wait for one encoding, a lock rather than a monitor, so virtual threads waiting for
+            // it don't pin their carrier thread
+            encodeLock.lock();
+            try {
+                body = encodedTasks.get(encoding.index());
+                if (body == null) {
+                    body = encoder.apply(this, encoding);
+                    if (retention.test(this, body)) {
+                        encodedTasks.set(encoding.index(), body);
+                    }
+                }
+            } finally {
+                encodeLock.unlock();
+            }
+        }
+        return body;
+    }
+
+    /**
+     * Select a page of tasks matching the filter, tasks are visited in id order.
+     *
+     * @param cursor first task id to visit
+     * @param limit  maximum number of selected tasks
+     */
+    TaskPage select(IntPredicate filter, int cursor, int limit) {
+        int size = size();
+        int id = Math.max(cursor, 0);
+        int[] ids = new int[Math.min(Math.max(size - id, 0), limit)];
+        int count = 0;
+        for (; id < size && count < ids.length; id++) {
+            if (filter.test(id)) {
+                ids[count++] = id;
+            }
+        }
+        while (id < size && !filter.test(id)) {
+            id++;
+        }
+        return new TaskPage(count < ids.length ? Arrays.copyOf(ids, count) : ids, id < size ? id : -1);
+    }
+
+    private ActivityIndex activity(boolean late) {
+        ActivityIndex result = late ? lateActivity : earlyActivity;
+        if (result == null) {
+            result = late
+                    ? ActivityIndex.of(lateStart, lateFinish, graph.crews(), graph.crewCount())
+                    : ActivityIndex.of(earlyStart, earlyFinish, graph.crews(), graph.crewCount());
+            if (late) {
+                lateActivity = result;
+            } else {
+                earlyActivity = result;
+            }
+        }
+        return result;
+    }
+
+    int[] earlyStart() {
+        return earlyStart;
+    }
+
+    int[] earlyFinish() {
+        return earlyFinish;
+    }
+
+    int[] lateStart() {
+        return lateStart;
+    }
+
+    int[] lateFinish() {
+        return lateFinish;
+    }
+
+    /**
+     * @param ids        selected task ids
+     * @param nextCursor id of the next matching task or {@code -1} if there is none
+     */
+    record TaskPage(int[] ids, int nextCursor) {
+
+    }
+
+    private final class Tasks extends AbstractList<ProjectTask> implements RandomAccess {
+
+        @Override
+        public ProjectTask get(int index) {
+            return task(Objects.checkIndex(index, size()));
+        }
+
+        @Override
+        public int size() {
+            return Schedule.this.size();
+        }
+    }
+
+}
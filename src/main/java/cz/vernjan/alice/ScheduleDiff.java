@@ -0,0 +1,167 @@
+package cz.vernjan.alice;
+
+import cz.vernjan.alice.domain.ProjectDiff;
+import cz.vernjan.alice.domain.TaskDiff;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Differences between two evaluated versions of a project, tasks are matched by task code.
+ * <p>
+ * Tasks are matched once through the task code index of the previous version, dependencies are then compared as
+ * task ids with a mark per task, so the comparison is linear in the size of both graphs. Differences are passed on
+ * one task at a time straight from the schedule columns, neither version is materialized.
+ */
+final class ScheduleDiff {
+
+    private final Schedule previous;
+    private final Schedule current;
+
+    ScheduleDiff(Schedule previous, Schedule current) {
+        this.previous = previous;
+        this.current = current;
+    }
+
+    ProjectDiff summary() {
+        return new ProjectDiff(
+                previous.totalDuration(),
+                current.totalDuration(),
+                previous.highestCrewAssignment(),
+                current.highestCrewAssignment());
+    }
+
+    /**
+     * Pass on added and changed tasks in the task order of the new version, then removed tasks in the task order
+     * of the previous version. Unchanged tasks are skipped.
+     */
+    void forEach(Consumer<TaskDiff> action) {
+        TaskGraph previousGraph = previous.graph();
+        TaskGraph currentGraph = current.graph();
+
+        int[] previousIds = new int[currentGraph.size()];
+        int[] currentIds = new int[previousGraph.size()];
+        Arrays.fill(currentIds, -1);
+        for (int id = 0; id < currentGraph.size(); id++) {
+            int previousId = previousGraph.indexOf(currentGraph.taskCode(id));
+            previousIds[id] = previousId;
+            if (previousId >= 0) {
+                currentIds[previousId] = id;
+            }
+        }
+
+        // marks[task] == id when the task is a dependency of task id
+        int[] previousMarks = new int[previousGraph.size()];
+        int[] currentMarks = new int[currentGraph.size()];
+        Arrays.fill(previousMarks, -1);
+        Arrays.fill(currentMarks, -1);
+
+        int[] previousOffsets = previousGraph.predecessorOffsets();
+        int[] previousPredecessors = previousGraph.predecessors();
+        int[] currentOffsets = currentGraph.predecessorOffsets();
+        int[] currentPredecessors = currentGraph.predecessors();
+
+        for (int id = 0; id < currentGraph.size(); id++) {
+            int previousId = previousIds[id];
+            if (previousId < 0) {
+                action.accept(added(id));
+                continue;
+            }
+
+            for (int i = previousOffsets[previousId]; i < previousOffsets[previousId + 1]; i++) {
+                previousMarks[previousPredecessors[i]] = id;
+            }
+            for (int i = currentOffsets[id]; i < currentOffsets[id + 1]; i++) {
+                currentMarks[currentPredecessors[i]] = id;
+            }
+            List<String> addedDependencies = List.of();
+            for (int i = currentOffsets[id]; i < currentOffsets[id + 1]; i++) {
+                int dependency = previousIds[currentPredecessors[i]];
+                if (dependency < 0 || previousMarks[dependency] != id) {
+                    addedDependencies = append(addedDependencies, currentGraph.taskCode(currentPredecessors[i]));
+                }
+            }
+            List<String> removedDependencies = List.of();
+            for (int i = previousOffsets[previousId]; i < previousOffsets[previousId + 1]; i++) {
+                int dependency = currentIds[previousPredecessors[i]];
+                if (dependency < 0 || currentMarks[dependency] != id) {
+                    removedDependencies = append(removedDependencies, previousGraph.taskCode(previousPredecessors[i]));
+                }
+            }
+
+            if (!addedDependencies.isEmpty() || !removedDependencies.isEmpty() || moved(previousId, id)) {
+                action.accept(new TaskDiff(
+                        currentGraph.taskCode(id),
+                        TaskDiff.Change.CHANGED,
+                        current.startInterval(id),
+                        current.endInterval(id),
+                        current.earlyStart()[id] - previous.earlyStart()[previousId],
+                        current.earlyFinish()[id] - previous.earlyFinish()[previousId],
+                        current.isCritical(id),
+                        current.isCritical(id) != previous.isCritical(previousId),
+                        addedDependencies,
+                        removedDependencies));
+            }
+        }
+
+        for (int previousId = 0; previousId < previousGraph.size(); previousId++) {
+            if (currentIds[previousId] < 0) {
+                action.accept(removed(previousId));
+            }
+        }
+    }
+
+    private boolean moved(int previousId, int id) {
+        return previous.earlyStart()[previousId] != current.earlyStart()[id]
+                || previous.earlyFinish()[previousId] != current.earlyFinish()[id]
+                || previous.lateStart()[previousId] != current.lateStart()[id]
+                || previous.lateFinish()[previousId] != current.lateFinish()[id];
+    }
+
+    private TaskDiff added(int id) {
+        return new TaskDiff(
+                current.graph().taskCode(id),
+                TaskDiff.Change.ADDED,
+                current.startInterval(id),
+                current.endInterval(id),
+                0,
+                0,
+                current.isCritical(id),
+                false,
+                dependencies(current.graph(), id),
+                List.of());
+    }
+
+    private TaskDiff removed(int previousId) {
+        return new TaskDiff(
+                previous.graph().taskCode(previousId),
+                TaskDiff.Change.REMOVED,
+                previous.startInterval(previousId),
+                previous.endInterval(previousId),
+                0,
+                0,
+                previous.isCritical(previousId),
+                false,
+                List.of(),
+                dependencies(previous.graph(), previousId));
+    }
+
+    private static List<String> dependencies(TaskGraph graph, int id) {
+        int[] offsets = graph.predecessorOffsets();
+        int[] predecessors = graph.predecessors();
+        String[] taskCodes = new String[offsets[id + 1] - offsets[id]];
+        for (int i = 0; i < taskCodes.length; i++) {
+            taskCodes[i] = graph.taskCode(predecessors[offsets[id] + i]);
+        }
+        return List.of(taskCodes);
+    }
+
+    private static List<String> append(List<String> taskCodes, String taskCode) {
+        List<String> result = taskCodes.isEmpty() ? new ArrayList<>(2) : taskCodes;
+        result.add(taskCode);
+        return result;
+    }
+
+}
@@ -0,0 +1,16 @@
+package cz.vernjan.alice;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Requested schedule edit can't be applied.
+ */
+@ResponseStatus(HttpStatus.BAD_REQUEST)
+public class ScheduleEditException extends RuntimeException {
+
+    public ScheduleEditException(String message) {
+        super(message);
+    }
+
+}
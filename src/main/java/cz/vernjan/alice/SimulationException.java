@@ -0,0 +1,16 @@
+package cz.vernjan.alice;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Requested simulation can't be run.
+ */
+@ResponseStatus(HttpStatus.BAD_REQUEST)
+public class SimulationException extends RuntimeException {
+
+    public SimulationException(String message) {
+        super(message);
+    }
+
+}
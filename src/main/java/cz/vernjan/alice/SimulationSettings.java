@@ -0,0 +1,48 @@
+package cz.vernjan.alice;
+
+import cz.vernjan.alice.domain.DurationDistribution;
+
+import java.util.Map;
+
+/**
+ * Monte Carlo schedule risk simulation settings.
+ *
+ * @param iterations number of simulated schedules, {@value #DEFAULT_ITERATIONS} by default
+ * @param seed       seed of the random durations, a random seed by default
+ * @param spread     relative spread of durations of tasks without their own distribution, e.g. {@code 0.2}
+ *                   samples durations between 80 % and 120 % of the planned duration, {@code 0} by default
+ * @param shape      shape of the spread distribution, {@link DurationDistribution.Shape#TRIANGULAR} by default
+ * @param tasks      distributions of individual tasks by task code
+ */
+public record SimulationSettings(
+        Integer iterations,
+        Long seed,
+        Double spread,
+        DurationDistribution.Shape shape,
+        Map<String, DurationDistribution> tasks) {
+
+    static final int DEFAULT_ITERATIONS = 10_000;
+    static final int MAX_ITERATIONS = 1_000_000;
+    /**
+     * Maximum number of sampled task durations, i.e. tasks times iterations, which bounds the work of a simulation
+     * of a large project.
+     */
+    static final long MAX_SAMPLES = 1_000_000_000L;
+
+    public Integer iterations() {
+        return iterations != null ? iterations : DEFAULT_ITERATIONS;
+    }
+
+    public Double spread() {
+        return spread != null ? spread : 0;
+    }
+
+    public DurationDistribution.Shape shape() {
+        return shape != null ? shape : DurationDistribution.Shape.TRIANGULAR;
+    }
+
+    public Map<String, DurationDistribution> tasks() {
+        return tasks != null ? tasks : Map.of();
+    }
+
+}
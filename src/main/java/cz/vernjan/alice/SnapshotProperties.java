@@ -0,0 +1,23 @@
+package cz.vernjan.alice;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.ConstructorBinding;
+
+import java.nio.file.Path;
+
+/**
+ * Binary snapshots of compiled task graphs, see {@link TaskGraphSnapshot}.
+ *
+ * @param directory where snapshots are written and read from, snapshots are disabled when not set
+ */
+@ConstructorBinding
+@ConfigurationProperties("alice.snapshot")
+public record SnapshotProperties(Path directory) {
+
+    static final SnapshotProperties DISABLED = new SnapshotProperties(null);
+
+    boolean isEnabled() {
+        return directory != null;
+    }
+
+}
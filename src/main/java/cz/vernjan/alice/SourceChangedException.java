@@ -0,0 +1,16 @@
+package cz.vernjan.alice;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Project source changed while it was being loaded, its content doesn't match the checksum it was loaded under.
+ */
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class SourceChangedException extends RuntimeException {
+
+    public SourceChangedException(String description) {
+        super("Project source " + description + " changed while it was being loaded");
+    }
+
+}
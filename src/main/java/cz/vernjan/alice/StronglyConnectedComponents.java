@@ -0,0 +1,98 @@
+package cz.vernjan.alice;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Tarjan's strongly connected components of a graph in CSR form. The depth-first search keeps its own stack, so
+ * long dependency chains can't overflow the thread stack.
+ */
+final class StronglyConnectedComponents {
+
+    private StronglyConnectedComponents() {
+    }
+
+    /**
+     * Find all cycles among the candidate nodes, edges leading out of the candidates are ignored.
+     *
+     * @param offsets    CSR offsets of the edges
+     * @param targets    CSR edge targets
+     * @param candidates nodes to search
+     * @return components of more than one node and nodes with an edge to themselves, in the order they are found
+     */
+    static List<int[]> cycles(int[] offsets, int[] targets, boolean[] candidates) {
+        int size = offsets.length - 1;
+        int[] index = new int[size];
+        int[] lowLink = new int[size];
+        int[] edgeCursor = new int[size];
+        boolean[] onStack = new boolean[size];
+        int[] stack = new int[size];
+        int[] path = new int[size];
+        Arrays.fill(index, -1);
+
+        List<int[]> cycles = new ArrayList<>();
+        int nextIndex = 0;
+        int stackSize = 0;
+
+        for (int root = 0; root < size; root++) {
+            if (!candidates[root] || index[root] >= 0) {
+                continue;
+            }
+
+            int depth = 0;
+            path[depth++] = root;
+            index[root] = lowLink[root] = nextIndex++;
+            edgeCursor[root] = offsets[root];
+            stack[stackSize++] = root;
+            onStack[root] = true;
+
+            while (depth > 0) {
+                int node = path[depth - 1];
+                if (edgeCursor[node] < offsets[node + 1]) {
+                    int target = targets[edgeCursor[node]++];
+                    if (!candidates[target]) {
+                        continue;
+                    }
+                    if (index[target] < 0) {
+                        path[depth++] = target;
+                        index[target] = lowLink[target] = nextIndex++;
+                        edgeCursor[target] = offsets[target];
+                        stack[stackSize++] = target;
+                        onStack[target] = true;
+                    } else if (onStack[target]) {
+                        lowLink[node] = Math.min(lowLink[node], index[target]);
+                    }
+                    continue;
+                }
+
+                depth--;
+                if (depth > 0) {
+                    int parent = path[depth - 1];
+                    lowLink[parent] = Math.min(lowLink[parent], lowLink[node]);
+                }
+                if (lowLink[node] == index[node]) {
+                    int start = stackSize;
+                    do {
+                        onStack[stack[--start]] = false;
+                    } while (stack[start] != node);
+                    if (stackSize - start > 1 || hasEdge(offsets, targets, node, node)) {
+                        cycles.add(Arrays.copyOfRange(stack, start, stackSize));
+                    }
+                    stackSize = start;
+                }
+            }
+        }
+        return cycles;
+    }
+
+    private static boolean hasEdge(int[] offsets, int[] targets, int from, int to) {
+        for (int i = offsets[from]; i < offsets[from + 1]; i++) {
+            if (targets[i] == to) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+}
@@ -0,0 +1,57 @@
+package cz.vernjan.alice;
+
+import java.util.function.IntPredicate;
+
+/**
+ * Criteria for listing tasks of a schedule, criteria which are not set match all tasks.
+ *
+ * @param critical  only tasks with zero slack
+ * @param crew      crew name
+ * @param element   element name prefix
+ * @param operation operation name prefix
+ * @param from      start of the time window (inclusive), tasks whose early interval overlaps the window match
+ * @param to        end of the time window (exclusive)
+ */
+record TaskFilter(boolean critical, String crew, String element, String operation, Integer from, Integer to) {
+
+    /**
+     * Resolve the criteria against the schedule columns, e.g. the crew name is looked up only once.
+     */
+    IntPredicate compile(Schedule schedule) {
+        TaskGraph graph = schedule.graph();
+        IntPredicate predicate = id -> true;
+
+        if (critical) {
+            predicate = predicate.and(schedule::isCritical);
+        }
+        if (crew != null) {
+            int crewId = graph.crewIndexOf(crew);
+            if (crewId < 0) {
+                return id -> false;
+            }
+            int[] crews = graph.crews();
+            predicate = predicate.and(id -> crews[id] == crewId);
+        }
+        if (element != null) {
+            predicate = predicate.and(id -> startsWith(graph.elementName(id), element));
+        }
+        if (operation != null) {
+            predicate = predicate.and(id -> startsWith(graph.operationName(id), operation));
+        }
+        if (from != null || to != null) {
+            int windowStart = from != null ? from : Integer.MIN_VALUE;
+            int windowEnd = to != null ? to : Integer.MAX_VALUE;
+            int[] earlyStart = schedule.earlyStart();
+            int[] earlyFinish = schedule.earlyFinish();
+            // zero-duration tasks match when their instant lies in the window
+            predicate = predicate.and(id -> earlyStart[id] < windowEnd
+                    && (earlyFinish[id] > windowStart || earlyStart[id] >= windowStart));
+        }
+        return predicate;
+    }
+
+    private static boolean startsWith(String value, String prefix) {
+        return value != null && value.startsWith(prefix);
+    }
+
+}
@@ -0,0 +1,574 @@
+package cz.vernjan.alice;
+
+import cz.vernjan.alice.domain.TaskRecord;
+import cz.vernjan.alice.domain.ValidationReport;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.RandomAccess;
+import java.util.Set;
+
+/**
+ * Compiled, immutable form of a task dependency graph.
+ * <p>
+ * Tasks are identified by dense int ids ({@code 0..size-1}) assigned in insertion order. Task attributes are
+ * kept in the columns of a {@link TaskTable}, task records are only views created on demand. Edges are stored
+ * in CSR (compressed sparse row) form: predecessors of task {@code id} are
+ * {@code predecessors[predecessorOffsets[id] .. predecessorOffsets[id + 1])}, successors analogously.
+ * <p>
+ * Arrays returned by the package-private accessors are shared, callers must not modify them.
+ */
+public final class TaskGraph {
+
+    private final TaskTable table;
+    private final int[] crews;
+    private final String[] crewNames;
+    private final int[] predecessorOffsets;
+    private final int[] predecessors;
+    private final int[] successorOffsets;
+    private final int[] successors;
+    private final int[] topologicalOrder;
+
+    private volatile Levels levels;
+    private volatile Components components;
+
+    private TaskGraph(
+            TaskTable table,
+            int[] crews,
+            String[] crewNames,
+            int[] predecessorOffsets,
+            int[] predecessors,
+            int[] successorOffsets,
+            int[] successors,
+            int[] topologicalOrder) {
+        this.table = table;
+        this.crews = crews;
+        this.crewNames = crewNames;
+        this.predecessorOffsets = predecessorOffsets;
+        this.predecessors = predecessors;
+        this.successorOffsets = successorOffsets;
+        this.successors = successors;
+        this.topologicalOrder = topologicalOrder;
+    }
+
+    public static TaskGraph of(List<TaskRecord> taskRecords) {
+        Builder builder = builder();
+        taskRecords.forEach(builder::add);
+        return builder.build();
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Create a graph from already compiled columns, e.g. read from a {@link TaskGraphSnapshot}. The columns are
+     * not validated, they must describe the same graph as the table.
+     */
+    static TaskGraph ofColumns(
+            TaskTable table,
+            int[] crews,
+            String[] crewNames,
+            int[] predecessorOffsets,
+            int[] predecessors,
+            int[] successorOffsets,
+            int[] successors,
+            int[] topologicalOrder) {
+        return new TaskGraph(table, crews, crewNames,
+                predecessorOffsets, predecessors, successorOffsets, successors, topologicalOrder);
+    }
+
+    /**
+     * @return number of tasks
+     */
+    public int size() {
+        return table.size();
+    }
+
+    /**
+     * @return number of dependency edges
+     */
+    public int edgeCount() {
+        return predecessors.length;
+    }
+
+    /**
+     * @return id of the task or {@code -1} if there is no such task
+     */
+    public int indexOf(String taskCode) {
+        return table.indexOf(taskCode);
+    }
+
+    /**
+     * Task record view of the task columns, a new record is created on every call.
+     */
+    public TaskRecord record(int id) {
+        return new TaskRecord(
+                table.taskCode(id),
+                table.operationName(id),
+                table.elementName(id),
+                table.durations()[id],
+                crew(table.crewName(id), table.crewAssignments()[id]),
+                predecessorOffsets[id] < predecessorOffsets[id + 1] ? new Dependencies(id) : List.of());
+    }
+
+    /**
+     * {@link TaskRecord#crew()} doesn't tell a missing crew from an empty one, both are read as a missing crew.
+     */
+    private static TaskRecord.Crew crew(String name, int assignment) {
+        return "".equals(name) && assignment == 0 ? null : new TaskRecord.Crew(name, assignment);
+    }
+
+    public String taskCode(int id) {
+        return table.taskCode(id);
+    }
+
+    public String operationName(int id) {
+        return table.operationName(id);
+    }
+
+    public String elementName(int id) {
+        return table.elementName(id);
+    }
+
+    public int duration(int id) {
+        return table.durations()[id];
+    }
+
+    public int crewAssignment(int id) {
+        return table.crewAssignments()[id];
+    }
+
+    /**
+     * @return crew id of the task or {@code -1} if the task has no crew
+     */
+    public int crew(int id) {
+        return crews[id];
+    }
+
+    /**
+     * @return number of distinct crews, crew ids are {@code 0..crewCount-1}
+     */
+    public int crewCount() {
+        return crewNames.length;
+    }
+
+    public String crewName(int crewId) {
+        return crewNames[crewId];
+    }
+
+    /**
+     * @return crew id or {@code -1} if no task has the crew
+     */
+    public int crewIndexOf(String crewName) {
+        for (int crewId = 0; crewId < crewNames.length; crewId++) {
+            if (crewNames[crewId].equals(crewName)) {
+                return crewId;
+            }
+        }
+        return -1;
+    }
+
+    public int inDegree(int id) {
+        return predecessorOffsets[id + 1] - predecessorOffsets[id];
+    }
+
+    public int outDegree(int id) {
+        return successorOffsets[id + 1] - successorOffsets[id];
+    }
+
+    /**
+     * @return the highest number of dependencies of a single task
+     */
+    public int maxInDegree() {
+        return maxDegree(predecessorOffsets);
+    }
+
+    /**
+     * @return the highest number of dependants of a single task
+     */
+    public int maxOutDegree() {
+        return maxDegree(successorOffsets);
+    }
+
+    private static int maxDegree(int[] offsets) {
+        int max = 0;
+        for (int id = 0; id < offsets.length - 1; id++) {
+            max = Math.max(max, offsets[id + 1] - offsets[id]);
+        }
+        return max;
+    }
+
+    /**
+     * Task ids ordered so that every task comes after all of its dependencies.
+     */
+    int[] topologicalOrder() {
+        return topologicalOrder;
+    }
+
+    /**
+     * @return number of topological levels, i.e. the number of tasks on the longest dependency chain
+     */
+    public int depth() {
+        return levels().offsets.length - 1;
+    }
+
+    /**
+     * Task ids grouped by topological level, level {@code l} is
+     * {@code levelOrder[levelOffsets[l] .. levelOffsets[l + 1])}. Tasks without dependencies are on level 0,
+     * any other task is one level below its deepest dependency, so tasks of the same level are independent.
+     */
+    int[] levelOrder() {
+        return levels().order;
+    }
+
+    int[] levelOffsets() {
+        return levels().offsets;
+    }
+
+    /**
+     * @return number of weakly connected components, i.e. groups of tasks with no dependency between the groups
+     */
+    public int componentCount() {
+        return components().offsets().length - 1;
+    }
+
+    /**
+     * Task ids grouped by weakly connected component, component {@code c} is
+     * {@code componentOrder[componentOffsets[c] .. componentOffsets[c + 1])} in topological order. Components are
+     * numbered in the order of their lowest task ids.
+     */
+    int[] componentOrder() {
+        return components().order();
+    }
+
+    int[] componentOffsets() {
+        return components().offsets();
+    }
+
+    /**
+     * @return number of tasks of the largest component
+     */
+    int largestComponentSize() {
+        return components().largest();
+    }
+
+    TaskTable table() {
+        return table;
+    }
+
+    int[] durations() {
+        return table.durations();
+    }
+
+    int[] crewAssignments() {
+        return table.crewAssignments();
+    }
+
+    int[] crews() {
+        return crews;
+    }
+
+    int[] predecessorOffsets() {
+        return predecessorOffsets;
+    }
+
+    int[] predecessors() {
+        return predecessors;
+    }
+
+    int[] successorOffsets() {
+        return successorOffsets;
+    }
+
+    int[] successors() {
+        return successors;
+    }
+
+    /**
+     * Kahn's algorithm, the result array doubles as the queue of tasks whose dependencies are all resolved.
+     *
+     * @param order receives task ids in topological order
+     * @return number of sorted tasks, tasks on a cycle or depending on one are never sorted
+     */
+    private static int sortTopologically(int[] predecessorOffsets, int[] successorOffsets, int[] successors, int[] order) {
+        int size = order.length;
+        int[] remainingDependencies = new int[size];
+        int tail = 0;
+
+        for (int id = 0; id < size; id++) {
+            remainingDependencies[id] = predecessorOffsets[id + 1] - predecessorOffsets[id];
+            if (remainingDependencies[id] == 0) {
+                order[tail++] = id;
+            }
+        }
+
+        for (int head = 0; head < tail; head++) {
+            int id = order[head];
+            for (int i = successorOffsets[id]; i < successorOffsets[id + 1]; i++) {
+                if (--remainingDependencies[successors[i]] == 0) {
+                    order[tail++] = successors[i];
+                }
+            }
+        }
+        return tail;
+    }
+
+    private Levels levels() {
+        Levels result = levels;
+        if (result == null) {
+            result = computeLevels();
+            levels = result;
+        }
+        return result;
+    }
+
+    private Levels computeLevels() {
+        int size = size();
+        int[] taskLevels = new int[size];
+        int depth = 0;
+        for (int id : topologicalOrder) {
+            int level = 0;
+            for (int i = predecessorOffsets[id]; i < predecessorOffsets[id + 1]; i++) {
+                level = Math.max(level, taskLevels[predecessors[i]] + 1);
+            }
+            taskLevels[id] = level;
+            depth = Math.max(depth, level + 1);
+        }
+
+        int[] offsets = new int[depth + 1];
+        for (int id = 0; id < size; id++) {
+            offsets[taskLevels[id] + 1]++;
+        }
+        for (int level = 0; level < depth; level++) {
+            offsets[level + 1] += offsets[level];
+        }
+
+        int[] order = new int[size];
+        int[] cursor = Arrays.copyOf(offsets, depth);
+        for (int id = 0; id < size; id++) {
+            order[cursor[taskLevels[id]]++] = id;
+        }
+        return new Levels(offsets, order);
+    }
+
+    private record Levels(int[] offsets, int[] order) {
+
+    }
+
+    private Components components() {
+        Components result = components;
+        if (result == null) {
+            result = computeComponents();
+            components = result;
+        }
+        return result;
+    }
+
+    private Components computeComponents() {
+        int size = size();
+        int[] taskComponents = new int[size];
+        int count = WeaklyConnectedComponents.of(predecessorOffsets, predecessors, taskComponents);
+
+        int[] offsets = new int[count + 1];
+        for (int id = 0; id < size; id++) {
+            offsets[taskComponents[id] + 1]++;
+        }
+        int largest = 0;
+        for (int component = 0; component < count; component++) {
+            largest = Math.max(largest, offsets[component + 1]);
+            offsets[component + 1] += offsets[component];
+        }
+
+        // a stable partition of the topological order keeps every component in topological order
+        int[] order = new int[size];
+        int[] cursor = Arrays.copyOf(offsets, count);
+        for (int id : topologicalOrder) {
+            order[cursor[taskComponents[id]]++] = id;
+        }
+        return new Components(offsets, order, largest);
+    }
+
+    private record Components(int[] offsets, int[] order, int largest) {
+
+    }
+
+    /**
+     * Task codes of the dependencies of a task read from the CSR predecessors.
+     */
+    private final class Dependencies extends AbstractList<String> implements RandomAccess {
+
+        private final int id;
+
+        Dependencies(int id) {
+            this.id = id;
+        }
+
+        @Override
+        public String get(int index) {
+            Objects.checkIndex(index, size());
+            return table.taskCode(predecessors[predecessorOffsets[id] + index]);
+        }
+
+        @Override
+        public int size() {
+            return predecessorOffsets[id + 1] - predecessorOffsets[id];
+        }
+    }
+
+    /**
+     * Collects task records and compiles them into a {@link TaskGraph}. Dependencies are resolved when the graph
+     * is built, so records can be added in any order.
+     * <p>
+     * The records are validated while they are compiled, in time linear to the number of tasks and dependencies.
+     * Building fails with a report of all duplicate task codes, dangling dependencies and dependency cycles.
+     */
+    public static final class Builder {
+
+        private final TaskTable.Builder table = TaskTable.builder();
+        private String[] dependencies = new String[16];
+        private int[] dependencyOffsets = new int[17];
+
+        private Builder() {
+        }
+
+        /**
+         * Add a task record, its attributes are copied to the task columns. Records with an already known task
+         * code are reported when the graph is built.
+         */
+        public Builder add(TaskRecord record) {
+            int id = table.add(
+                    record.taskCode(),
+                    record.operationName(),
+                    record.elementName(),
+                    record.crew().name(),
+                    record.duration(),
+                    record.crew().assignment());
+
+            List<String> recordDependencies = record.dependencies();
+            int offset = dependencyOffsets[id];
+            if (offset + recordDependencies.size() > dependencies.length) {
+                dependencies = Arrays.copyOf(dependencies, Math.max(offset + recordDependencies.size(), dependencies.length * 2));
+            }
+            for (String dependency : recordDependencies) {
+                dependencies[offset++] = dependency;
+            }
+            if (id + 2 > dependencyOffsets.length) {
+                dependencyOffsets = Arrays.copyOf(dependencyOffsets, dependencyOffsets.length * 2);
+            }
+            dependencyOffsets[id + 1] = offset;
+            return this;
+        }
+
+        /**
+         * @throws GraphValidationException if the records have missing or duplicate task codes, dangling dependencies
+         *                                  or dependency cycles
+         */
+        public TaskGraph build() {
+            TaskTable tasks = table.build();
+            int size = tasks.size();
+
+            Set<String> duplicates = new LinkedHashSet<>();
+            List<Integer> unnamed = new ArrayList<>();
+            int[] crews = new int[size];
+            Map<String, Integer> crewIds = new LinkedHashMap<>();
+            for (int id = 0; id < size; id++) {
+                String taskCode = tasks.taskCode(id);
+                if (taskCode == null || taskCode.isEmpty()) {
+                    unnamed.add(id);
+                } else if (tasks.indexOf(taskCode) != id) {
+                    duplicates.add(taskCode);
+                }
+                String crewName = tasks.crewName(id);
+                crews[id] = crewName == null || crewName.isEmpty()
+                        ? -1
+                        : crewIds.computeIfAbsent(crewName, name -> crewIds.size());
+            }
+
+            List<ValidationReport.DanglingDependency> danglingDependencies = new ArrayList<>();
+            int dependencyCount = dependencyOffsets[size];
+            int[] predecessorOffsets = new int[size + 1];
+            int[] successorOffsets = new int[size + 1];
+            int[] predecessors = new int[dependencyCount];
+            int edgeCount = 0;
+            for (int id = 0; id < size; id++) {
+                for (int i = dependencyOffsets[id]; i < dependencyOffsets[id + 1]; i++) {
+                    int predecessor = tasks.indexOf(dependencies[i]);
+                    if (predecessor < 0) {
+                        danglingDependencies.add(new ValidationReport.DanglingDependency(
+                                tasks.taskCode(id), dependencies[i]));
+                        continue;
+                    }
+                    predecessors[edgeCount++] = predecessor;
+                    successorOffsets[predecessor + 1]++;
+                }
+                predecessorOffsets[id + 1] = edgeCount;
+            }
+            if (edgeCount < dependencyCount) {
+                predecessors = Arrays.copyOf(predecessors, edgeCount);
+            }
+
+            for (int id = 0; id < size; id++) {
+                successorOffsets[id + 1] += successorOffsets[id];
+            }
+
+            int[] successors = new int[predecessors.length];
+            int[] successorCursor = new int[size];
+            System.arraycopy(successorOffsets, 0, successorCursor, 0, size);
+            for (int id = 0; id < size; id++) {
+                for (int i = predecessorOffsets[id]; i < predecessorOffsets[id + 1]; i++) {
+                    successors[successorCursor[predecessors[i]]++] = id;
+                }
+            }
+
+            int[] topologicalOrder = new int[size];
+            int sorted = sortTopologically(predecessorOffsets, successorOffsets, successors, topologicalOrder);
+            if (!duplicates.isEmpty() || !danglingDependencies.isEmpty() || sorted < size || !unnamed.isEmpty()) {
+                throw new GraphValidationException(new ValidationReport(
+                        List.copyOf(duplicates),
+                        List.copyOf(danglingDependencies),
+                        cycles(tasks, topologicalOrder, sorted, successorOffsets, successors),
+                        List.copyOf(unnamed)));
+            }
+
+            return new TaskGraph(
+                    tasks,
+                    crews,
+                    crewIds.keySet().toArray(String[]::new),
+                    predecessorOffsets,
+                    predecessors,
+                    successorOffsets,
+                    successors,
+                    topologicalOrder);
+        }
+
+        /**
+         * Only tasks which were not sorted topologically can be on a cycle.
+         */
+        private static List<List<String>> cycles(
+                TaskTable tasks, int[] topologicalOrder, int sorted, int[] successorOffsets, int[] successors) {
+            if (sorted == topologicalOrder.length) {
+                return List.of();
+            }
+            boolean[] unsorted = new boolean[topologicalOrder.length];
+            Arrays.fill(unsorted, true);
+            for (int i = 0; i < sorted; i++) {
+                unsorted[topologicalOrder[i]] = false;
+            }
+
+            List<List<String>> cycles = new ArrayList<>();
+            for (int[] component : StronglyConnectedComponents.cycles(successorOffsets, successors, unsorted)) {
+                Arrays.sort(component);
+                cycles.add(Arrays.stream(component).mapToObj(tasks::taskCode).toList());
+            }
+            return cycles;
+        }
+    }
+
+}
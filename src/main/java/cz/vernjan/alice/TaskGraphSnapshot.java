@@ -0,0 +1,257 @@
+package cz.vernjan.alice;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32C;
+
+/**
+ * Binary snapshot of a compiled {@link TaskGraph}, so the graph can be loaded without parsing JSON.
+ * <p>
+ * The snapshot is a little-endian file with a fixed header followed by a string dictionary (task codes,
+ * operation, element and crew names) and int columns: string indexes of every task, durations, crew
+ * assignments, the CSR edges in both directions and the topological order.
+ * <p>
+ * This is a copy-on-load snapshot. The file is read through a read-only memory map, but every column is
+ * bulk-copied into a heap array, because the graph and the engines work on {@code int[]} columns. A snapshot saves
+ * parsing JSON and compiling the graph, it doesn't save heap: every JVM holds its own copy of the graph, only the
+ * file pages are shared in the OS page cache while they are read.
+ * <p>
+ * The header holds the format version, the checksum of the source the graph was compiled from and a CRC32C of
+ * the body. A snapshot of another version, of a different source or with a damaged body is ignored.
+ */
+final class TaskGraphSnapshot {
+
+    private static final Logger LOG = LoggerFactory.getLogger(TaskGraphSnapshot.class);
+
+    private static final int MAGIC = 0x414c4943; // "ALIC"
+    static final int VERSION = 1;
+
+    private static final int HEADER_SIZE = 40;
+    private static final int BODY_CHECKSUM_OFFSET = 16;
+    private static final int NO_STRING = -1;
+
+    private TaskGraphSnapshot() {
+    }
+
+    /**
+     * Write the graph to a temporary file next to the target path and atomically move it in place, so readers
+     * never see a partially written snapshot.
+     *
+     * @param sourceChecksum checksum of the source the graph was compiled from
+     */
+    static void write(TaskGraph graph, long sourceChecksum, Path path) throws IOException {
+        int size = graph.size();
+        int edges = graph.edgeCount();
+
+        Map<String, Integer> dictionary = new LinkedHashMap<>();
+        int[] taskCodes = new int[size];
+        int[] operations = new int[size];
+        int[] elements = new int[size];
+        int[] crewNames = new int[size];
+        int[] crewAssignments = new int[size];
+        TaskTable table = graph.table();
+        for (int id = 0; id < size; id++) {
+            taskCodes[id] = stringIndex(dictionary, table.taskCode(id));
+            operations[id] = stringIndex(dictionary, table.operationName(id));
+            elements[id] = stringIndex(dictionary, table.elementName(id));
+            crewNames[id] = stringIndex(dictionary, table.crewName(id));
+        }
+
+        List<byte[]> strings = new ArrayList<>(dictionary.size());
+        long stringBytes = 0;
+        for (String string : dictionary.keySet()) {
+            byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+            strings.add(bytes);
+            stringBytes += Integer.BYTES + bytes.length;
+        }
+        stringBytes = (stringBytes + Integer.BYTES - 1) & -Integer.BYTES;
+
+        long fileSize = fileSize(size, edges, stringBytes);
+        if (fileSize > Integer.MAX_VALUE) {
+            throw new IOException("Task graph is too large for a snapshot (" + fileSize + " bytes)");
+        }
+
+        Files.createDirectories(path.toAbsolutePath().getParent());
+        Path temporary = Files.createTempFile(path.toAbsolutePath().getParent(), path.getFileName().toString(), ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, fileSize);
+                buffer.order(ByteOrder.LITTLE_ENDIAN);
+                buffer.putInt(MAGIC)
+                        .putInt(VERSION)
+                        .putLong(sourceChecksum)
+                        .putInt(0)
+                        .putInt(size)
+                        .putInt(edges)
+                        .putInt(strings.size())
+                        .putInt((int) stringBytes)
+                        .putInt(0);
+
+                for (byte[] bytes : strings) {
+                    buffer.putInt(bytes.length).put(bytes);
+                }
+                buffer.position(HEADER_SIZE + (int) stringBytes);
+
+                IntBuffer ints = buffer.asIntBuffer();
+                ints.put(taskCodes)
+                        .put(operations)
+                        .put(elements)
+                        .put(crewNames)
+                        .put(graph.durations())
+                        .put(graph.crewAssignments())
+                        .put(graph.predecessorOffsets())
+                        .put(graph.predecessors())
+                        .put(graph.successorOffsets())
+                        .put(graph.successors())
+                        .put(graph.topologicalOrder());
+
+                buffer.putInt(BODY_CHECKSUM_OFFSET, bodyChecksum(buffer));
+                buffer.force();
+            }
+            Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    /**
+     * Read the snapshot into a new graph, the columns are copied out of the mapping.
+     *
+     * @param sourceChecksum checksum of the current source of the graph
+     * @return the graph or {@code null} if there is no snapshot or it's of another version, stale or damaged
+     */
+    static TaskGraph read(Path path, long sourceChecksum) throws IOException {
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_SIZE || channel.size() > Integer.MAX_VALUE) {
+                LOG.info("Ignoring snapshot {}, unexpected size {}", path, channel.size());
+                return null;
+            }
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+
+        if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+            LOG.info("Ignoring snapshot {}, not a snapshot of version {}", path, VERSION);
+            return null;
+        }
+        if (buffer.getLong() != sourceChecksum) {
+            LOG.info("Ignoring snapshot {}, it's stale", path);
+            return null;
+        }
+        int checksum = buffer.getInt();
+        int size = buffer.getInt();
+        int edges = buffer.getInt();
+        int stringCount = buffer.getInt();
+        int stringBytes = buffer.getInt();
+        buffer.getInt();
+
+        if (size < 0 || edges < 0 || stringBytes < 0 || buffer.capacity() != fileSize(size, edges, stringBytes)
+                || bodyChecksum(buffer) != checksum) {
+            LOG.warn("Ignoring snapshot {}, it's damaged", path);
+            return null;
+        }
+
+        String[] strings = new String[stringCount];
+        byte[] bytes = new byte[64];
+        for (int i = 0; i < stringCount; i++) {
+            int length = buffer.getInt();
+            if (length > bytes.length) {
+                bytes = new byte[Math.max(length, bytes.length * 2)];
+            }
+            buffer.get(bytes, 0, length);
+            strings[i] = new String(bytes, 0, length, StandardCharsets.UTF_8);
+        }
+        buffer.position(HEADER_SIZE + stringBytes);
+
+        IntBuffer ints = buffer.asIntBuffer();
+        int[] taskCodes = next(ints, size);
+        int[] operations = next(ints, size);
+        int[] elements = next(ints, size);
+        int[] crewNames = next(ints, size);
+        int[] durations = next(ints, size);
+        int[] crewAssignments = next(ints, size);
+        int[] predecessorOffsets = next(ints, size + 1);
+        int[] predecessors = next(ints, edges);
+        int[] successorOffsets = next(ints, size + 1);
+        int[] successors = next(ints, edges);
+        int[] topologicalOrder = next(ints, size);
+
+        // the task table reuses the snapshot dictionary, it holds the task codes as well
+        String[] taskCodeStrings = new String[size];
+        int[] crews = new int[size];
+        int[] crewIds = new int[stringCount];
+        Arrays.fill(crewIds, -1);
+        List<String> crewDictionary = new ArrayList<>();
+        for (int id = 0; id < size; id++) {
+            taskCodeStrings[id] = strings[taskCodes[id]];
+            String crewName = string(strings, crewNames[id]);
+            if (crewName == null || crewName.isEmpty()) {
+                crews[id] = -1;
+            } else {
+                if (crewIds[crewNames[id]] < 0) {
+                    crewIds[crewNames[id]] = crewDictionary.size();
+                    crewDictionary.add(crewName);
+                }
+                crews[id] = crewIds[crewNames[id]];
+            }
+        }
+
+        return TaskGraph.ofColumns(
+                new TaskTable(taskCodeStrings, strings, operations, elements, crewNames, durations, crewAssignments),
+                crews,
+                crewDictionary.toArray(String[]::new),
+                predecessorOffsets,
+                predecessors,
+                successorOffsets,
+                successors,
+                topologicalOrder);
+    }
+
+    /**
+     * Header, strings and int columns: 7 per task, 2 CSR offset arrays of {@code size + 1} and 2 edge arrays.
+     */
+    private static long fileSize(int size, int edges, long stringBytes) {
+        return HEADER_SIZE + stringBytes + (9L * size + 2 + 2L * edges) * Integer.BYTES;
+    }
+
+    private static int stringIndex(Map<String, Integer> dictionary, String string) {
+        return string != null ? dictionary.computeIfAbsent(string, key -> dictionary.size()) : NO_STRING;
+    }
+
+    private static String string(String[] strings, int index) {
+        return index != NO_STRING ? strings[index] : null;
+    }
+
+    private static int[] next(IntBuffer ints, int length) {
+        int[] column = new int[length];
+        ints.get(column);
+        return column;
+    }
+
+    private static int bodyChecksum(MappedByteBuffer buffer) {
+        CRC32C checksum = new CRC32C();
+        checksum.update(buffer.slice(HEADER_SIZE, buffer.capacity() - HEADER_SIZE));
+        return (int) checksum.getValue();
+    }
+
+}
@@ -0,0 +1,197 @@
+package cz.vernjan.alice;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import cz.vernjan.alice.ProjectMetrics.Phase;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.ref.Cleaner;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.CRC32C;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Encodes response bodies of the whole task list of a schedule. Every encoding of a schedule is encoded once, on
+ * its first request, and kept by the {@link Schedule} until the schedule is dropped from the cache, so serving
+ * the task list of a cached project is only writing the bytes.
+ * <p>
+ * The bodies kept by all schedules are bounded by a total size of their own, as a body is kept after the schedule
+ * was weighed by the cache. A body beyond the limit is still served, but encoded again for the next request. The
+ * size of a kept body is given back when its schedule is garbage collected.
+ * <p>
+ * Smile and CBOR bodies are encoded by mappers built like the ones of Spring's Smile and CBOR message converters.
+ */
+final class TaskListEncoder {
+
+    static final String APPLICATION_SMILE_VALUE = "application/x-jackson-smile";
+    static final MediaType APPLICATION_SMILE = MediaType.parseMediaType(APPLICATION_SMILE_VALUE);
+
+    enum Format {
+        JSON(MediaType.APPLICATION_JSON),
+        SMILE(APPLICATION_SMILE),
+        CBOR(MediaType.APPLICATION_CBOR);
+
+        private final MediaType mediaType;
+
+        Format(MediaType mediaType) {
+            this.mediaType = mediaType;
+        }
+
+        MediaType mediaType() {
+            return mediaType;
+        }
+
+        /**
+         * @param accepted media types of the {@code Accept} header
+         * @return the format of the most preferred acceptable media type, JSON if there is none
+         */
+        static Format negotiate(List<MediaType> accepted) {
+            if (accepted.isEmpty()) {
+                return JSON;
+            }
+            List<MediaType> sorted = new ArrayList<>(accepted);
+            MediaType.sortBySpecificityAndQuality(sorted);
+            for (MediaType mediaType : sorted) {
+                if (mediaType.getQualityValue() == 0) {
+                    continue;
+                }
+                for (Format format : values()) {
+                    if (mediaType.isCompatibleWith(format.mediaType) && !rejected(format, accepted)) {
+                        return format;
+                    }
+                }
+            }
+            return JSON;
+        }
+
+        /**
+         * @return whether the format is explicitly not acceptable, e.g. {@code application/json;q=0}
+         */
+        private static boolean rejected(Format format, List<MediaType> accepted) {
+            for (MediaType mediaType : accepted) {
+                if (mediaType.getQualityValue() == 0 && mediaType.includes(format.mediaType)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    /**
+     * @param gzip whether the body is gzip compressed
+     */
+    record Encoding(Format format, boolean gzip) {
+
+        static final int COUNT = Format.values().length * 2;
+
+        int index() {
+            return format.ordinal() * 2 + (gzip ? 1 : 0);
+        }
+    }
+
+    /**
+     * @param eTag strong entity tag of the body, it changes with every byte of the body
+     */
+    record Body(byte[] bytes, String eTag) {
+
+    }
+
+    private static final Cleaner CLEANER = Cleaner.create();
+
+    private final ObjectMapper jsonMapper;
+    private final ObjectMapper smileMapper;
+    private final ObjectMapper cborMapper;
+    private final ProjectMetrics metrics;
+    private final long maxRetainedBytes;
+    private final AtomicLong retainedBytes = new AtomicLong();
+
+    TaskListEncoder(ObjectMapper jsonMapper, ProjectMetrics metrics, EncodingProperties properties) {
+        this.jsonMapper = jsonMapper;
+        this.smileMapper = Jackson2ObjectMapperBuilder.smile().build();
+        this.cborMapper = Jackson2ObjectMapperBuilder.cbor().build();
+        this.metrics = metrics;
+        this.maxRetainedBytes = properties.maxRetainedSize().toBytes();
+    }
+
+    /**
+     * @return the body of the schedule encoded before or encoded now
+     */
+    Body body(Schedule schedule, Encoding encoding) {
+        return schedule.encodedTasks(encoding, this::encode, this::retain);
+    }
+
+    /**
+     * @return total size of the bodies kept by schedules which were not garbage collected yet
+     */
+    long retainedBytes() {
+        return retainedBytes.get();
+    }
+
+    /**
+     * Reserve the size of the body if it fits the limit, the reservation is released once the schedule is
+     * garbage collected.
+     *
+     * @return whether the schedule may keep the body
+     */
+    private boolean retain(Schedule schedule, Body body) {
+        long bytes = body.bytes().length;
+        if (retainedBytes.addAndGet(bytes) > maxRetainedBytes) {
+            retainedBytes.addAndGet(-bytes);
+            return false;
+        }
+        AtomicLong retained = retainedBytes;
+        CLEANER.register(schedule, () -> retained.addAndGet(-bytes));
+        return true;
+    }
+
+    private Body encode(Schedule schedule, Encoding encoding) {
+        if (encoding.gzip()) {
+            // the plain body is usually requested as well, so compress that one rather than encoding again
+            byte[] plain = body(schedule, new Encoding(encoding.format(), false)).bytes();
+            long start = metrics.start();
+            Body body = body(gzip(plain));
+            metrics.stop(Phase.ENCODE, start);
+            return body;
+        }
+
+        long start = metrics.start();
+        try {
+            return body(mapper(encoding.format()).writeValueAsBytes(schedule.project().tasks()));
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            metrics.stop(Phase.ENCODE, start);
+        }
+    }
+
+    private ObjectMapper mapper(Format format) {
+        return switch (format) {
+            case JSON -> jsonMapper;
+            case SMILE -> smileMapper;
+            case CBOR -> cborMapper;
+        };
+    }
+
+    private static Body body(byte[] bytes) {
+        CRC32C checksum = new CRC32C();
+        checksum.update(bytes);
+        return new Body(bytes, "\"" + Integer.toHexString(bytes.length) + "-" + Long.toHexString(checksum.getValue()) + "\"");
+    }
+
+    private static byte[] gzip(byte[] bytes) {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(bytes.length / 4 + 64);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(compressed, 8192)) {
+            gzip.write(bytes);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return compressed.toByteArray();
+    }
+
+}
@@ -1,39 +1,309 @@
 package cz.vernjan.alice;
 
-import com.fasterxml.jackson.databind.DeserializationFeature;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.StreamReadFeature;
+import cz.vernjan.alice.ProjectMetrics.Phase;
 import cz.vernjan.alice.domain.TaskRecord;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.Resource;
 import org.springframework.stereotype.Component;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.zip.CRC32C;
+import java.util.zip.CheckedInputStream;
 
 /**
- * Load task records from a file located in application resources.
+ * Load task records from a file located in application resources or any other {@link Resource}.
+ * <p>
+ * Records are read one at a time with the Jackson streaming API. Unknown fields (e.g. {@code equipment}) are
+ * skipped without being materialized and repeated strings (crew names, operation names, task codes referenced
+ * as dependencies, ...) are deduplicated, so a loaded graph doesn't hold a copy of every string per task.
+ * <p>
+ * If {@link SnapshotProperties snapshots} are enabled, a compiled graph is written to a binary snapshot and
+ * later loads of the unchanged resource read the snapshot instead of parsing JSON.
  */
 @Component
 public class TaskRecordLoader {
 
     private static final Logger LOG = LoggerFactory.getLogger(TaskRecordLoader.class);
 
-    private final ObjectMapper mapper = new ObjectMapper().
-            configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+    private final JsonFactory jsonFactory = JsonFactory.builder()
+            .disable(StreamReadFeature.AUTO_CLOSE_SOURCE)
+            .build();
+    private final ProjectMetrics metrics;
+    private final SnapshotProperties snapshotProperties;
+
+    public TaskRecordLoader() {
+        this(ProjectMetrics.NOOP, SnapshotProperties.DISABLED);
+    }
+
+    @Autowired
+    public TaskRecordLoader(ProjectMetrics metrics, SnapshotProperties snapshotProperties) {
+        this.metrics = metrics;
+        this.snapshotProperties = snapshotProperties;
+    }
 
     public List<TaskRecord> loadFromResource(String resourceName) {
+        List<TaskRecord> taskRecords = new ArrayList<>();
+        readResource(new ClassPathResource(resourceName), taskRecords::add);
+        LOG.info("Loaded {} task records from {}", taskRecords.size(), resourceName);
+        return Collections.unmodifiableList(taskRecords);
+    }
+
+    /**
+     * Stream task records from the resource straight into a task graph builder.
+     */
+    public TaskGraph loadGraphFromResource(String resourceName) {
+        Resource resource = new ClassPathResource(resourceName);
+        return loadGraph(resource, checksum(resource));
+    }
+
+    /**
+     * Load a task graph from the snapshot of the resource or, if there is no valid snapshot, parse the resource
+     * and write a new snapshot.
+     *
+     * @param checksum {@link #checksum(Resource) checksum} of the resource content
+     * @throws SourceChangedException if the parsed content doesn't match the checksum, i.e. the resource changed
+     *                                since the checksum was computed
+     */
+    public TaskGraph loadGraph(Resource resource, long checksum) {
+        Path snapshot = snapshotProperties.isEnabled()
+                ? snapshotProperties.directory().resolve(resource.getFilename() + ".snapshot")
+                : null;
+
+        if (snapshot != null) {
+            TaskGraph graph = readSnapshot(snapshot, checksum);
+            if (graph != null) {
+                LOG.info("Loaded {} task records from snapshot {}", graph.size(), snapshot);
+                return graph;
+            }
+        }
+
+        TaskGraph graph = parseGraph(resource, checksum);
+        if (snapshot != null) {
+            writeSnapshot(graph, checksum, snapshot);
+        }
+        return graph;
+    }
+
+    /**
+     * Parse the resource and check the parsed bytes against the checksum on the way, so the graph is never taken
+     * for a version of the resource it wasn't parsed from.
+     */
+    private TaskGraph parseGraph(Resource resource, long checksum) {
+        TaskGraph.Builder builder = TaskGraph.builder();
+        long start = metrics.start();
+        try (InputStream resourceInputStream = resource.getInputStream()) {
+            CheckedInputStream checked = new CheckedInputStream(resourceInputStream, new CRC32C());
+            read(checked, builder::add);
+            // the checksum covers the whole content, including anything after the array
+            checked.transferTo(OutputStream.nullOutputStream());
+            if (checked.getChecksum().getValue() != checksum) {
+                throw new SourceChangedException(resource.getDescription());
+            }
+        } catch (IOException e) {
+            LOG.error("Failed to load task records from {}", resource.getDescription(), e);
+            throw new UncheckedIOException(e);
+        } finally {
+            metrics.stop(Phase.PARSE, start);
+        }
+
+        start = metrics.start();
+        TaskGraph graph = builder.build();
+        metrics.stop(Phase.BUILD, start);
+        LOG.info("Loaded {} task records from {}", graph.size(), resource.getDescription());
+        return graph;
+    }
+
+    /**
+     * Read a JSON array of task records from the input stream.
+     *
+     * @param inputStream JSON input, it's not closed by this method
+     * @param consumer    receives task records in the order they are read
+     * @throws IOException if the input can't be read or is malformed
+     */
+    public void read(InputStream inputStream, Consumer<TaskRecord> consumer) throws IOException {
+        try (JsonParser parser = jsonFactory.createParser(inputStream)) {
+            new TaskRecordReader(parser).readAll(consumer);
+        }
+    }
+
+    /**
+     * Compute a checksum of the resource content, it's much cheaper than parsing the resource.
+     */
+    public long checksum(String resourceName) {
+        return checksum(new ClassPathResource(resourceName));
+    }
+
+    /**
+     * Compute a checksum of the resource content, it's much cheaper than parsing the resource.
+     */
+    public long checksum(Resource resource) {
+        long start = metrics.start();
+        try (InputStream resourceInputStream = resource.getInputStream()) {
+            CRC32C checksum = new CRC32C();
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = resourceInputStream.read(buffer)) != -1) {
+                checksum.update(buffer, 0, read);
+            }
+            return checksum.getValue();
+        } catch (IOException e) {
+            LOG.error("Failed to compute checksum of {}", resource.getDescription(), e);
+            throw new UncheckedIOException(e);
+        } finally {
+            metrics.stop(Phase.CHECKSUM, start);
+        }
+    }
+
+    private TaskGraph readSnapshot(Path snapshot, long checksum) {
+        long start = metrics.start();
         try {
-            InputStream resourceInputStream = new ClassPathResource(resourceName).getInputStream();
-            List<TaskRecord> taskRecords = List.of(mapper.reader().readValue(resourceInputStream, TaskRecord[].class));
-            LOG.info("Loaded {} task records from {}", taskRecords.size(), resourceName);
-            return taskRecords;
+            return TaskGraphSnapshot.read(snapshot, checksum);
+        } catch (IOException | RuntimeException e) {
+            LOG.warn("Failed to read snapshot {}, falling back to JSON", snapshot, e);
+            return null;
+        } finally {
+            metrics.stop(Phase.SNAPSHOT, start);
+        }
+    }
+
+    private void writeSnapshot(TaskGraph graph, long checksum, Path snapshot) {
+        try {
+            TaskGraphSnapshot.write(graph, checksum, snapshot);
+            LOG.info("Written snapshot {}", snapshot);
+        } catch (IOException e) {
+            LOG.warn("Failed to write snapshot {}", snapshot, e);
+        }
+    }
+
+    private void readResource(Resource resource, Consumer<TaskRecord> consumer) {
+        try (InputStream resourceInputStream = resource.getInputStream()) {
+            read(resourceInputStream, consumer);
         } catch (IOException e) {
-            LOG.error("Failed to load task records from {}", resourceName, e);
+            LOG.error("Failed to load task records from {}", resource.getDescription(), e);
             throw new UncheckedIOException(e);
         }
     }
 
+    private static class TaskRecordReader {
+
+        private final JsonParser parser;
+        private final Map<String, String> strings = new HashMap<>();
+
+        TaskRecordReader(JsonParser parser) {
+            this.parser = parser;
+        }
+
+        void readAll(Consumer<TaskRecord> consumer) throws IOException {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new JsonParseException(parser, "Expected an array of task records");
+            }
+            JsonToken token;
+            while ((token = parser.nextToken()) == JsonToken.START_OBJECT) {
+                consumer.accept(readTaskRecord());
+            }
+            if (token != JsonToken.END_ARRAY) {
+                throw new JsonParseException(parser, "Expected a task record object");
+            }
+        }
+
+        private TaskRecord readTaskRecord() throws IOException {
+            String taskCode = null;
+            String operationName = null;
+            String elementName = null;
+            int duration = 0;
+            TaskRecord.Crew crew = null;
+            List<String> dependencies = null;
+
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                parser.nextToken();
+                switch (field) {
+                    case "taskCode" -> taskCode = readString();
+                    case "operationName" -> operationName = readString();
+                    case "elementName" -> elementName = readString();
+                    case "duration" -> duration = readInt();
+                    case "crew" -> crew = readCrew();
+                    case "dependencies" -> dependencies = readDependencies();
+                    default -> parser.skipChildren();
+                }
+            }
+
+            return new TaskRecord(taskCode, operationName, elementName, duration, crew, dependencies);
+        }
+
+        private TaskRecord.Crew readCrew() throws IOException {
+            if (parser.currentToken() != JsonToken.START_OBJECT) {
+                parser.skipChildren();
+                return null;
+            }
+
+            String name = null;
+            int assignment = 0;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                parser.nextToken();
+                switch (field) {
+                    case "name" -> name = readString();
+                    case "assignment" -> assignment = readInt();
+                    default -> parser.skipChildren();
+                }
+            }
+            return new TaskRecord.Crew(name, assignment);
+        }
+
+        private List<String> readDependencies() throws IOException {
+            if (parser.currentToken() != JsonToken.START_ARRAY) {
+                parser.skipChildren();
+                return null;
+            }
+
+            List<String> dependencies = new ArrayList<>(2);
+            while (parser.nextToken() != JsonToken.END_ARRAY) {
+                String dependency = readString();
+                if (dependency != null) {
+                    dependencies.add(dependency);
+                }
+            }
+            return List.copyOf(dependencies);
+        }
+
+        /**
+         * @return the integer value, {@code 0} for {@code null}
+         * @throws JsonParseException if the value is not an integer, e.g. a string, boolean or fraction
+         */
+        private int readInt() throws IOException {
+            if (parser.currentToken() == JsonToken.VALUE_NULL) {
+                return 0;
+            }
+            if (parser.currentToken() != JsonToken.VALUE_NUMBER_INT) {
+                throw new JsonParseException(parser, "Expected an integer");
+            }
+            // fails for values out of the int range
+            return parser.getIntValue();
+        }
+
+        private String readString() throws IOException {
+            String value = parser.getValueAsString();
+            return value != null ? strings.computeIfAbsent(value, s -> s) : null;
+        }
+    }
+
 }
@@ -0,0 +1,228 @@
+package cz.vernjan.alice;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Columnar store of task attributes indexed by task id.
+ * <p>
+ * Operation, element and crew names repeat across tasks, their columns hold indexes to a dictionary of distinct
+ * strings ({@value #NO_STRING} for {@code null}). Task codes are unique, they are kept as they are and looked up
+ * through an open-addressing hash index of int slots, so the table has no per-task objects apart from the task
+ * codes themselves.
+ * <p>
+ * Arrays returned by the accessors are shared, callers must not modify them.
+ */
+final class TaskTable {
+
+    static final int NO_STRING = -1;
+
+    private final String[] taskCodes;
+    private final String[] strings;
+    private final int[] operations;
+    private final int[] elements;
+    private final int[] crewNames;
+    private final int[] durations;
+    private final int[] crewAssignments;
+
+    /**
+     * Slots of task ids plus one, {@code 0} marks an empty slot.
+     */
+    private final int[] index;
+
+    /**
+     * @param strings dictionary the operation, element and crew name columns refer to
+     */
+    TaskTable(
+            String[] taskCodes,
+            String[] strings,
+            int[] operations,
+            int[] elements,
+            int[] crewNames,
+            int[] durations,
+            int[] crewAssignments) {
+        this.taskCodes = taskCodes;
+        this.strings = strings;
+        this.operations = operations;
+        this.elements = elements;
+        this.crewNames = crewNames;
+        this.durations = durations;
+        this.crewAssignments = crewAssignments;
+        this.index = buildIndex(taskCodes);
+    }
+
+    static Builder builder() {
+        return new Builder();
+    }
+
+    int size() {
+        return taskCodes.length;
+    }
+
+    /**
+     * @return id of the task or {@code -1} if there is no such task, the first one for a duplicate task code
+     */
+    int indexOf(String taskCode) {
+        if (taskCode == null) {
+            return -1;
+        }
+        int mask = index.length - 1;
+        for (int slot = hash(taskCode) & mask; index[slot] != 0; slot = (slot + 1) & mask) {
+            int id = index[slot] - 1;
+            if (taskCodes[id].equals(taskCode)) {
+                return id;
+            }
+        }
+        return -1;
+    }
+
+    String taskCode(int id) {
+        return taskCodes[id];
+    }
+
+    String operationName(int id) {
+        return string(operations[id]);
+    }
+
+    String elementName(int id) {
+        return string(elements[id]);
+    }
+
+    String crewName(int id) {
+        return string(crewNames[id]);
+    }
+
+    String string(int index) {
+        return index != NO_STRING ? strings[index] : null;
+    }
+
+    String[] strings() {
+        return strings;
+    }
+
+    int[] operations() {
+        return operations;
+    }
+
+    int[] elements() {
+        return elements;
+    }
+
+    int[] crewNames() {
+        return crewNames;
+    }
+
+    int[] durations() {
+        return durations;
+    }
+
+    int[] crewAssignments() {
+        return crewAssignments;
+    }
+
+    /**
+     * Linear probing with at most half of the slots taken. A duplicate task code is not indexed, the first task
+     * with the code wins.
+     */
+    private static int[] buildIndex(String[] taskCodes) {
+        int[] slots = new int[Math.max(2, Integer.highestOneBit(Math.max(1, taskCodes.length)) << 2)];
+        int mask = slots.length - 1;
+        for (int id = 0; id < taskCodes.length; id++) {
+            if (taskCodes[id] == null) {
+                // reported by the task graph validation, a table of an invalid graph is never queried
+                continue;
+            }
+            int slot = hash(taskCodes[id]) & mask;
+            while (slots[slot] != 0 && !taskCodes[slots[slot] - 1].equals(taskCodes[id])) {
+                slot = (slot + 1) & mask;
+            }
+            if (slots[slot] == 0) {
+                slots[slot] = id + 1;
+            }
+        }
+        return slots;
+    }
+
+    private static int hash(String taskCode) {
+        int hash = taskCode.hashCode();
+        return hash ^ (hash >>> 16);
+    }
+
+    /**
+     * Appends tasks to growing columns and encodes their strings.
+     */
+    static final class Builder {
+
+        private final Map<String, Integer> dictionary = new HashMap<>();
+        private final List<String> strings = new ArrayList<>();
+
+        private String[] taskCodes = new String[16];
+        private int[] operations = new int[16];
+        private int[] elements = new int[16];
+        private int[] crewNames = new int[16];
+        private int[] durations = new int[16];
+        private int[] crewAssignments = new int[16];
+        private int size;
+
+        private Builder() {
+        }
+
+        /**
+         * @return id of the added task
+         */
+        int add(String taskCode, String operationName, String elementName, String crewName, int duration, int crewAssignment) {
+            if (size == taskCodes.length) {
+                int capacity = size * 2;
+                taskCodes = Arrays.copyOf(taskCodes, capacity);
+                operations = Arrays.copyOf(operations, capacity);
+                elements = Arrays.copyOf(elements, capacity);
+                crewNames = Arrays.copyOf(crewNames, capacity);
+                durations = Arrays.copyOf(durations, capacity);
+                crewAssignments = Arrays.copyOf(crewAssignments, capacity);
+            }
+            taskCodes[size] = taskCode;
+            operations[size] = encode(operationName);
+            elements[size] = encode(elementName);
+            crewNames[size] = encode(crewName);
+            durations[size] = duration;
+            crewAssignments[size] = crewAssignment;
+            return size++;
+        }
+
+        int size() {
+            return size;
+        }
+
+        String taskCode(int id) {
+            return taskCodes[id];
+        }
+
+        TaskTable build() {
+            return new TaskTable(
+                    Arrays.copyOf(taskCodes, size),
+                    strings.toArray(String[]::new),
+                    Arrays.copyOf(operations, size),
+                    Arrays.copyOf(elements, size),
+                    Arrays.copyOf(crewNames, size),
+                    Arrays.copyOf(durations, size),
+                    Arrays.copyOf(crewAssignments, size));
+        }
+
+        private int encode(String string) {
+            if (string == null) {
+                return NO_STRING;
+            }
+            Integer index = dictionary.get(string);
+            if (index == null) {
+                index = strings.size();
+                dictionary.put(string, index);
+                strings.add(string);
+            }
+            return index;
+        }
+    }
+
+}
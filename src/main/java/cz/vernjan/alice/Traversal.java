@@ -0,0 +1,124 @@
+package cz.vernjan.alice;
+
+import java.util.Arrays;
+import java.util.function.IntPredicate;
+
+/**
+ * Breadth-first search of the transitive dependencies or dependants of a task over the CSR arrays of a
+ * {@link TaskGraph}.
+ * <p>
+ * Every search has its own queue and an open-addressing set of visited tasks, both start small and grow with the
+ * tasks reached, so a search costs time and memory proportional to the tasks it visits, not to the size of the
+ * graph, and nothing is retained after it.
+ */
+final class Traversal {
+
+    enum Direction {
+        /**
+         * Transitive dependencies.
+         */
+        UPSTREAM,
+        /**
+         * Transitive dependants.
+         */
+        DOWNSTREAM
+    }
+
+    private static final int INITIAL_CAPACITY = 16;
+    private static final int EMPTY = -1;
+
+    private int[] queue = new int[INITIAL_CAPACITY];
+    // open-addressing set of visited task ids, kept at most half full
+    private int[] visited = newTable(INITIAL_CAPACITY * 2);
+    private int visitedCount;
+
+    private Traversal() {
+    }
+
+    /**
+     * @param id       task to start from, it's not part of the result
+     * @param maxDepth maximum number of dependency edges from the task, e.g. {@code 1} for direct dependencies only
+     * @param filter   tasks to include in the result, tasks not included are still traversed
+     * @return ids of the reached tasks in breadth-first order
+     */
+    static int[] cone(TaskGraph graph, int id, Direction direction, int maxDepth, IntPredicate filter) {
+        return new Traversal().search(graph, id, direction, maxDepth, filter);
+    }
+
+    private int[] search(TaskGraph graph, int id, Direction direction, int maxDepth, IntPredicate filter) {
+        int[] offsets = direction == Direction.UPSTREAM ? graph.predecessorOffsets() : graph.successorOffsets();
+        int[] targets = direction == Direction.UPSTREAM ? graph.predecessors() : graph.successors();
+
+        int head = 0;
+        int tail = 0;
+        queue[tail++] = id;
+        visit(id);
+        // tasks queue[levelEnd..tail) are one edge further than queue[head..levelEnd)
+        for (int depth = 0; depth < maxDepth && head < tail; depth++) {
+            int levelEnd = tail;
+            for (; head < levelEnd; head++) {
+                int task = queue[head];
+                for (int i = offsets[task]; i < offsets[task + 1]; i++) {
+                    if (visit(targets[i])) {
+                        if (tail == queue.length) {
+                            queue = Arrays.copyOf(queue, tail * 2);
+                        }
+                        queue[tail++] = targets[i];
+                    }
+                }
+            }
+        }
+
+        int[] result = new int[tail - 1];
+        int count = 0;
+        for (int i = 1; i < tail; i++) {
+            if (filter.test(queue[i])) {
+                result[count++] = queue[i];
+            }
+        }
+        return count < result.length ? Arrays.copyOf(result, count) : result;
+    }
+
+    /**
+     * @return whether the task was not visited yet
+     */
+    private boolean visit(int id) {
+        if (!insert(visited, id)) {
+            return false;
+        }
+        if (++visitedCount * 2 > visited.length) {
+            int[] table = newTable(visited.length * 2);
+            for (int visitedId : visited) {
+                if (visitedId != EMPTY) {
+                    insert(table, visitedId);
+                }
+            }
+            visited = table;
+        }
+        return true;
+    }
+
+    /**
+     * @return whether the id was not in the table yet
+     */
+    private static boolean insert(int[] table, int id) {
+        int mask = table.length - 1;
+        // Fibonacci hashing, the top bits of the product select the slot
+        for (int slot = (id * 0x9E3779B9) >>> Integer.numberOfLeadingZeros(mask); ; slot = (slot + 1) & mask) {
+            if (table[slot] == id) {
+                return false;
+            }
+            if (table[slot] == EMPTY) {
+                table[slot] = id;
+                return true;
+            }
+        }
+    }
+
+    private static int[] newTable(int capacity) {
+        int[] table = new int[capacity];
+        Arrays.fill(table, EMPTY);
+        return table;
+    }
+
+}
@@ -0,0 +1,32 @@
+package cz.vernjan.alice;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.ConstructorBinding;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+/**
+ * Limits of uploaded projects.
+ *
+ * @param maxSize        maximum size of the request body, and of the decompressed body for gzip uploads
+ * @param maxTasks       maximum number of task records, at most {@code maxStoredTasks} so that an uploaded project
+ *                       can be kept for follow-up queries
+ * @param parallelism    number of uploads parsed and evaluated at the same time
+ * @param queueCapacity  number of uploads waiting for evaluation, further uploads are rejected
+ * @param ttl            how long an uploaded project is kept
+ * @param maxStoredTasks maximum total number of tasks of all kept uploaded projects, the least recently used ones
+ *                       are dropped beyond it
+ */
+@ConstructorBinding
+@ConfigurationProperties("alice.upload")
+public record UploadProperties(
+        @DefaultValue("512MB") DataSize maxSize,
+        @DefaultValue("1000000") int maxTasks,
+        @DefaultValue("2") int parallelism,
+        @DefaultValue("0") int queueCapacity,
+        @DefaultValue("1h") Duration ttl,
+        @DefaultValue("2000000") long maxStoredTasks) {
+
+}
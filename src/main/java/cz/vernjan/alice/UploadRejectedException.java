@@ -0,0 +1,16 @@
+package cz.vernjan.alice;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * All upload evaluation slots are taken, the client should retry later.
+ */
+@ResponseStatus(HttpStatus.TOO_MANY_REQUESTS)
+public class UploadRejectedException extends RuntimeException {
+
+    public UploadRejectedException() {
+        super("Too many concurrent uploads");
+    }
+
+}
@@ -0,0 +1,55 @@
+package cz.vernjan.alice;
+
+/**
+ * Weakly connected components of a graph in CSR form, i.e. components of the graph with edge directions ignored.
+ * Union-find over the edges with path halving, a root is always the lowest node of its set, so the components
+ * come out numbered in the order of their lowest nodes.
+ */
+final class WeaklyConnectedComponents {
+
+    private WeaklyConnectedComponents() {
+    }
+
+    /**
+     * @param offsets CSR offsets of the edges
+     * @param targets CSR edge targets
+     * @param components receives the component of every node
+     * @return number of components
+     */
+    static int of(int[] offsets, int[] targets, int[] components) {
+        int size = offsets.length - 1;
+        int[] parent = new int[size];
+        for (int node = 0; node < size; node++) {
+            parent[node] = node;
+        }
+
+        for (int node = 0; node < size; node++) {
+            for (int i = offsets[node]; i < offsets[node + 1]; i++) {
+                int root = find(parent, node);
+                int targetRoot = find(parent, targets[i]);
+                if (root < targetRoot) {
+                    parent[targetRoot] = root;
+                } else if (targetRoot < root) {
+                    parent[root] = targetRoot;
+                }
+            }
+        }
+
+        int count = 0;
+        for (int node = 0; node < size; node++) {
+            int root = find(parent, node);
+            // the root is the lowest node of the set, its component is numbered already
+            components[node] = root == node ? count++ : components[root];
+        }
+        return count;
+    }
+
+    private static int find(int[] parent, int node) {
+        while (parent[node] != node) {
+            parent[node] = parent[parent[node]];
+            node = parent[node];
+        }
+        return node;
+    }
+
+}
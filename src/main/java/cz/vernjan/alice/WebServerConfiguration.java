@@ -0,0 +1,53 @@
+package cz.vernjan.alice;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Optionally handles requests on virtual threads, so requests waiting for a project evaluated by another request
+ * don't hold a server thread each.
+ */
+@Configuration(proxyBeanMethods = false)
+public class WebServerConfiguration {
+
+    private static final Logger LOG = LoggerFactory.getLogger(WebServerConfiguration.class);
+
+    @Bean
+    TomcatProtocolHandlerCustomizer<?> virtualThreadsCustomizer(WebServerProperties properties) {
+        ExecutorService executor = properties.virtualThreads() ? newVirtualThreadPerTaskExecutor() : null;
+        return protocolHandler -> {
+            if (executor != null) {
+                LOG.info("Handling requests on virtual threads");
+                protocolHandler.setExecutor(executor);
+            }
+        };
+    }
+
+    /**
+     * Looked up reflectively, the application is compiled for Java 17 which has no virtual threads.
+     *
+     * @return executor starting a new virtual thread for each task or {@code null} if the runtime has none
+     */
+    static ExecutorService newVirtualThreadPerTaskExecutor() {
+        try {
+            return (ExecutorService) MethodHandles.publicLookup()
+                    .findStatic(Executors.class, "newVirtualThreadPerTaskExecutor", MethodType.methodType(ExecutorService.class))
+                    .invoke();
+        } catch (NoSuchMethodException | IllegalAccessException | UnsupportedOperationException e) {
+            LOG.warn("Virtual threads are not available on Java {}, using the server thread pool",
+                    Runtime.version().feature());
+            return null;
+        } catch (Throwable e) {
+            throw new IllegalStateException("Failed to create a virtual thread executor", e);
+        }
+    }
+
+}
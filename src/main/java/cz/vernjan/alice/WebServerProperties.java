@@ -0,0 +1,17 @@
+package cz.vernjan.alice;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.ConstructorBinding;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Web server settings.
+ *
+ * @param virtualThreads whether requests are handled on virtual threads instead of the server thread pool, it
+ *                       requires Java 21 or later and is ignored with a warning on older versions
+ */
+@ConstructorBinding
+@ConfigurationProperties("alice.server")
+public record WebServerProperties(@DefaultValue("false") boolean virtualThreads) {
+
+}
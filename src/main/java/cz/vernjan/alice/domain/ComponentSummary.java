@@ -0,0 +1,13 @@
+package cz.vernjan.alice.domain;
+
+/**
+ * Summary of a group of tasks which don't depend on any other task of the project and no other task depends on.
+ *
+ * @param firstTaskCode code of the first task of the component in project order
+ * @param tasks         number of tasks
+ * @param totalDuration greatest early finish of the tasks
+ * @param crewPeak      highest crew assignment of the tasks and when it occurs (based on the early interval)
+ */
+public record ComponentSummary(String firstTaskCode, int tasks, int totalDuration, CrewPeak crewPeak) {
+
+}
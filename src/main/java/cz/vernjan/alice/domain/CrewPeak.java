@@ -0,0 +1,16 @@
+package cz.vernjan.alice.domain;
+
+import java.util.List;
+
+/**
+ * Highest crew assignment and the time windows when it occurs.
+ *
+ * @param assignment highest crew assignment
+ * @param windows    half-open {@code [from, to)} windows, a window with {@code from == to} is a single instant
+ *                   (zero-duration tasks)
+ */
+public record CrewPeak(int assignment, List<Interval> windows) {
+
+    public static final CrewPeak NONE = new CrewPeak(0, List.of());
+
+}
@@ -0,0 +1,19 @@
+package cz.vernjan.alice.domain;
+
+import java.util.List;
+
+/**
+ * Crew assignment over time as a run-length encoded step function.
+ *
+ * @param crew  crew name
+ * @param peak  highest assignment of the crew
+ * @param steps consecutive half-open {@code [from, to)} periods of constant non-zero assignment, a step with
+ *              {@code from == to} is a single instant (zero-duration tasks), assignment is zero outside steps
+ */
+public record CrewProfile(String crew, int peak, List<Step> steps) {
+
+    public record Step(int from, int to, int assignment) {
+
+    }
+
+}
@@ -0,0 +1,33 @@
+package cz.vernjan.alice.domain;
+
+import java.util.List;
+
+/**
+ * Longest dependency chains of a project.
+ *
+ * @param totalDuration total duration of the project, i.e. duration of the critical path
+ * @param paths         the critical path followed by the longest near-critical paths, longest first
+ */
+public record CriticalPaths(int totalDuration, List<TaskPath> paths) {
+
+    /**
+     * Chain of tasks from a task without dependencies to a task without dependants, every task depends on the
+     * preceding one.
+     *
+     * @param duration  sum of durations of the tasks
+     * @param totalFloat by how much the path can be delayed without delaying the project
+     * @param tasks     tasks of the path in dependency order
+     */
+    public record TaskPath(int duration, int totalFloat, List<PathTask> tasks) {
+
+    }
+
+    /**
+     * @param totalFloat by how much the task can be delayed without delaying the project
+     * @param freeFloat  by how much the task can be delayed without delaying any of its dependants
+     */
+    public record PathTask(String taskCode, int totalFloat, int freeFloat) {
+
+    }
+
+}
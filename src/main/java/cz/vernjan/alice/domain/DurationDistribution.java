@@ -0,0 +1,24 @@
+package cz.vernjan.alice.domain;
+
+/**
+ * Distribution of a task duration for schedule risk simulation.
+ *
+ * @param shape distribution shape
+ * @param min   shortest duration
+ * @param mode  most likely duration, not used by {@link Shape#BETA}
+ * @param max   longest duration
+ * @param alpha first shape parameter of {@link Shape#BETA}
+ * @param beta  second shape parameter of {@link Shape#BETA}
+ */
+public record DurationDistribution(Shape shape, double min, double mode, double max, double alpha, double beta) {
+
+    public enum Shape {
+        TRIANGULAR,
+        /**
+         * Beta distribution with the mode weighted four times the extremes (the classic three-point estimate).
+         */
+        PERT,
+        BETA
+    }
+
+}
@@ -0,0 +1,12 @@
+package cz.vernjan.alice.domain;
+
+/**
+ * Summary of the differences between two versions of a project.
+ */
+public record ProjectDiff(
+        int previousTotalDuration,
+        int totalDuration,
+        int previousHighestCrewAssignment,
+        int highestCrewAssignment) {
+
+}
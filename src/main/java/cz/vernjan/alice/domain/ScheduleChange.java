@@ -0,0 +1,11 @@
+package cz.vernjan.alice.domain;
+
+import java.util.List;
+
+public record ScheduleChange(
+        int totalDuration,
+        int highestCrewAssignment,
+        List<ProjectTask> changedTasks,
+        List<String> removedTasks) {
+
+}
@@ -0,0 +1,27 @@
+package cz.vernjan.alice.domain;
+
+import java.util.List;
+
+/**
+ * Outcome of a Monte Carlo schedule risk simulation.
+ *
+ * @param iterations    number of simulated schedules
+ * @param seed          seed which reproduces the simulation
+ * @param totalDuration distribution of the total duration
+ * @param tasks         criticality index of every task
+ */
+public record SimulationResult(int iterations, long seed, Percentiles totalDuration, List<TaskCriticality> tasks) {
+
+    public record Percentiles(double mean, double p50, double p80, double p95) {
+
+    }
+
+    /**
+     * @param taskCode    task code
+     * @param criticality fraction of simulated schedules in which the task is critical (has zero slack)
+     */
+    public record TaskCriticality(String taskCode, double criticality) {
+
+    }
+
+}
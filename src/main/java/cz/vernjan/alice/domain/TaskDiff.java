@@ -0,0 +1,38 @@
+package cz.vernjan.alice.domain;
+
+import java.util.List;
+
+/**
+ * Difference of a task between two versions of a project.
+ *
+ * @param startInterval       start interval in the new version, in the previous version for a removed task
+ * @param endInterval         end interval in the new version, in the previous version for a removed task
+ * @param startShift          by how much the early start moved, zero for an added or removed task
+ * @param finishShift         by how much the early finish moved, zero for an added or removed task
+ * @param critical            whether the task has zero slack, in the previous version for a removed task
+ * @param criticalityChanged  whether the task became critical or stopped being critical
+ * @param addedDependencies   task codes of the new dependencies, all dependencies of an added task
+ * @param removedDependencies task codes of the dropped dependencies, all dependencies of a removed task
+ */
+public record TaskDiff(
+        String taskCode,
+        Change change,
+        Interval startInterval,
+        Interval endInterval,
+        int startShift,
+        int finishShift,
+        boolean critical,
+        boolean criticalityChanged,
+        List<String> addedDependencies,
+        List<String> removedDependencies) {
+
+    public enum Change {
+        ADDED,
+        REMOVED,
+        /**
+         * The task is in both versions and its dependencies, intervals or criticality differ.
+         */
+        CHANGED
+    }
+
+}
@@ -0,0 +1,24 @@
+package cz.vernjan.alice.domain;
+
+import java.util.List;
+
+/**
+ * Problems of task records which prevent them from being compiled into a task graph.
+ *
+ * @param duplicateTasks       task codes used by more than one record
+ * @param danglingDependencies dependencies on task codes no record has
+ * @param cycles               task codes of every strongly connected component of the dependencies, i.e. of tasks
+ *                             which depend on each other, a task depending on itself is a component of its own
+ * @param unnamedTasks         positions (from 0) of records without a task code or with an empty one
+ */
+public record ValidationReport(
+        List<String> duplicateTasks,
+        List<DanglingDependency> danglingDependencies,
+        List<List<String>> cycles,
+        List<Integer> unnamedTasks) {
+
+    public record DanglingDependency(String taskCode, String dependency) {
+
+    }
+
+}
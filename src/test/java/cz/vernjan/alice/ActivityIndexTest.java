@@ -0,0 +1,74 @@
+package cz.vernjan.alice;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+import java.util.function.IntPredicate;
+import java.util.stream.IntStream;
+
+import static cz.vernjan.alice.TaskRecordFactory.newRootTaskRecord;
+import static cz.vernjan.alice.TaskRecordFactory.newTaskRecord;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ActivityIndexTest {
+
+    private final CpmEngine cpmEngine = new CpmEngine();
+
+    @Test
+    void activeTasks() {
+        Schedule schedule = cpmEngine.schedule(TaskGraph.of(List.of(
+                newRootTaskRecord("A", 2, 1),
+                newRootTaskRecord("B", 5, 1),
+                newTaskRecord("M", 0, 1, List.of("A")),
+                newTaskRecord("C", 3, 1, List.of("M")))));
+
+        assertEquals(List.of("A", "B"), codes(schedule, schedule.activeTasks(0, 1, -1, false)));
+        assertEquals(List.of("B", "M", "C"), codes(schedule, schedule.activeTasks(2, 3, -1, false)));
+        assertEquals(List.of("B", "C"), codes(schedule, schedule.activeTasks(3, 4, -1, false)));
+        assertEquals(List.of(), codes(schedule, schedule.activeTasks(5, 10, -1, false)));
+        // all tasks are critical, so the late intervals are the early ones
+        assertEquals(List.of("A", "B"), codes(schedule, schedule.activeTasks(0, 1, -1, true)));
+        assertEquals(List.of("A", "B"), codes(schedule, schedule.activeTasks(0, 1, 0, false)));
+    }
+
+    /**
+     * Every query must return exactly the tasks the linear time window filter of the task list matches.
+     */
+    @Test
+    void matchesLinearScan() {
+        Schedule schedule = cpmEngine.schedule(TaskGraph.of(
+                ScheduleGenerator.generate(ScheduleGenerator.Shape.LAYERED, 5_000, 42)));
+        Random random = new Random(7);
+
+        for (int i = 0; i < 200; i++) {
+            int from = random.nextInt(schedule.totalDuration() + 2) - 1;
+            int to = from + random.nextInt(25) - 2;
+            int crew = random.nextInt(schedule.graph().crewCount() + 1) - 1;
+            String crewName = crew >= 0 ? schedule.graph().crewName(crew) : null;
+
+            IntPredicate filter = new TaskFilter(false, crewName, null, null, from, to).compile(schedule);
+            int[] expected = IntStream.range(0, schedule.size()).filter(filter).sorted().toArray();
+            int[] actual = IntStream.of(schedule.activeTasks(from, to, crew, false)).sorted().toArray();
+            assertArrayEquals(expected, actual, "from " + from + " to " + to + " crew " + crewName);
+        }
+    }
+
+    @Test
+    void tasksAreOrderedByStart() {
+        Schedule schedule = cpmEngine.schedule(TaskGraph.of(
+                ScheduleGenerator.generate(ScheduleGenerator.Shape.LAYERED, 5_000, 42)));
+        int[] starts = IntStream.of(schedule.activeTasks(0, schedule.totalDuration() + 1, -1, true))
+                .map(id -> schedule.startInterval(id).to())
+                .toArray();
+
+        assertEquals(schedule.size(), starts.length);
+        assertArrayEquals(IntStream.of(starts).sorted().toArray(), starts);
+    }
+
+    private static List<String> codes(Schedule schedule, int[] ids) {
+        return IntStream.of(ids).mapToObj(schedule.graph()::taskCode).toList();
+    }
+
+}
@@ -1,18 +1,24 @@
 package cz.vernjan.alice;
 
+import cz.vernjan.alice.domain.ComponentSummary;
+import cz.vernjan.alice.domain.CrewPeak;
 import cz.vernjan.alice.domain.Interval;
 import cz.vernjan.alice.domain.Project;
 import cz.vernjan.alice.domain.ProjectTask;
 import cz.vernjan.alice.domain.TaskRecord;
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.Random;
 
 import static cz.vernjan.alice.TaskRecordFactory.newRootTaskRecord;
 import static cz.vernjan.alice.TaskRecordFactory.newTaskRecord;
 import static java.util.stream.Collectors.toMap;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 class CpmEngineTest {
 
@@ -54,6 +60,13 @@ class CpmEngineTest {
         assertEquals(23, project.highestCrewAssignment());
     }
 
+    @Test
+    void evaluateCrewPeak() {
+        Schedule schedule = fixture.schedule(TaskGraph.of(taskRecords));
+
+        assertEquals(new CrewPeak(23, List.of(new Interval(7, 8))), schedule.crewPeak());
+    }
+
     @Test
     void evaluateTasks() {
         Project project = fixture.evaluate(taskRecords);
@@ -97,6 +110,69 @@ class CpmEngineTest {
         assertEquals(new Interval(8, 19), taskMap.get("H2").endInterval());
     }
 
+    @Test
+    void evaluateLongDependencyChain() {
+        int chainLength = 100_000;
+        List<TaskRecord> chain = new ArrayList<>(chainLength);
+        chain.add(newRootTaskRecord("T0", 1, 1));
+        for (int i = 1; i < chainLength; i++) {
+            chain.add(newTaskRecord("T" + i, 1, 1, List.of("T" + (i - 1))));
+        }
+
+        Project project = fixture.evaluate(chain);
+
+        assertEquals(chainLength, project.totalDuration());
+        assertEquals(1, project.highestCrewAssignment());
+    }
+
+    @Test
+    void evaluateThrowsIllegalArgumentException_whenDependenciesContainCycle() {
+        List<TaskRecord> cycle = List.of(
+                newTaskRecord("A", 1, 1, List.of("C")),
+                newTaskRecord("B", 1, 1, List.of("A")),
+                newTaskRecord("C", 1, 1, List.of("B")));
+
+        assertThrows(IllegalArgumentException.class, () -> fixture.evaluate(cycle));
+    }
+
+    @Test
+    void evaluateInParallel_matchesSequentialEvaluation() {
+        Random random = new Random(7);
+        List<TaskRecord> records = new ArrayList<>();
+        for (int i = 0; i < 20_000; i++) {
+            List<String> dependencies = i < 3000 ? List.of() : List.of(
+                    "T" + random.nextInt(i), "T" + random.nextInt(i));
+            records.add(newTaskRecord("T" + i, random.nextInt(20), random.nextInt(5), dependencies));
+        }
+        CpmEngine parallelEngine = new CpmEngine(new CpmEngineProperties(1, 4));
+
+        assertEquals(fixture.evaluate(records), parallelEngine.evaluate(records));
+        assertEquals(fixture.evaluate(taskRecords), parallelEngine.evaluate(taskRecords));
+    }
+
+    @Test
+    void evaluateComponentsInParallel_matchesSequentialEvaluation() {
+        List<TaskRecord> records = ScheduleGenerator.generate(ScheduleGenerator.Shape.BUILDINGS, 20_000, 3);
+        CpmEngine parallelEngine = new CpmEngine(new CpmEngineProperties(1, 4));
+
+        assertTrue(TaskGraph.of(records).componentCount() >= 8);
+        assertEquals(fixture.evaluate(records), parallelEngine.evaluate(records));
+    }
+
+    @Test
+    void componentSummaries() {
+        Schedule schedule = fixture.schedule(TaskGraph.of(List.of(
+                newRootTaskRecord("A1", 2, 3),
+                newRootTaskRecord("A2", 5, 1),
+                newTaskRecord("B1", 4, 2, List.of("A1")),
+                newTaskRecord("B2", 1, 4, List.of("A2")))));
+
+        assertEquals(List.of(
+                new ComponentSummary("A1", 2, 6, new CrewPeak(3, List.of(new Interval(0, 2)))),
+                new ComponentSummary("A2", 2, 6, new CrewPeak(4, List.of(new Interval(5, 6))))),
+                schedule.components());
+    }
+
     private static Map<String, ProjectTask> createTaskMap(List<ProjectTask> tasks) {
         return tasks.stream().collect(toMap(task -> task.record().taskCode(), task -> task));
     }
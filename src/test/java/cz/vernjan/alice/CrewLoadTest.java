@@ -0,0 +1,83 @@
+package cz.vernjan.alice;
+
+import cz.vernjan.alice.domain.CrewPeak;
+import cz.vernjan.alice.domain.CrewProfile;
+import cz.vernjan.alice.domain.Interval;
+import cz.vernjan.alice.domain.TaskRecord;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class CrewLoadTest {
+
+    @Test
+    void peakOfNoTasks() {
+        assertEquals(CrewPeak.NONE, peak(new int[0], new int[0], new int[0]));
+    }
+
+    @Test
+    void peakOfOverlappingTasks() {
+        CrewPeak peak = peak(new int[]{0, 1, 3}, new int[]{4, 3, 6}, new int[]{1, 2, 4});
+
+        assertEquals(new CrewPeak(5, List.of(new Interval(3, 4))), peak);
+    }
+
+    @Test
+    void peak_taskFinishingWhenAnotherStartsDoesNotOverlap() {
+        CrewPeak peak = peak(new int[]{0, 2}, new int[]{2, 4}, new int[]{2, 3});
+
+        assertEquals(new CrewPeak(3, List.of(new Interval(2, 4))), peak);
+    }
+
+    @Test
+    void peak_adjacentWindowsAreMerged() {
+        CrewPeak peak = peak(new int[]{0, 2, 5}, new int[]{2, 4, 7}, new int[]{2, 2, 2});
+
+        assertEquals(new CrewPeak(2, List.of(new Interval(0, 4), new Interval(5, 7))), peak);
+    }
+
+    @Test
+    void peak_zeroDurationTaskCountsAtItsInstant() {
+        CrewPeak peak = peak(new int[]{0, 1}, new int[]{2, 1}, new int[]{2, 5});
+
+        assertEquals(new CrewPeak(7, List.of(new Interval(1, 1))), peak);
+    }
+
+    @Test
+    void peak_simultaneousZeroDurationTasksDoNotStack() {
+        CrewPeak peak = peak(new int[]{0, 1, 1}, new int[]{2, 1, 1}, new int[]{2, 5, 4});
+
+        assertEquals(new CrewPeak(7, List.of(new Interval(1, 1))), peak);
+    }
+
+    @Test
+    void profilesPerCrew() {
+        TaskGraph graph = TaskGraph.of(List.of(
+                new TaskRecord("A", "operation", "element", 2, new TaskRecord.Crew("X", 1), List.of()),
+                new TaskRecord("B", "operation", "element", 4, new TaskRecord.Crew("Y", 3), List.of()),
+                new TaskRecord("C", "operation", "element", 2, new TaskRecord.Crew("X", 2), List.of()),
+                new TaskRecord("D", "operation", "element", 3, new TaskRecord.Crew("X", 1), List.of()),
+                new TaskRecord("E", "operation", "element", 3, null, List.of())));
+
+        List<CrewProfile> profiles = CrewLoad.profiles(graph, new int[]{0, 0, 1, 3, 0}, new int[]{2, 4, 3, 6, 3});
+
+        assertEquals(List.of(
+                new CrewProfile("X", 3, List.of(
+                        new CrewProfile.Step(0, 1, 1),
+                        new CrewProfile.Step(1, 2, 3),
+                        new CrewProfile.Step(2, 3, 2),
+                        new CrewProfile.Step(3, 6, 1))),
+                new CrewProfile("Y", 3, List.of(new CrewProfile.Step(0, 4, 3)))), profiles);
+    }
+
+    private static CrewPeak peak(int[] start, int[] finish, int[] assignments) {
+        int[] tasks = new int[start.length];
+        for (int id = 0; id < tasks.length; id++) {
+            tasks[id] = id;
+        }
+        return CrewLoad.peak(tasks, start, finish, assignments);
+    }
+
+}
@@ -0,0 +1,215 @@
+package cz.vernjan.alice;
+
+import cz.vernjan.alice.domain.Interval;
+import cz.vernjan.alice.domain.Project;
+import cz.vernjan.alice.domain.ProjectTask;
+import cz.vernjan.alice.domain.ScheduleChange;
+import cz.vernjan.alice.domain.TaskRecord;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static cz.vernjan.alice.TaskRecordFactory.newRootTaskRecord;
+import static cz.vernjan.alice.TaskRecordFactory.newTaskRecord;
+import static java.util.stream.Collectors.toMap;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class EditableScheduleTest {
+
+    private final CpmEngine cpmEngine = new CpmEngine();
+
+    private final List<TaskRecord> taskRecords = List.of(
+            newRootTaskRecord("A1", 2, 1),
+            newRootTaskRecord("A2", 3, 3),
+            newTaskRecord("B", 4, 5, List.of("A1", "A2")),
+            newTaskRecord("C", 2, 1, List.of("A2")),
+            newTaskRecord("D", 5, 3, List.of("B")),
+            newTaskRecord("E", 1, 2, List.of("C")),
+            newTaskRecord("F", 2, 4, List.of("C")),
+            newTaskRecord("G", 4, 4, List.of("D", "E")),
+            newTaskRecord("H1", 3, 1, List.of("F", "G")),
+            newTaskRecord("H2", 1, 20, List.of("F"))
+    );
+
+    private final EditableSchedule fixture = EditableSchedule.of(cpmEngine.schedule(TaskGraph.of(taskRecords)));
+
+    @Test
+    void setDuration_reportsChangedTasksOnly() {
+        fixture.setDuration("E", 3);
+
+        ScheduleChange change = fixture.evaluate();
+
+        assertEquals(19, change.totalDuration());
+        assertEquals(List.of("C", "E"), taskCodes(change.changedTasks()));
+        assertEquals(new Interval(5, 9), taskMap(change.changedTasks()).get("E").startInterval());
+        assertEquals(new Interval(3, 7), taskMap(change.changedTasks()).get("C").startInterval());
+    }
+
+    @Test
+    void setDuration_onCriticalPath_changesTotalDuration() {
+        fixture.setDuration("D", 7);
+
+        ScheduleChange change = fixture.evaluate();
+
+        assertEquals(21, change.totalDuration());
+        assertEquals(fullEvaluation(fixture.project()), fixture.project());
+    }
+
+    @Test
+    void addDependency_reordersTopologicalRanks() {
+        fixture.addDependency("A1", "H2");
+
+        ScheduleChange change = fixture.evaluate();
+
+        assertEquals(26, change.totalDuration());
+        assertEquals(fullEvaluation(fixture.project()), fixture.project());
+    }
+
+    @Test
+    void addDependency_throwsScheduleEditException_whenCycleCreated() {
+        assertThrows(ScheduleEditException.class, () -> fixture.addDependency("A2", "H1"));
+    }
+
+    @Test
+    void removeTask_dropsDependencies() {
+        fixture.removeTask("D");
+
+        ScheduleChange change = fixture.evaluate();
+
+        assertEquals(List.of("D"), change.removedTasks());
+        assertEquals(13, change.totalDuration());
+        assertEquals(List.of("E"), taskMap(fixture.project().tasks()).get("G").record().dependencies());
+        assertEquals(fullEvaluation(fixture.project()), fixture.project());
+    }
+
+    @Test
+    void addTask() {
+        fixture.addTask(newTaskRecord("I", 10, 2, List.of("H2")));
+
+        ScheduleChange change = fixture.evaluate();
+
+        assertEquals(19, change.totalDuration());
+        assertEquals(List.of("C", "F", "H2", "I"), taskCodes(change.changedTasks()));
+        assertEquals(fullEvaluation(fixture.project()), fixture.project());
+    }
+
+    @Test
+    void editThrowsTaskNotFoundException_whenTaskUnknown() {
+        assertThrows(TaskNotFoundException.class, () -> fixture.setDuration("X", 1));
+    }
+
+    @Test
+    void apply_undoesBatch_whenEditFails() {
+        Project original = fixture.project();
+
+        assertThrows(ScheduleEditException.class, () -> fixture.apply(schedule -> {
+            schedule.setDuration("D", 7);
+            schedule.removeTask("C");
+            schedule.removeDependency("G", "D");
+            schedule.addTask(newTaskRecord("I", 10, 2, List.of("H2")));
+            schedule.addDependency("A1", "I");
+            // I depends on H2, so A1 is a transitive dependant of H2 now
+            schedule.addDependency("H2", "A1");
+        }));
+
+        assertEquals(original, fixture.project());
+        ScheduleChange change = fixture.apply(schedule -> schedule.setDuration("E", 3));
+        assertEquals(List.of("C", "E"), taskCodes(change.changedTasks()));
+        assertEquals(List.of(), change.removedTasks());
+    }
+
+    @Test
+    void randomBatches_areAllOrNothing() {
+        Random random = new Random(42);
+        EditableSchedule schedule = EditableSchedule.of(cpmEngine.schedule(TaskGraph.of(
+                ScheduleGenerator.generate(ScheduleGenerator.Shape.LAYERED, 300, 42))));
+        int nextTask = 0;
+
+        for (int batch = 0; batch < 100; batch++) {
+            Project before = schedule.project();
+            List<ProjectTask> tasks = before.tasks();
+            boolean fail = random.nextBoolean();
+            int size = 1 + random.nextInt(5);
+            int firstTask = nextTask;
+            nextTask += size;
+            try {
+                schedule.apply(edits -> {
+                    for (int edit = 0; edit < size; edit++) {
+                        String taskCode = tasks.get(random.nextInt(tasks.size())).record().taskCode();
+                        String otherCode = tasks.get(random.nextInt(tasks.size())).record().taskCode();
+                        switch (random.nextInt(5)) {
+                            case 0 -> edits.setDuration(taskCode, random.nextInt(20));
+                            case 1 -> edits.addDependency(taskCode, otherCode);
+                            case 2 -> edits.removeDependency(taskCode, otherCode);
+                            case 3 -> edits.removeTask(taskCode);
+                            default -> edits.addTask(newTaskRecord("N" + (firstTask + edit), random.nextInt(10), 1, List.of(taskCode)));
+                        }
+                    }
+                    if (fail) {
+                        edits.setDuration("missing", 1);
+                    }
+                });
+            } catch (ScheduleEditException | TaskNotFoundException e) {
+                assertEquals(before, schedule.project(), "batch " + batch);
+            }
+            assertEquals(fullEvaluation(schedule.project()), schedule.project(), "batch " + batch);
+        }
+    }
+
+    @Test
+    void randomEdits_matchFullEvaluation() {
+        Random random = new Random(42);
+        List<TaskRecord> records = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            List<String> dependencies = new ArrayList<>();
+            for (int j = 0; j < Math.min(i, 3); j++) {
+                String dependency = "T" + random.nextInt(i);
+                if (!dependencies.contains(dependency)) {
+                    dependencies.add(dependency);
+                }
+            }
+            records.add(newTaskRecord("T" + i, random.nextInt(10), random.nextInt(5), dependencies));
+        }
+        EditableSchedule schedule = EditableSchedule.of(cpmEngine.schedule(TaskGraph.of(records)));
+        int nextTask = records.size();
+
+        for (int edit = 0; edit < 200; edit++) {
+            List<ProjectTask> tasks = schedule.project().tasks();
+            String taskCode = tasks.get(random.nextInt(tasks.size())).record().taskCode();
+            String otherCode = tasks.get(random.nextInt(tasks.size())).record().taskCode();
+            try {
+                switch (random.nextInt(5)) {
+                    case 0 -> schedule.setDuration(taskCode, random.nextInt(20));
+                    case 1 -> schedule.addDependency(taskCode, otherCode);
+                    case 2 -> schedule.removeDependency(taskCode, otherCode);
+                    case 3 -> schedule.removeTask(taskCode);
+                    default -> schedule.addTask(newTaskRecord("T" + nextTask++, random.nextInt(10), 1, List.of(taskCode)));
+                }
+            } catch (ScheduleEditException e) {
+                // cycles and missing dependencies are expected
+            }
+            schedule.evaluate();
+
+            assertEquals(fullEvaluation(schedule.project()), schedule.project(), "edit " + edit);
+        }
+    }
+
+    private Project fullEvaluation(Project project) {
+        List<TaskRecord> records = project.tasks().stream().map(ProjectTask::record).toList();
+        return cpmEngine.evaluate(records);
+    }
+
+    private static List<String> taskCodes(List<ProjectTask> tasks) {
+        return tasks.stream().map(task -> task.record().taskCode()).toList();
+    }
+
+    private static Map<String, ProjectTask> taskMap(List<ProjectTask> tasks) {
+        return tasks.stream().collect(toMap(task -> task.record().taskCode(), task -> task, (a, b) -> a, LinkedHashMap::new));
+    }
+
+}
@@ -0,0 +1,97 @@
+package cz.vernjan.alice;
+
+import cz.vernjan.alice.domain.ScheduleChange;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static cz.vernjan.alice.TaskRecordFactory.newRootTaskRecord;
+import static cz.vernjan.alice.TaskRecordFactory.newTaskRecord;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class EditedProjectsTest {
+
+    private final AtomicLong time = new AtomicLong();
+    private final EditedProjects fixture = new EditedProjects(
+            new ProjectCacheProperties(Duration.ofNanos(100), 5), time::get);
+
+    private final Schedule schedule = new CpmEngine().schedule(TaskGraph.of(List.of(
+            newRootTaskRecord("A", 2, 1),
+            newTaskRecord("B", 3, 1, List.of("A")))));
+
+    @Test
+    void editsAccumulateOnWorkingCopy() {
+        fixture.edit("p", schedule, 1, edits -> edits.setDuration("A", 4));
+        ScheduleChange change = fixture.edit("p", schedule, 1, edits -> edits.setDuration("B", 4));
+
+        assertEquals(8, change.totalDuration());
+    }
+
+    @Test
+    void newVersionStartsOver() {
+        fixture.edit("p", schedule, 1, edits -> edits.setDuration("A", 4));
+        ScheduleChange change = fixture.edit("p", schedule, 2, edits -> edits.setDuration("B", 4));
+
+        assertEquals(6, change.totalDuration());
+    }
+
+    @Test
+    void expiredCopyStartsOver() {
+        fixture.edit("p", schedule, 1, edits -> edits.setDuration("A", 4));
+        time.addAndGet(100);
+        ScheduleChange change = fixture.edit("p", schedule, 1, edits -> edits.setDuration("B", 4));
+
+        assertEquals(6, change.totalDuration());
+    }
+
+    @Test
+    void leastRecentlyEditedCopiesAreEvicted() {
+        fixture.edit("p1", schedule, 1, edits -> edits.setDuration("A", 4));
+        fixture.edit("p2", schedule, 1, edits -> edits.setDuration("A", 4));
+        fixture.edit("p1", schedule, 1, edits -> edits.setDuration("B", 4));
+        fixture.edit("p3", schedule, 1, edits -> edits.setDuration("A", 4));
+
+        assertEquals(2, fixture.size());
+        assertEquals(8, fixture.edit("p1", schedule, 1, edits -> { }).totalDuration());
+        assertEquals(5, fixture.edit("p2", schedule, 1, edits -> { }).totalDuration());
+    }
+
+    @Test
+    void projectIncludesEdits() {
+        assertNull(fixture.project("p", 1));
+
+        fixture.edit("p", schedule, 1, edits -> edits.setDuration("A", 4));
+
+        assertEquals(7, fixture.project("p", 1).totalDuration());
+        assertNull(fixture.project("p", 2));
+    }
+
+    @Test
+    void tooLargeProjectIsRejected_ratherThanStartingOverOnEveryEdit() {
+        Schedule large = new CpmEngine().schedule(TaskGraph.of(List.of(
+                newRootTaskRecord("A", 1, 1),
+                newRootTaskRecord("B", 1, 1),
+                newRootTaskRecord("C", 1, 1),
+                newRootTaskRecord("D", 1, 1),
+                newRootTaskRecord("E", 1, 1),
+                newRootTaskRecord("F", 1, 1))));
+
+        assertThrows(EditTooLargeException.class, () -> fixture.edit("p", large, 1, edits -> edits.setDuration("A", 4)));
+        assertThrows(EditTooLargeException.class, () -> fixture.edit("p", large, 1, edits -> edits.setDuration("B", 4)));
+        assertEquals(0, fixture.size());
+    }
+
+    @Test
+    void discard() {
+        fixture.edit("p", schedule, 1, edits -> edits.setDuration("A", 4));
+        fixture.discard("p");
+
+        assertEquals(0, fixture.size());
+        assertEquals(5, fixture.edit("p", schedule, 1, edits -> { }).totalDuration());
+    }
+
+}
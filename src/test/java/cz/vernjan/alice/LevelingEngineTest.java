@@ -0,0 +1,106 @@
+package cz.vernjan.alice;
+
+import cz.vernjan.alice.domain.CrewProfile;
+import cz.vernjan.alice.domain.Interval;
+import cz.vernjan.alice.domain.TaskRecord;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static cz.vernjan.alice.TaskRecordFactory.newRootTaskRecord;
+import static cz.vernjan.alice.TaskRecordFactory.newTaskRecord;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LevelingEngineTest {
+
+    private final CpmEngine cpmEngine = new CpmEngine();
+    private final LevelingEngine fixture = new LevelingEngine();
+
+    private final List<TaskRecord> taskRecords = List.of(
+            newRootTaskRecord("A1", 2, 1),
+            newRootTaskRecord("A2", 3, 3),
+            newTaskRecord("B", 4, 5, List.of("A1", "A2")),
+            newTaskRecord("C", 2, 1, List.of("A2")),
+            newTaskRecord("D", 5, 3, List.of("B")),
+            newTaskRecord("E", 1, 2, List.of("C")),
+            newTaskRecord("F", 2, 4, List.of("C")),
+            newTaskRecord("G", 4, 4, List.of("D", "E")),
+            newTaskRecord("H1", 3, 1, List.of("F", "G")),
+            newTaskRecord("H2", 1, 20, List.of("F"))
+    );
+
+    @Test
+    void withoutCapacities_equalsEarlySchedule() {
+        Schedule schedule = cpmEngine.schedule(TaskGraph.of(taskRecords));
+
+        Schedule leveled = fixture.level(schedule, Map.of());
+
+        assertArrayEquals(schedule.earlyStart(), leveled.earlyStart());
+        assertEquals(19, leveled.totalDuration());
+        assertEquals(23, leveled.highestCrewAssignment());
+    }
+
+    @Test
+    void tasksAreDelayedUntilCrewIsFree() {
+        Schedule schedule = cpmEngine.schedule(TaskGraph.of(List.of(
+                newRootTaskRecord("A", 2, 3),
+                newRootTaskRecord("B", 3, 3),
+                newTaskRecord("C", 1, 2, List.of("A")))));
+
+        Schedule leveled = fixture.level(schedule, Map.of("crew", 4));
+
+        assertEquals(new Interval(0, 0), leveled.startInterval(0));
+        assertEquals(new Interval(2, 2), leveled.startInterval(1));
+        assertEquals(new Interval(5, 5), leveled.startInterval(2));
+        assertEquals(6, leveled.totalDuration());
+        assertEquals(3, leveled.highestCrewAssignment());
+    }
+
+    @Test
+    void tasksWithHigherPriorityGoFirst() {
+        Schedule schedule = cpmEngine.schedule(TaskGraph.of(taskRecords));
+
+        Schedule leveled = fixture.level(schedule, Map.of("crew", 20));
+
+        // H2 alone takes the whole capacity, it has the latest late start so it waits until nothing else runs
+        assertEquals(new Interval(19, 19), leveled.startInterval(schedule.graph().indexOf("H2")));
+        assertEquals(20, leveled.totalDuration());
+    }
+
+    @Test
+    void generatedProject_respectsCapacitiesAndDependencies() {
+        TaskGraph graph = TaskGraph.of(ScheduleGenerator.generate(ScheduleGenerator.Shape.LAYERED, 20_000, 42));
+        Schedule schedule = cpmEngine.schedule(graph);
+
+        Map<String, Integer> capacities = new HashMap<>();
+        for (CrewProfile profile : schedule.crewProfiles(false)) {
+            capacities.put(profile.crew(), Math.max(8, profile.peak() / 2));
+        }
+
+        Schedule leveled = fixture.level(schedule, capacities);
+
+        for (CrewProfile profile : leveled.crewProfiles(false)) {
+            assertTrue(profile.peak() <= capacities.get(profile.crew()), profile.crew());
+        }
+        for (int id = 0; id < graph.size(); id++) {
+            for (int i = graph.predecessorOffsets()[id]; i < graph.predecessorOffsets()[id + 1]; i++) {
+                assertTrue(leveled.earlyStart()[id] >= leveled.earlyFinish()[graph.predecessors()[i]]);
+            }
+        }
+        assertTrue(leveled.totalDuration() > schedule.totalDuration());
+    }
+
+    @Test
+    void invalidCapacities() {
+        Schedule schedule = cpmEngine.schedule(TaskGraph.of(taskRecords));
+
+        assertThrows(LevelingException.class, () -> fixture.level(schedule, Map.of("crew", -1)));
+        assertThrows(LevelingException.class, () -> fixture.level(schedule, Map.of("crew", 19)));
+    }
+
+}
@@ -0,0 +1,102 @@
+package cz.vernjan.alice;
+
+import cz.vernjan.alice.domain.CriticalPaths;
+import cz.vernjan.alice.domain.TaskRecord;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static cz.vernjan.alice.TaskRecordFactory.newRootTaskRecord;
+import static cz.vernjan.alice.TaskRecordFactory.newTaskRecord;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LongestPathsTest {
+
+    private final CpmEngine cpmEngine = new CpmEngine();
+
+    @Test
+    void pathsLongestFirst() {
+        Schedule schedule = cpmEngine.schedule(TaskGraph.of(List.of(
+                newRootTaskRecord("A", 3, 1),
+                newRootTaskRecord("B", 1, 1),
+                newTaskRecord("C", 4, 1, List.of("A", "B")),
+                newTaskRecord("D", 2, 1, List.of("A")),
+                newTaskRecord("E", 1, 1, List.of("C", "D")),
+                newRootTaskRecord("F", 2, 1))));
+
+        CriticalPaths paths = schedule.criticalPaths(10, Integer.MAX_VALUE);
+
+        assertEquals(8, paths.totalDuration());
+        assertEquals(List.of("A C E", "A D E", "B C E", "F"), codes(paths.paths()));
+        assertEquals(List.of(8, 6, 6, 2), paths.paths().stream().map(CriticalPaths.TaskPath::duration).toList());
+        assertEquals(List.of(0, 2, 2, 6), paths.paths().stream().map(CriticalPaths.TaskPath::totalFloat).toList());
+
+        CriticalPaths.TaskPath third = paths.paths().get(2);
+        assertEquals(new CriticalPaths.PathTask("B", 2, 2), third.tasks().get(0));
+        assertEquals(new CriticalPaths.PathTask("C", 0, 0), third.tasks().get(1));
+        assertEquals(new CriticalPaths.PathTask("D", 2, 2), paths.paths().get(1).tasks().get(1));
+    }
+
+    @Test
+    void countAndMaxFloat() {
+        Schedule schedule = cpmEngine.schedule(TaskGraph.of(List.of(
+                newRootTaskRecord("A", 3, 1),
+                newRootTaskRecord("B", 2, 1),
+                newRootTaskRecord("C", 1, 1))));
+
+        assertEquals(List.of("A"), codes(schedule.criticalPaths(0, Integer.MAX_VALUE).paths()));
+        assertEquals(List.of("A", "B"), codes(schedule.criticalPaths(1, Integer.MAX_VALUE).paths()));
+        assertEquals(List.of("A", "B"), codes(schedule.criticalPaths(5, 1).paths()));
+        assertEquals(List.of(), codes(cpmEngine.schedule(TaskGraph.of(List.of())).criticalPaths(5, 0).paths()));
+    }
+
+    /**
+     * A chain of diamonds has two to the power of diamonds equally long paths, finding a few of them must not
+     * visit all of them.
+     */
+    @Test
+    void equallyLongPathsAreNotEnumerated() {
+        List<TaskRecord> records = new ArrayList<>();
+        records.add(newRootTaskRecord("J0", 1, 1));
+        for (int i = 1; i <= 60; i++) {
+            records.add(newTaskRecord("L" + i, 1, 1, List.of("J" + (i - 1))));
+            records.add(newTaskRecord("R" + i, 1, 1, List.of("J" + (i - 1))));
+            records.add(newTaskRecord("J" + i, 1, 1, List.of("L" + i, "R" + i)));
+        }
+        Schedule schedule = cpmEngine.schedule(TaskGraph.of(records));
+
+        CriticalPaths paths = assertTimeoutPreemptively(Duration.ofSeconds(5),
+                () -> schedule.criticalPaths(9, 0));
+
+        assertEquals(10, paths.paths().size());
+        assertEquals(10, paths.paths().stream().map(CriticalPaths.TaskPath::tasks).distinct().count());
+        paths.paths().forEach(path -> assertEquals(121, path.duration()));
+    }
+
+    @Test
+    void largeProject() {
+        Schedule schedule = cpmEngine.schedule(TaskGraph.of(
+                ScheduleGenerator.generate(ScheduleGenerator.Shape.LAYERED, 100_000, 42)));
+
+        CriticalPaths paths = assertTimeoutPreemptively(Duration.ofSeconds(5),
+                () -> schedule.criticalPaths(100, Integer.MAX_VALUE));
+
+        assertEquals(101, paths.paths().size());
+        assertEquals(schedule.totalDuration(), paths.paths().get(0).duration());
+        for (int i = 1; i < paths.paths().size(); i++) {
+            assertTrue(paths.paths().get(i - 1).duration() >= paths.paths().get(i).duration());
+        }
+        paths.paths().get(0).tasks().forEach(task -> assertEquals(0, task.totalFloat()));
+    }
+
+    private static List<String> codes(List<CriticalPaths.TaskPath> paths) {
+        return paths.stream()
+                .map(path -> String.join(" ", path.tasks().stream().map(CriticalPaths.PathTask::taskCode).toList()))
+                .toList();
+    }
+
+}
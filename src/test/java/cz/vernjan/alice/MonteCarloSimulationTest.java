@@ -0,0 +1,113 @@
+package cz.vernjan.alice;
+
+import cz.vernjan.alice.domain.DurationDistribution;
+import cz.vernjan.alice.domain.DurationDistribution.Shape;
+import cz.vernjan.alice.domain.SimulationResult;
+import cz.vernjan.alice.domain.TaskRecord;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+import static cz.vernjan.alice.TaskRecordFactory.newRootTaskRecord;
+import static cz.vernjan.alice.TaskRecordFactory.newTaskRecord;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MonteCarloSimulationTest {
+
+    private final List<TaskRecord> taskRecords = List.of(
+            newRootTaskRecord("A1", 2, 1),
+            newRootTaskRecord("A2", 3, 3),
+            newTaskRecord("B", 4, 5, List.of("A1", "A2")),
+            newTaskRecord("C", 2, 1, List.of("A2")),
+            newTaskRecord("D", 5, 3, List.of("B")),
+            newTaskRecord("E", 1, 2, List.of("C")),
+            newTaskRecord("F", 2, 4, List.of("C")),
+            newTaskRecord("G", 4, 4, List.of("D", "E")),
+            newTaskRecord("H1", 3, 1, List.of("F", "G")),
+            newTaskRecord("H2", 1, 20, List.of("F"))
+    );
+
+    private final TaskGraph graph = TaskGraph.of(taskRecords);
+
+    @Test
+    void withoutSpread_matchesCpm() {
+        Schedule schedule = new CpmEngine().schedule(graph);
+
+        SimulationResult result = run(new SimulationSettings(100, 1L, null, null, null), 1);
+
+        assertEquals(new SimulationResult.Percentiles(19, 19, 19, 19), result.totalDuration());
+        for (int id = 0; id < graph.size(); id++) {
+            assertEquals(schedule.isCritical(id) ? 1 : 0, result.tasks().get(id).criticality(), graph.taskCode(id));
+        }
+    }
+
+    @Test
+    void sameSeed_sameResult_regardlessOfParallelism() {
+        SimulationSettings settings = new SimulationSettings(5000, 7L, 0.3, Shape.PERT, null);
+
+        assertEquals(run(settings, 1), run(settings, 3));
+    }
+
+    @Test
+    void sampleDistributions() {
+        TaskGraph singleTask = TaskGraph.of(List.of(newRootTaskRecord("A", 5, 1)));
+
+        assertEquals(5, mean(singleTask, new DurationDistribution(Shape.TRIANGULAR, 0, 5, 10, 0, 0)), 0.1);
+        assertEquals(3, mean(singleTask, new DurationDistribution(Shape.PERT, 0, 2, 10, 0, 0)), 0.1);
+        assertEquals(2, mean(singleTask, new DurationDistribution(Shape.BETA, 0, 0, 10, 0.5, 2)), 0.1);
+    }
+
+    @Test
+    void spreadShiftsCriticality() {
+        // F has 10 units of slack, it becomes critical only when it takes long enough
+        SimulationResult result = run(new SimulationSettings(2000, 3L, null, null,
+                Map.of("F", new DurationDistribution(Shape.TRIANGULAR, 2, 2, 20, 0, 0))), 1);
+
+        double criticality = result.tasks().get(graph.indexOf("F")).criticality();
+        assertTrue(criticality > 0.2 && criticality < 0.8, "criticality of F: " + criticality);
+    }
+
+    @Test
+    void throwSimulationException_whenSettingsInvalid() {
+        assertThrows(SimulationException.class, () -> run(new SimulationSettings(0, 1L, null, null, null), 1));
+        assertThrows(SimulationException.class, () -> run(new SimulationSettings(10, 1L, 1.5, null, null), 1));
+        assertThrows(SimulationException.class, () -> run(new SimulationSettings(10, 1L, null, null,
+                Map.of("A1", new DurationDistribution(Shape.TRIANGULAR, 3, 1, 2, 0, 0))), 1));
+        assertThrows(TaskNotFoundException.class, () -> run(new SimulationSettings(10, 1L, null, null,
+                Map.of("X", new DurationDistribution(Shape.TRIANGULAR, 1, 1, 2, 0, 0))), 1));
+    }
+
+    @Test
+    void throwSimulationException_whenTooManySamples() {
+        List<TaskRecord> chain = new ArrayList<>();
+        chain.add(newRootTaskRecord("T0", 1, 1));
+        for (int i = 1; i <= 1000; i++) {
+            chain.add(newTaskRecord("T" + i, 1, 1, List.of("T" + (i - 1))));
+        }
+        TaskGraph large = TaskGraph.of(chain);
+        SimulationSettings settings = new SimulationSettings(SimulationSettings.MAX_ITERATIONS, 1L, null, null, null);
+
+        assertThrows(SimulationException.class,
+                () -> new MonteCarloSimulation(large, settings).run(settings.iterations(), 1L, ForkJoinPool.commonPool()));
+    }
+
+    private SimulationResult run(SimulationSettings settings, int parallelism) {
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            return new MonteCarloSimulation(graph, settings).run(settings.iterations(), settings.seed(), pool);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private static double mean(TaskGraph graph, DurationDistribution distribution) {
+        SimulationSettings settings = new SimulationSettings(20000, 11L, null, null, Map.of("A", distribution));
+        return new MonteCarloSimulation(graph, settings).run(20000, 11L, ForkJoinPool.commonPool()).totalDuration().mean();
+    }
+
+}
@@ -0,0 +1,163 @@
+package cz.vernjan.alice;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+
+import static cz.vernjan.alice.TaskRecordFactory.newRootTaskRecord;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ProjectCacheTest {
+
+    private final AtomicLong time = new AtomicLong();
+
+    private final ProjectCache fixture = new ProjectCache(
+            new ProjectCacheProperties(Duration.ofMinutes(1), 10), time::get);
+
+    @Test
+    void getReturnsCachedProject() {
+        Schedule project = newProject(2);
+
+        assertSame(project, fixture.get("foo", 1, () -> project));
+        assertSame(project, fixture.get("foo", 1, () -> newProject(2)));
+
+        assertEquals(new ProjectCache.Stats(1, 1, 0, 0, 1, 2), fixture.stats());
+    }
+
+    @Test
+    void getInvalidatesEntry_whenContentHashChanges() {
+        Schedule project = newProject(2);
+        Schedule changedProject = newProject(3);
+
+        fixture.get("foo", 1, () -> project);
+
+        assertSame(changedProject, fixture.get("foo", 2, () -> changedProject));
+        assertEquals(new ProjectCache.Stats(0, 2, 0, 0, 1, 3), fixture.stats());
+    }
+
+    @Test
+    void getInvalidatesEntry_whenTtlExpires() {
+        Schedule project = fixture.get("foo", 1, () -> newProject(2));
+
+        time.addAndGet(Duration.ofMinutes(1).toNanos());
+
+        assertNotSame(project, fixture.get("foo", 1, () -> newProject(2)));
+        assertEquals(2, fixture.stats().misses());
+    }
+
+    @Test
+    void getEvictsLeastRecentlyUsed_whenMaxWeightExceeded() {
+        Schedule foo = fixture.get("foo", 1, () -> newProject(4));
+        fixture.get("bar", 1, () -> newProject(4));
+        fixture.get("foo", 1, () -> newProject(4));
+        fixture.get("baz", 1, () -> newProject(4));
+
+        assertSame(foo, fixture.get("foo", 1, () -> newProject(4)));
+        assertEquals(new ProjectCache.Stats(2, 3, 0, 1, 2, 8), fixture.stats());
+    }
+
+    @Test
+    void getDoesNotCacheProjectHeavierThanMaxWeight() {
+        fixture.get("foo", 1, () -> newProject(11));
+
+        assertEquals(0, fixture.stats().size());
+    }
+
+    @Test
+    void concurrentMisses_evaluateOnce() throws Exception {
+        int callers = 32;
+        AtomicInteger evaluations = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        Schedule project = newProject(2);
+
+        ExecutorService executor = Executors.newFixedThreadPool(callers);
+        try {
+            List<Future<Schedule>> results = new ArrayList<>();
+            for (int i = 0; i < callers; i++) {
+                results.add(executor.submit(() -> fixture.get("foo", 1, () -> {
+                    evaluations.incrementAndGet();
+                    await(release);
+                    return project;
+                })));
+            }
+            awaitCoalesced(callers - 1);
+            release.countDown();
+
+            for (Future<Schedule> result : results) {
+                assertSame(project, result.get(10, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(1, evaluations.get());
+        assertEquals(new ProjectCache.Stats(0, 1, callers - 1, 0, 1, 2), fixture.stats());
+    }
+
+    @Test
+    void concurrentMisses_shareFailure_andNextLookupRetries() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<Schedule> leader = executor.submit(() -> fixture.get("foo", 1, () -> {
+                await(release);
+                throw new IllegalStateException("broken");
+            }));
+            awaitFlight();
+            Future<Schedule> waiter = executor.submit(() -> fixture.get("foo", 1, () -> newProject(2)));
+            awaitCoalesced(1);
+            release.countDown();
+
+            for (Future<Schedule> result : List.of(leader, waiter)) {
+                ExecutionException e = assertThrows(ExecutionException.class, () -> result.get(10, TimeUnit.SECONDS));
+                assertEquals("broken", e.getCause().getMessage());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        Schedule project = newProject(2);
+        assertSame(project, fixture.get("foo", 1, () -> project));
+    }
+
+    private void awaitFlight() throws InterruptedException {
+        while (fixture.stats().misses() == 0) {
+            Thread.sleep(1);
+        }
+    }
+
+    private void awaitCoalesced(int waiting) throws InterruptedException {
+        while (fixture.stats().coalesced() < waiting) {
+            Thread.sleep(1);
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static Schedule newProject(int taskCount) {
+        return new CpmEngine().schedule(TaskGraph.of(IntStream.range(0, taskCount)
+                .mapToObj(i -> newRootTaskRecord("T" + i, 1, 1))
+                .toList()));
+    }
+
+}
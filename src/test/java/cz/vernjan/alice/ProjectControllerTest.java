@@ -1,30 +1,70 @@
 package cz.vernjan.alice;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import cz.vernjan.alice.domain.DurationDistribution;
 import cz.vernjan.alice.domain.Interval;
 import cz.vernjan.alice.domain.Project;
 import cz.vernjan.alice.domain.ProjectTask;
+import cz.vernjan.alice.domain.ScheduleChange;
+import cz.vernjan.alice.domain.SimulationResult;
 import cz.vernjan.alice.domain.TaskRecord;
+import cz.vernjan.alice.domain.ValidationReport;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.zip.GZIPInputStream;
 
+import static org.hamcrest.Matchers.contains;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest
+@Import({ProjectMetrics.class, SimpleMeterRegistry.class})
+@EnableConfigurationProperties(EncodingProperties.class)
 class ProjectControllerTest {
 
     @MockBean
     private ProjectService projectService;
 
+    @MockBean
+    private ProjectUploader projectUploader;
+
     @Autowired
     private MockMvc mockMvc;
 
@@ -35,6 +75,11 @@ class ProjectControllerTest {
         Project project = new Project(10, 5, List.of(projectTask));
 
         when(projectService.loadProject(anyString())).thenReturn(project);
+        when(projectService.loadSchedule(anyString()))
+                .thenReturn(new CpmEngine().schedule(TaskGraph.of(List.of(taskRecord))));
+        when(projectService.loadEditedProject(anyString())).thenReturn(project);
+        when(projectService.editProject(anyString(), any()))
+                .thenReturn(new ScheduleChange(12, 5, List.of(projectTask), List.of()));
     }
 
     @Test
@@ -47,6 +92,44 @@ class ProjectControllerTest {
                 .andExpect(content().json(expectedResponseBody));
     }
 
+    @Test
+    public void getProject_invalidDependencies() throws Exception {
+        when(projectService.loadProject("broken")).thenThrow(new GraphValidationException(new ValidationReport(
+                List.of("A"),
+                List.of(new ValidationReport.DanglingDependency("B", "X")),
+                List.of(List.of("C", "D")),
+                List.of())));
+
+        mockMvc.perform(get("/project/broken"))
+                .andExpect(status().isUnprocessableEntity())
+                .andExpect(jsonPath("$.duplicateTasks[0]").value("A"))
+                .andExpect(jsonPath("$.danglingDependencies[0].dependency").value("X"))
+                .andExpect(jsonPath("$.cycles[0][1]").value("D"));
+    }
+
+    @Test
+    public void uploadProject() throws Exception {
+        Schedule schedule = new CpmEngine().schedule(TaskGraph.of(List.of(TaskRecordFactory.newRootTaskRecord("A", 7, 3))));
+        when(projectUploader.upload(any(), eq(true), eq(4L))).thenReturn(new ProjectUploader.Upload("upload-1", schedule));
+
+        mockMvc.perform(post("/project")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .header(HttpHeaders.CONTENT_ENCODING, "gzip")
+                        .content(new byte[4]))
+                .andExpect(status().isCreated())
+                .andExpect(header().string(HttpHeaders.LOCATION, "/project/upload-1"))
+                .andExpect(content().json("""
+                        {"id": "upload-1", "totalDuration": 7, "highestCrewAssignment": 3}"""));
+    }
+
+    @Test
+    public void uploadProject_rejected() throws Exception {
+        when(projectUploader.upload(any(), eq(false), eq(2L))).thenThrow(new UploadRejectedException());
+
+        mockMvc.perform(post("/project").contentType(MediaType.APPLICATION_JSON).content("[]"))
+                .andExpect(status().isTooManyRequests());
+    }
+
     @Test
     public void getProjectTasks() throws Exception {
         String expectedResponseBody = """
@@ -79,4 +162,318 @@ class ProjectControllerTest {
                 .andExpect(content().json(expectedResponseBody));
     }
 
-}
\ No newline at end of file
+    @Test
+    public void getProjectTasks_filteredPage() throws Exception {
+        when(projectService.loadSchedule(anyString())).thenReturn(new CpmEngine().schedule(TaskGraph.of(List.of(
+                TaskRecordFactory.newRootTaskRecord("A", 2, 1),
+                TaskRecordFactory.newRootTaskRecord("B", 5, 1),
+                TaskRecordFactory.newTaskRecord("C", 1, 1, List.of("A")),
+                TaskRecordFactory.newTaskRecord("D", 1, 1, List.of("B", "C"))))));
+
+        mockMvc.perform(get("/project/foo/task?critical=true&limit=1"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(ProjectController.NEXT_CURSOR_HEADER, "3"))
+                .andExpect(jsonPath("$[*].record.taskCode").value("B"));
+
+        mockMvc.perform(get("/project/foo/task?critical=true&limit=1&cursor=3"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(ProjectController.NEXT_CURSOR_HEADER))
+                .andExpect(jsonPath("$[*].record.taskCode").value("D"));
+    }
+
+    @Test
+    public void getProjectTasks_cachedBodyWithETag() throws Exception {
+        String eTag = mockMvc.perform(get("/project/foo/task"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(header().string(HttpHeaders.VARY, "Accept, Accept-Encoding"))
+                .andExpect(jsonPath("$[0].record.taskCode").value("testId"))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(get("/project/foo/task").header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, eTag));
+
+        mockMvc.perform(get("/project/foo/task").header(HttpHeaders.IF_NONE_MATCH, "\"other\""))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    public void getProjectTasks_gzip() throws Exception {
+        byte[] plain = mockMvc.perform(get("/project/foo/task"))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        MvcResult result = mockMvc.perform(get("/project/foo/task").header(HttpHeaders.ACCEPT_ENCODING, "br, gzip"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "gzip"))
+                .andReturn();
+
+        try (InputStream gzip = new GZIPInputStream(new ByteArrayInputStream(result.getResponse().getContentAsByteArray()))) {
+            assertArrayEquals(plain, gzip.readAllBytes());
+        }
+    }
+
+    @Test
+    public void getProjectTasks_smileAndCbor() throws Exception {
+        JsonNode json = new ObjectMapper().readTree(mockMvc.perform(get("/project/foo/task"))
+                .andReturn().getResponse().getContentAsByteArray());
+
+        byte[] smile = mockMvc.perform(get("/project/foo/task").accept(TaskListEncoder.APPLICATION_SMILE))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(TaskListEncoder.APPLICATION_SMILE))
+                .andReturn().getResponse().getContentAsByteArray();
+        assertEquals(json, new ObjectMapper(new SmileFactory()).readTree(smile));
+
+        byte[] cbor = mockMvc.perform(get("/project/foo/task").accept(MediaType.APPLICATION_CBOR))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_CBOR))
+                .andReturn().getResponse().getContentAsByteArray();
+        assertEquals(json, new ObjectMapper(new CBORFactory()).readTree(cbor));
+
+        byte[] filteredCbor = mockMvc.perform(get("/project/foo/task?critical=true").accept(MediaType.APPLICATION_CBOR))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_CBOR))
+                .andReturn().getResponse().getContentAsByteArray();
+        assertEquals(json, new ObjectMapper(new CBORFactory()).readTree(filteredCbor));
+    }
+
+    @Test
+    public void acceptsGzip() {
+        assertTrue(ProjectController.acceptsGzip(List.of("gzip")));
+        assertTrue(ProjectController.acceptsGzip(List.of("deflate, GZIP;q=0.5")));
+        assertFalse(ProjectController.acceptsGzip(List.of("gzip;q=0")));
+        assertFalse(ProjectController.acceptsGzip(List.of("br", "identity")));
+        assertFalse(ProjectController.acceptsGzip(null));
+    }
+
+    @Test
+    public void getProjectTask() throws Exception {
+        mockMvc.perform(get("/project/foo/task/testId"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.record.taskCode").value("testId"))
+                .andExpect(jsonPath("$.endInterval.to").value(10));
+
+        mockMvc.perform(get("/project/foo/task/missing"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    public void getUpstreamAndDownstreamTasks() throws Exception {
+        when(projectService.loadSchedule(anyString())).thenReturn(new CpmEngine().schedule(TaskGraph.of(List.of(
+                TaskRecordFactory.newRootTaskRecord("A", 2, 1),
+                TaskRecordFactory.newRootTaskRecord("B", 5, 1),
+                TaskRecordFactory.newTaskRecord("C", 1, 1, List.of("A")),
+                TaskRecordFactory.newTaskRecord("D", 1, 1, List.of("B", "C"))))));
+
+        mockMvc.perform(get("/project/foo/task/D/upstream"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].record.taskCode").value(contains("B", "C", "A")));
+
+        mockMvc.perform(get("/project/foo/task/D/upstream?depth=1&critical=true"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].record.taskCode").value(contains("B")));
+
+        mockMvc.perform(get("/project/foo/task/A/downstream"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].record.taskCode").value(contains("C", "D")));
+
+        mockMvc.perform(get("/project/foo/task/X/downstream"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    public void getProjectComponents() throws Exception {
+        when(projectService.loadSchedule(anyString())).thenReturn(new CpmEngine().schedule(TaskGraph.of(List.of(
+                TaskRecordFactory.newRootTaskRecord("A", 2, 1),
+                TaskRecordFactory.newRootTaskRecord("B", 5, 3),
+                TaskRecordFactory.newTaskRecord("C", 1, 1, List.of("A"))))));
+
+        mockMvc.perform(get("/project/foo/components"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].firstTaskCode").value(contains("A", "B")))
+                .andExpect(jsonPath("$[*].tasks").value(contains(2, 1)))
+                .andExpect(jsonPath("$[*].totalDuration").value(contains(3, 5)))
+                .andExpect(jsonPath("$[1].crewPeak.assignment").value(3));
+    }
+
+    @Test
+    public void diffProjects() throws Exception {
+        when(projectService.loadSchedule("previous")).thenReturn(new CpmEngine().schedule(TaskGraph.of(List.of(
+                TaskRecordFactory.newRootTaskRecord("A", 2, 1),
+                TaskRecordFactory.newRootTaskRecord("B", 5, 3)))));
+        when(projectService.loadSchedule("current")).thenReturn(new CpmEngine().schedule(TaskGraph.of(List.of(
+                TaskRecordFactory.newRootTaskRecord("A", 2, 1),
+                TaskRecordFactory.newTaskRecord("C", 1, 1, List.of("A"))))));
+        String expectedResponseBody = """
+                {"previousTotalDuration":5,"totalDuration":3,"previousHighestCrewAssignment":4,"highestCrewAssignment":1}
+                {"taskCode":"A","change":"CHANGED","startInterval":{"from":0,"to":0},"endInterval":{"from":2,"to":2},\
+                "startShift":0,"finishShift":0,"critical":true,"criticalityChanged":true,\
+                "addedDependencies":[],"removedDependencies":[]}
+                {"taskCode":"C","change":"ADDED","startInterval":{"from":2,"to":2},"endInterval":{"from":3,"to":3},\
+                "startShift":0,"finishShift":0,"critical":true,"criticalityChanged":false,\
+                "addedDependencies":["A"],"removedDependencies":[]}
+                {"taskCode":"B","change":"REMOVED","startInterval":{"from":0,"to":0},"endInterval":{"from":5,"to":5},\
+                "startShift":0,"finishShift":0,"critical":true,"criticalityChanged":false,\
+                "addedDependencies":[],"removedDependencies":[]}
+                """;
+
+        MvcResult result = mockMvc.perform(get("/project/previous/diff/current"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andExpect(content().string(expectedResponseBody));
+    }
+
+    @Test
+    public void getActiveTasks() throws Exception {
+        when(projectService.loadSchedule(anyString())).thenReturn(new CpmEngine().schedule(TaskGraph.of(List.of(
+                TaskRecordFactory.newRootTaskRecord("A", 2, 1),
+                TaskRecordFactory.newRootTaskRecord("B", 5, 3),
+                TaskRecordFactory.newTaskRecord("C", 1, 1, List.of("A"))))));
+
+        mockMvc.perform(get("/project/foo/active").param("from", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].record.taskCode").value(contains("B", "C")));
+
+        mockMvc.perform(get("/project/foo/active").param("from", "0").param("to", "10").param("late", "true"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].record.taskCode").value(contains("B", "A", "C")));
+
+        mockMvc.perform(get("/project/foo/active").param("from", "0").param("crew", "unknown"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$").isEmpty());
+    }
+
+    @Test
+    public void getCriticalPaths() throws Exception {
+        when(projectService.loadSchedule(anyString())).thenReturn(new CpmEngine().schedule(TaskGraph.of(List.of(
+                TaskRecordFactory.newRootTaskRecord("A", 2, 1),
+                TaskRecordFactory.newRootTaskRecord("B", 5, 3),
+                TaskRecordFactory.newTaskRecord("C", 1, 1, List.of("A", "B"))))));
+
+        mockMvc.perform(get("/project/foo/critical-paths"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalDuration").value(6))
+                .andExpect(jsonPath("$.paths[*].duration").value(contains(6, 3)))
+                .andExpect(jsonPath("$.paths[1].totalFloat").value(3))
+                .andExpect(jsonPath("$.paths[1].tasks[*].taskCode").value(contains("A", "C")))
+                .andExpect(jsonPath("$.paths[1].tasks[0].freeFloat").value(3));
+
+        mockMvc.perform(get("/project/foo/critical-paths").param("maxFloat", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.paths[*].duration").value(contains(6)));
+    }
+
+    @Test
+    public void streamProjectTasks() throws Exception {
+        String expectedResponseBody = """
+                {"record":{"taskCode":"testId","operationName":"operation","elementName":"element",\
+                "duration":10,"crew":{"name":"crew","assignment":5},"dependencies":[]},\
+                "startInterval":{"from":0,"to":0},"endInterval":{"from":10,"to":10}}
+                """;
+
+        MvcResult result = mockMvc.perform(get("/project/foo/task").accept(MediaType.APPLICATION_NDJSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andExpect(content().string(expectedResponseBody));
+    }
+
+    @Test
+    public void getProjectResources() throws Exception {
+        String expectedResponseBody = """
+                [
+                  {
+                    "crew": "crew",
+                    "peak": 5,
+                    "steps": [{"from": 0, "to": 10, "assignment": 5}]
+                  }
+                ]""";
+
+        mockMvc.perform(get("/project/foo/resources"))
+                .andExpect(status().isOk())
+                .andExpect(content().json(expectedResponseBody));
+    }
+
+    @Test
+    public void simulateProject() throws Exception {
+        when(projectService.simulateProject(eq("foo"), any())).thenReturn(new SimulationResult(
+                100, 1, new SimulationResult.Percentiles(10.5, 10, 11, 12),
+                List.of(new SimulationResult.TaskCriticality("testId", 1))));
+
+        mockMvc.perform(post("/project/foo/simulation")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                {"iterations": 100, "seed": 1, "spread": 0.2, "shape": "PERT"}"""))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalDuration.p80").value(11.0))
+                .andExpect(jsonPath("$.tasks[0].criticality").value(1.0));
+
+        verify(projectService).simulateProject("foo", new SimulationSettings(100, 1L, 0.2, DurationDistribution.Shape.PERT, null));
+    }
+
+    @Test
+    public void levelProject() throws Exception {
+        when(projectService.levelProject(eq("foo"), any())).thenReturn(new Project(25, 8, List.of()));
+
+        mockMvc.perform(post("/project/foo/leveling")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                {"capacities": {"crew": 8}}"""))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalDuration").value(25))
+                .andExpect(jsonPath("$.highestCrewAssignment").value(8));
+
+        verify(projectService).levelProject("foo", new LevelingSettings(Map.of("crew", 8)));
+    }
+
+    @Test
+    public void getEditedProject() throws Exception {
+        String expectedResponseBody = """
+                {"totalDuration": 10, "highestCrewAssignment": 5, "tasks": [{"record": {"taskCode": "testId"}}]}""";
+
+        mockMvc.perform(get("/project/foo/edit"))
+                .andExpect(status().isOk())
+                .andExpect(content().json(expectedResponseBody));
+    }
+
+    @Test
+    public void editProjectTask_tooLarge() throws Exception {
+        when(projectService.editProject(anyString(), any())).thenThrow(new EditTooLargeException("foo", 10, 5));
+
+        mockMvc.perform(patch("/project/foo/task/testId")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                {"duration": 12}"""))
+                .andExpect(status().isInsufficientStorage());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void editProjectTask() throws Exception {
+        String expectedResponseBody = """
+                {"totalDuration": 12, "highestCrewAssignment": 5, "removedTasks": []}""";
+
+        mockMvc.perform(patch("/project/foo/task/testId")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                {"duration": 12, "addDependencies": ["A"]}"""))
+                .andExpect(status().isOk())
+                .andExpect(content().json(expectedResponseBody));
+
+        ArgumentCaptor<Consumer<EditableSchedule>> edits = ArgumentCaptor.forClass(Consumer.class);
+        verify(projectService).editProject(eq("foo"), edits.capture());
+
+        EditableSchedule schedule = mock(EditableSchedule.class);
+        edits.getValue().accept(schedule);
+        verify(schedule).setDuration("testId", 12);
+        verify(schedule).addDependency("testId", "A");
+    }
+
+}
@@ -0,0 +1,35 @@
+package cz.vernjan.alice;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static cz.vernjan.alice.TaskRecordFactory.newRootTaskRecord;
+import static cz.vernjan.alice.TaskRecordFactory.newTaskRecord;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ProjectMetricsTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final CpmEngine cpmEngine = new CpmEngine(CpmEngineProperties.SEQUENTIAL, new ProjectMetrics(registry));
+
+    @Test
+    void scheduleRecordsPhasesAndGraphShape() {
+        cpmEngine.schedule(TaskGraph.of(List.of(
+                newRootTaskRecord("A", 1, 1),
+                newTaskRecord("B", 1, 1, List.of("A")),
+                newTaskRecord("C", 1, 1, List.of("A")),
+                newTaskRecord("D", 1, 1, List.of("A", "B", "C")))));
+
+        assertEquals(1, registry.get("alice.phase").tag("phase", "forward_pass").timer().count());
+        assertEquals(1, registry.get("alice.phase").tag("phase", "backward_pass").timer().count());
+        assertEquals(1, registry.get("alice.phase").tag("phase", "crew_peak").timer().count());
+        assertEquals(4, registry.get("alice.graph.tasks").summary().totalAmount());
+        assertEquals(5, registry.get("alice.graph.edges").summary().totalAmount());
+        assertEquals(3, registry.get("alice.graph.depth").summary().totalAmount());
+        assertEquals(3, registry.get("alice.graph.fan.in").summary().max());
+        assertEquals(3, registry.get("alice.graph.fan.out").summary().max());
+    }
+
+}
@@ -0,0 +1,191 @@
+package cz.vernjan.alice;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import cz.vernjan.alice.domain.TaskRecord;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static cz.vernjan.alice.TaskRecordFactory.newRootTaskRecord;
+import static cz.vernjan.alice.TaskRecordFactory.newTaskRecord;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ProjectRepositoryTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private static final UploadProperties UPLOADS =
+            new UploadProperties(DataSize.ofMegabytes(1), 100, 1, 0, Duration.ofMinutes(1), 10);
+
+    private final ProjectCache projectCache = new ProjectCache(new ProjectCacheProperties(Duration.ofMinutes(1), 10_000));
+
+    @TempDir
+    Path directory;
+
+    private ProjectRepository fixture;
+
+    @AfterEach
+    void tearDown() throws IOException {
+        if (fixture != null) {
+            fixture.stop();
+        }
+    }
+
+    @Test
+    void loadBundledProject_forAnyId() throws IOException {
+        fixture = start(new ProjectRepositoryProperties(null, false, false, 0));
+
+        Schedule schedule = fixture.load("foo");
+        assertEquals(1304, schedule.size());
+        assertSame(schedule, fixture.load("bar"));
+        assertEquals(1, projectCache.stats().size());
+    }
+
+    @Test
+    void loadProjectFromDirectory() throws IOException {
+        writeProject("a", 5);
+        writeProject("b", 7);
+        fixture = start(new ProjectRepositoryProperties(directory, true, false, 2));
+
+        assertEquals(new ProjectCache.Stats(0, 2, 0, 0, 2, 4), projectCache.stats());
+        assertEquals(5, fixture.load("a").totalDuration());
+        assertEquals(7, fixture.load("b").totalDuration());
+    }
+
+    @Test
+    void loadThrowsProjectNotFoundException_whenNoSuchFile() throws IOException {
+        fixture = start(new ProjectRepositoryProperties(directory, false, false, 0));
+
+        assertThrows(ProjectNotFoundException.class, () -> fixture.load("missing"));
+        assertThrows(ProjectNotFoundException.class, () -> fixture.load("../secret"));
+    }
+
+    @Test
+    void loadChangedProject_whenNotWatched() throws IOException {
+        writeProject("a", 5);
+        fixture = start(new ProjectRepositoryProperties(directory, false, false, 0));
+
+        assertEquals(5, fixture.load("a").totalDuration());
+        writeProject("a", 6);
+        assertEquals(6, fixture.load("a").totalDuration());
+    }
+
+    @Test
+    void hashProjectAgain_onlyWhenFileAttributesChange() throws IOException {
+        writeProject("a", 5);
+        fixture = start(new ProjectRepositoryProperties(directory, false, false, 0));
+        Schedule previous = fixture.load("a");
+        FileTime lastModified = Files.getLastModifiedTime(directory.resolve("a.json"));
+
+        // same size and last modified time, the file is not hashed again
+        writeProject("a", 6);
+        Files.setLastModifiedTime(directory.resolve("a.json"), lastModified);
+        assertSame(previous, fixture.load("a"));
+
+        Files.setLastModifiedTime(directory.resolve("a.json"), FileTime.fromMillis(lastModified.toMillis() + 1000));
+        assertEquals(6, fixture.load("a").totalDuration());
+    }
+
+    @Test
+    void evaluateProjectFromContentOfItsHash_whenNotCached() throws IOException {
+        writeProject("a", 5);
+        fixture = start(new ProjectRepositoryProperties(directory, false, false, 0), uncached());
+        assertEquals(5, fixture.load("a").totalDuration());
+        FileTime lastModified = Files.getLastModifiedTime(directory.resolve("a.json"));
+
+        // the file looks unchanged, but the content it's evaluated from is hashed again
+        writeProject("a", 6);
+        Files.setLastModifiedTime(directory.resolve("a.json"), lastModified);
+        ProjectRepository.Published published = fixture.loadPublished("a");
+
+        assertEquals(6, published.schedule().totalDuration());
+        assertEquals(new TaskRecordLoader().checksum(new FileSystemResource(directory.resolve("a.json"))),
+                published.contentHash());
+    }
+
+    @Test
+    void servePublishedVersion_whenNotCached() throws IOException {
+        writeProject("a", 5);
+        fixture = start(new ProjectRepositoryProperties(directory, false, true, 0), uncached());
+
+        assertSame(fixture.load("a"), fixture.load("a"));
+    }
+
+    @Test
+    void uploadsAreKeptApartFromProjects() throws IOException {
+        writeProject("a", 5);
+        fixture = start(new ProjectRepositoryProperties(directory, false, false, 0));
+        Schedule project = fixture.load("a");
+        Schedule upload = new CpmEngine().schedule(TaskGraph.of(List.of(newRootTaskRecord("A", 2, 1))));
+
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < 11; i++) {
+            ids.add(fixture.publishUpload(upload));
+        }
+
+        assertSame(project, fixture.load("a"));
+        assertEquals(1, projectCache.stats().size());
+        assertThrows(ProjectNotFoundException.class, () -> fixture.load(ids.get(0)));
+        assertSame(upload, fixture.load(ids.get(10)));
+        assertThrows(ProjectNotFoundException.class, () -> fixture.load("upload-unknown"));
+    }
+
+    @Test
+    void publishChangedProject_whenWatched() throws Exception {
+        writeProject("a", 5);
+        fixture = start(new ProjectRepositoryProperties(directory, false, true, 0));
+        Schedule previous = fixture.load("a");
+
+        writeProject("a", 8);
+
+        // the previous version is served until the new one is evaluated
+        long deadline = System.nanoTime() + Duration.ofSeconds(30).toNanos();
+        Schedule current = fixture.load("a");
+        while (current.totalDuration() != 8 && System.nanoTime() < deadline) {
+            assertSame(previous, current);
+            Thread.sleep(50);
+            current = fixture.load("a");
+        }
+        assertEquals(8, current.totalDuration());
+    }
+
+    private ProjectRepository start(ProjectRepositoryProperties properties) throws IOException {
+        return start(properties, projectCache);
+    }
+
+    private ProjectRepository start(ProjectRepositoryProperties properties, ProjectCache cache) throws IOException {
+        ProjectRepository repository = new ProjectRepository(
+                properties, new TaskRecordLoader(), new CpmEngine(), cache, UPLOADS);
+        repository.start();
+        return repository;
+    }
+
+    /**
+     * Cache too small for any project.
+     */
+    private static ProjectCache uncached() {
+        return new ProjectCache(new ProjectCacheProperties(Duration.ofMinutes(1), 1));
+    }
+
+    private void writeProject(String id, int duration) throws IOException {
+        List<TaskRecord> records = List.of(
+                newRootTaskRecord("A", 2, 1),
+                newTaskRecord("B", duration - 2, 1, List.of("A")));
+        Path temporary = Files.createTempFile(directory, id, ".tmp");
+        objectMapper.writeValue(temporary.toFile(), records);
+        Files.move(temporary, directory.resolve(id + ".json"), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+}
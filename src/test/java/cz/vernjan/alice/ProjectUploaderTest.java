@@ -0,0 +1,166 @@
+package cz.vernjan.alice;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import cz.vernjan.alice.domain.TaskRecord;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.GZIPOutputStream;
+
+import static cz.vernjan.alice.TaskRecordFactory.newRootTaskRecord;
+import static cz.vernjan.alice.TaskRecordFactory.newTaskRecord;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ProjectUploaderTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ProjectRepository repository = new ProjectRepository(
+            new ProjectRepositoryProperties(null, false, false, 0),
+            new TaskRecordLoader(),
+            new CpmEngine(),
+            new ProjectCache(new ProjectCacheProperties(Duration.ofMinutes(1), 1000)),
+            new UploadProperties(DataSize.ofMegabytes(1), 100, 2, 0, Duration.ofMinutes(1), 1000));
+
+    private ProjectUploader fixture;
+
+    @AfterEach
+    void tearDown() {
+        fixture.shutdown();
+    }
+
+    @Test
+    void upload_publishesEvaluatedProject() throws IOException {
+        fixture = uploader(DataSize.ofMegabytes(1), 100);
+
+        ProjectUploader.Upload upload = fixture.upload(new ByteArrayInputStream(json(chain(10))), false, -1);
+
+        assertEquals(20, upload.schedule().totalDuration());
+        assertTrue(upload.id().startsWith("upload-"));
+        assertSame(upload.schedule(), repository.load(upload.id()));
+    }
+
+    @Test
+    void upload_gzip() throws IOException {
+        fixture = uploader(DataSize.ofMegabytes(1), 100);
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+            gzip.write(json(chain(10)));
+        }
+
+        ProjectUploader.Upload upload = fixture.upload(new ByteArrayInputStream(compressed.toByteArray()), true, -1);
+
+        assertEquals(20, upload.schedule().totalDuration());
+    }
+
+    @Test
+    void upload_failsOverLimits() throws IOException {
+        fixture = uploader(DataSize.ofBytes(1000), 5);
+        byte[] small = json(chain(3));
+        byte[] large = json(chain(50));
+
+        assertThrows(UploadTooLargeException.class,
+                () -> fixture.upload(new ByteArrayInputStream(small), false, 1001));
+        assertThrows(UploadTooLargeException.class,
+                () -> fixture.upload(new ByteArrayInputStream(large), false, -1));
+        assertThrows(UploadTooLargeException.class,
+                () -> fixture.upload(new ByteArrayInputStream(json(chain(6))), false, -1));
+        assertEquals(6, fixture.upload(new ByteArrayInputStream(small), false, small.length).schedule().totalDuration());
+    }
+
+    @Test
+    void upload_failsOnMalformedBody() {
+        fixture = uploader(DataSize.ofMegabytes(1), 100);
+
+        assertThrows(InvalidUploadException.class,
+                () -> fixture.upload(new ByteArrayInputStream("{\"taskCode\"".getBytes()), false, -1));
+        assertThrows(GraphValidationException.class,
+                () -> fixture.upload(new ByteArrayInputStream("[{\"taskCode\":\"A\",\"dependencies\":[\"X\"]}]".getBytes()), false, -1));
+    }
+
+    @Test
+    void upload_failsOnMissingTaskCode() {
+        fixture = uploader(DataSize.ofMegabytes(1), 100);
+
+        assertThrows(GraphValidationException.class,
+                () -> fixture.upload(new ByteArrayInputStream("[{\"duration\":1}]".getBytes()), false, -1));
+    }
+
+    @Test
+    void upload_rejectedWhenAllSlotsTaken() throws Exception {
+        fixture = uploader(DataSize.ofMegabytes(1), 100);
+        ExecutorService clients = Executors.newCachedThreadPool();
+        try {
+            PipedOutputStream first = new PipedOutputStream();
+            PipedOutputStream second = new PipedOutputStream();
+            PipedInputStream firstBody = new PipedInputStream(first);
+            PipedInputStream secondBody = new PipedInputStream(second);
+            Future<ProjectUploader.Upload> firstUpload = clients.submit(() -> fixture.upload(firstBody, false, -1));
+            Future<ProjectUploader.Upload> secondUpload = clients.submit(() -> fixture.upload(secondBody, false, -1));
+
+            // both slots are taken once both uploads are reading their bodies
+            first.write(' ');
+            second.write(' ');
+            awaitRead(firstBody);
+            awaitRead(secondBody);
+
+            assertThrows(UploadRejectedException.class,
+                    () -> fixture.upload(new ByteArrayInputStream(json(chain(1))), false, -1));
+
+            first.write(json(chain(2)));
+            first.close();
+            second.write(json(chain(3)));
+            second.close();
+            assertEquals(4, firstUpload.get().schedule().totalDuration());
+            assertEquals(6, secondUpload.get().schedule().totalDuration());
+        } finally {
+            clients.shutdownNow();
+        }
+    }
+
+    private static void awaitRead(InputStream body) throws Exception {
+        long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+        while (body.available() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(0, body.available());
+    }
+
+    private ProjectUploader uploader(DataSize maxSize, int maxTasks) {
+        return new ProjectUploader(
+                new UploadProperties(maxSize, maxTasks, 2, 0, Duration.ofMinutes(1), 1000),
+                new TaskRecordLoader(),
+                new CpmEngine(),
+                repository,
+                ProjectMetrics.NOOP);
+    }
+
+    private static List<TaskRecord> chain(int size) {
+        List<TaskRecord> records = new ArrayList<>(size);
+        records.add(newRootTaskRecord("T0", 2, 1));
+        for (int i = 1; i < size; i++) {
+            records.add(newTaskRecord("T" + i, 2, 1, List.of("T" + (i - 1))));
+        }
+        return records;
+    }
+
+    private byte[] json(List<TaskRecord> records) throws IOException {
+        return objectMapper.writeValueAsBytes(records);
+    }
+
+}
@@ -0,0 +1,86 @@
+package cz.vernjan.alice;
+
+import cz.vernjan.alice.domain.Interval;
+import cz.vernjan.alice.domain.ProjectDiff;
+import cz.vernjan.alice.domain.TaskDiff;
+import cz.vernjan.alice.domain.TaskRecord;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static cz.vernjan.alice.TaskRecordFactory.newRootTaskRecord;
+import static cz.vernjan.alice.TaskRecordFactory.newTaskRecord;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ScheduleDiffTest {
+
+    private final CpmEngine cpmEngine = new CpmEngine();
+
+    @Test
+    void diff() {
+        Schedule previous = cpmEngine.schedule(TaskGraph.of(List.of(
+                newRootTaskRecord("A", 2, 1),
+                newRootTaskRecord("B", 5, 3),
+                newTaskRecord("C", 1, 1, List.of("A")),
+                newTaskRecord("D", 1, 1, List.of("B")),
+                newRootTaskRecord("E", 1, 1))));
+        Schedule current = cpmEngine.schedule(TaskGraph.of(List.of(
+                newRootTaskRecord("B", 5, 3),
+                newRootTaskRecord("A", 2, 1),
+                newTaskRecord("C", 1, 1, List.of("B", "A")),
+                newTaskRecord("D", 1, 1, List.of("B")),
+                newTaskRecord("F", 2, 2, List.of("D")))));
+        ScheduleDiff diff = new ScheduleDiff(previous, current);
+
+        assertEquals(new ProjectDiff(6, 8, 5, 4), diff.summary());
+        assertEquals(List.of(
+                new TaskDiff("A", TaskDiff.Change.CHANGED, new Interval(0, 5), new Interval(2, 7),
+                        0, 0, false, false, List.of(), List.of()),
+                new TaskDiff("C", TaskDiff.Change.CHANGED, new Interval(5, 7), new Interval(6, 8),
+                        3, 3, false, false, List.of("B"), List.of()),
+                new TaskDiff("F", TaskDiff.Change.ADDED, new Interval(6, 6), new Interval(8, 8),
+                        0, 0, true, false, List.of("D"), List.of()),
+                new TaskDiff("E", TaskDiff.Change.REMOVED, new Interval(0, 5), new Interval(1, 6),
+                        0, 0, false, false, List.of(), List.of())),
+                changes(diff));
+    }
+
+    @Test
+    void criticalityChange() {
+        Schedule previous = cpmEngine.schedule(TaskGraph.of(List.of(
+                newRootTaskRecord("A", 2, 1),
+                newRootTaskRecord("B", 3, 1))));
+        Schedule current = cpmEngine.schedule(TaskGraph.of(List.of(
+                newRootTaskRecord("A", 4, 1),
+                newRootTaskRecord("B", 3, 1))));
+
+        List<TaskDiff> changes = changes(new ScheduleDiff(previous, current));
+
+        assertEquals(List.of("A", "B"), changes.stream().map(TaskDiff::taskCode).toList());
+        assertEquals(List.of(2, 0), changes.stream().map(TaskDiff::finishShift).toList());
+        assertEquals(List.of(true, false), changes.stream().map(TaskDiff::critical).toList());
+        assertEquals(List.of(true, true), changes.stream().map(TaskDiff::criticalityChanged).toList());
+    }
+
+    @Test
+    void sameVersionHasNoChanges() {
+        List<TaskRecord> records = ScheduleGenerator.generate(ScheduleGenerator.Shape.LAYERED, 10_000, 42);
+
+        List<TaskRecord> reversed = new ArrayList<>(records);
+        Collections.reverse(reversed);
+
+        ScheduleDiff diff = new ScheduleDiff(
+                cpmEngine.schedule(TaskGraph.of(records)), cpmEngine.schedule(TaskGraph.of(reversed)));
+
+        assertEquals(List.of(), changes(diff));
+    }
+
+    private static List<TaskDiff> changes(ScheduleDiff diff) {
+        List<TaskDiff> changes = new ArrayList<>();
+        diff.forEach(changes::add);
+        return changes;
+    }
+
+}
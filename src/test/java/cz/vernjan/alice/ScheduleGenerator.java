@@ -0,0 +1,165 @@
+package cz.vernjan.alice;
+
+import cz.vernjan.alice.domain.TaskRecord;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Generates synthetic task records, the same seed always produces the same records.
+ * <p>
+ * Durations and crews roughly follow real projects: a few percent of tasks are zero-duration milestones, most
+ * tasks are short with a long tail, and a handful of crews do most of the work.
+ */
+public class ScheduleGenerator {
+
+    public enum Shape {
+        /**
+         * Every task depends on the previous one.
+         */
+        CHAIN,
+        /**
+         * Stages of parallel tasks, each stage fans out of one task and fans in to the next one.
+         */
+        FAN,
+        /**
+         * Layers of random width, tasks depend on one to three tasks of the preceding layers.
+         */
+        LAYERED,
+        /**
+         * Independent layered networks of about the same size, like separate buildings of a programme.
+         */
+        BUILDINGS
+    }
+
+    private static final int CREW_COUNT = 24;
+    private static final int BUILDING_COUNT = 8;
+    private static final int FAN_WIDTH = 1000;
+    private static final int LAYER_LOOKBEHIND = 3;
+    private static final String[] OPERATIONS = {"Formwork", "Rebar", "Concrete", "Curing", "Stripping", "Inspection"};
+
+    private final SplittableRandom random;
+    private final String[] crewNames = new String[CREW_COUNT];
+
+    private ScheduleGenerator(long seed) {
+        this.random = new SplittableRandom(seed);
+        for (int i = 0; i < CREW_COUNT; i++) {
+            crewNames[i] = "Crew " + i;
+        }
+    }
+
+    public static List<TaskRecord> generate(Shape shape, int size, long seed) {
+        ScheduleGenerator generator = new ScheduleGenerator(seed);
+        return switch (shape) {
+            case CHAIN -> generator.chain(size);
+            case FAN -> generator.fan(size);
+            case LAYERED -> generator.layered(size);
+            case BUILDINGS -> generator.buildings(size);
+        };
+    }
+
+    private List<TaskRecord> chain(int size) {
+        List<TaskRecord> records = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            records.add(newTaskRecord(i, i > 0 ? List.of(taskCode(i - 1)) : List.of()));
+        }
+        return records;
+    }
+
+    private List<TaskRecord> fan(int size) {
+        List<TaskRecord> records = new ArrayList<>(size);
+        int hub = 0;
+        records.add(newTaskRecord(0, List.of()));
+        while (records.size() < size) {
+            int stageStart = records.size();
+            int stageEnd = Math.min(stageStart + FAN_WIDTH, size - 1);
+            List<String> hubDependency = List.of(taskCode(hub));
+            for (int i = stageStart; i < stageEnd; i++) {
+                records.add(newTaskRecord(i, hubDependency));
+            }
+            List<String> stage = new ArrayList<>(stageEnd - stageStart);
+            for (int i = stageStart; i < stageEnd; i++) {
+                stage.add(taskCode(i));
+            }
+            hub = records.size();
+            records.add(newTaskRecord(hub, stage.isEmpty() ? hubDependency : stage));
+        }
+        return records;
+    }
+
+    private List<TaskRecord> layered(int size) {
+        List<TaskRecord> records = new ArrayList<>(size);
+        addLayers(records, size);
+        return records;
+    }
+
+    private List<TaskRecord> buildings(int size) {
+        List<TaskRecord> records = new ArrayList<>(size);
+        for (int building = 1; building <= BUILDING_COUNT; building++) {
+            addLayers(records, (int) ((long) size * building / BUILDING_COUNT));
+        }
+        return records;
+    }
+
+    /**
+     * Add layered tasks until there are {@code size} records, the new tasks depend only on each other.
+     */
+    private void addLayers(List<TaskRecord> records, int size) {
+        int averageWidth = Math.max(10, Math.min(1000, (int) Math.sqrt(size - records.size())));
+        List<Integer> layerStarts = new ArrayList<>();
+
+        while (records.size() < size) {
+            int layerStart = records.size();
+            int width = Math.min(averageWidth / 2 + random.nextInt(averageWidth), size - layerStart);
+            int layer = layerStarts.size();
+            layerStarts.add(layerStart);
+
+            for (int i = layerStart; i < layerStart + width; i++) {
+                List<String> dependencies = new ArrayList<>(3);
+                if (layer > 0) {
+                    int count = 1 + random.nextInt(3);
+                    for (int d = 0; d < count; d++) {
+                        // mostly the previous layer, sometimes one of the earlier ones
+                        int source = layer - 1 - (random.nextInt(5) == 0 ? random.nextInt(Math.min(layer, LAYER_LOOKBEHIND)) : 0);
+                        int sourceStart = layerStarts.get(source);
+                        int sourceEnd = layerStarts.get(source + 1);
+                        String dependency = taskCode(sourceStart + random.nextInt(sourceEnd - sourceStart));
+                        if (!dependencies.contains(dependency)) {
+                            dependencies.add(dependency);
+                        }
+                    }
+                }
+                records.add(newTaskRecord(i, List.copyOf(dependencies)));
+            }
+        }
+    }
+
+    private TaskRecord newTaskRecord(int i, List<String> dependencies) {
+        return new TaskRecord(
+                taskCode(i),
+                OPERATIONS[random.nextInt(OPERATIONS.length)],
+                "Element " + i / 50,
+                nextDuration(),
+                nextCrew(),
+                dependencies);
+    }
+
+    private int nextDuration() {
+        if (random.nextInt(20) == 0) {
+            return 0;
+        }
+        return Math.min(60, 1 + (int) (-Math.log(1 - random.nextDouble()) * 8));
+    }
+
+    private TaskRecord.Crew nextCrew() {
+        double skew = random.nextDouble();
+        double size = random.nextDouble();
+        return new TaskRecord.Crew(crewNames[(int) (CREW_COUNT * skew * skew)], 1 + (int) (8 * size * size));
+    }
+
+    private static String taskCode(int i) {
+        return "T" + i;
+    }
+
+}
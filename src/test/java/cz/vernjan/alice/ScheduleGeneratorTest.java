@@ -0,0 +1,26 @@
+package cz.vernjan.alice;
+
+import cz.vernjan.alice.ScheduleGenerator.Shape;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ScheduleGeneratorTest {
+
+    @ParameterizedTest
+    @EnumSource(Shape.class)
+    void generateValidGraph(Shape shape) {
+        TaskGraph graph = TaskGraph.of(ScheduleGenerator.generate(shape, 5000, 1));
+
+        assertEquals(5000, graph.size());
+        assertEquals(graph.size(), graph.topologicalOrder().length);
+    }
+
+    @ParameterizedTest
+    @EnumSource(Shape.class)
+    void generateSameRecords_forSameSeed(Shape shape) {
+        assertEquals(ScheduleGenerator.generate(shape, 1000, 42), ScheduleGenerator.generate(shape, 1000, 42));
+    }
+
+}
@@ -0,0 +1,64 @@
+package cz.vernjan.alice;
+
+import cz.vernjan.alice.domain.TaskRecord;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.function.IntPredicate;
+
+import static cz.vernjan.alice.TaskRecordFactory.newRootTaskRecord;
+import static cz.vernjan.alice.TaskRecordFactory.newTaskRecord;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class TaskFilterTest {
+
+    private final Schedule schedule = new CpmEngine().schedule(TaskGraph.of(List.of(
+            newRootTaskRecord("A", 2, 1),
+            newRootTaskRecord("B", 5, 1),
+            new TaskRecord("C", "paint", "wall-1", 1, new TaskRecord.Crew("X", 2), List.of("A")),
+            new TaskRecord("D", "paint", "wall-2", 0, new TaskRecord.Crew("X", 2), List.of("B")),
+            newTaskRecord("E", 3, 1, List.of("C", "D")))));
+
+    @Test
+    void all() {
+        assertArrayEquals(new int[]{0, 1, 2, 3, 4}, select(new TaskFilter(false, null, null, null, null, null)));
+    }
+
+    @Test
+    void critical() {
+        assertArrayEquals(new int[]{1, 3, 4}, select(new TaskFilter(true, null, null, null, null, null)));
+    }
+
+    @Test
+    void crewAndPrefixes() {
+        assertArrayEquals(new int[]{2, 3}, select(new TaskFilter(false, "X", null, null, null, null)));
+        assertArrayEquals(new int[]{}, select(new TaskFilter(false, "Y", null, null, null, null)));
+        assertArrayEquals(new int[]{3}, select(new TaskFilter(false, null, "wall-2", "pa", null, null)));
+    }
+
+    @Test
+    void timeWindow() {
+        assertArrayEquals(new int[]{1, 2}, select(new TaskFilter(false, null, null, null, 2, 5)));
+        // zero-duration task D at 5 and task E from 5 to 8
+        assertArrayEquals(new int[]{3, 4}, select(new TaskFilter(false, null, null, null, 5, null)));
+    }
+
+    @Test
+    void selectPages() {
+        IntPredicate filter = new TaskFilter(true, null, null, null, null, null).compile(schedule);
+
+        Schedule.TaskPage first = schedule.select(filter, 0, 2);
+        assertArrayEquals(new int[]{1, 3}, first.ids());
+        assertEquals(4, first.nextCursor());
+
+        Schedule.TaskPage second = schedule.select(filter, first.nextCursor(), 2);
+        assertArrayEquals(new int[]{4}, second.ids());
+        assertEquals(-1, second.nextCursor());
+    }
+
+    private int[] select(TaskFilter filter) {
+        return schedule.select(filter.compile(schedule), 0, Integer.MAX_VALUE).ids();
+    }
+
+}
@@ -0,0 +1,107 @@
+package cz.vernjan.alice;
+
+import cz.vernjan.alice.domain.TaskRecord;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+
+import static cz.vernjan.alice.TaskRecordFactory.newRootTaskRecord;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TaskGraphSnapshotTest {
+
+    private static final String RESOURCE = "LEO2-BE.json";
+
+    @TempDir
+    Path directory;
+
+    private final CpmEngine cpmEngine = new CpmEngine();
+
+    @Test
+    void readWrittenSnapshot() throws IOException {
+        TaskGraph graph = TaskGraph.of(List.of(
+                newRootTaskRecord("A", 2, 1),
+                new TaskRecord("B", null, "element", 3, null, List.of("A")),
+                new TaskRecord("C", "operation", "ž", 0, new TaskRecord.Crew("other", 2), List.of("A", "B"))));
+        Path snapshot = directory.resolve("graph.snapshot");
+
+        TaskGraphSnapshot.write(graph, 42, snapshot);
+        TaskGraph read = TaskGraphSnapshot.read(snapshot, 42);
+
+        assertEquals(Arrays.asList(records(graph)), Arrays.asList(records(read)));
+        assertEquals(2, read.indexOf("C"));
+        assertArrayEquals(graph.crews(), read.crews());
+        assertArrayEquals(graph.successors(), read.successors());
+        assertArrayEquals(graph.topologicalOrder(), read.topologicalOrder());
+    }
+
+    @Test
+    void readSnapshotOfResource_evaluatesSameProject() throws IOException {
+        TaskRecordLoader loader = new TaskRecordLoader();
+        long checksum = loader.checksum(RESOURCE);
+        TaskGraph graph = loader.loadGraphFromResource(RESOURCE);
+        Path snapshot = directory.resolve("graph.snapshot");
+
+        TaskGraphSnapshot.write(graph, checksum, snapshot);
+
+        assertEquals(cpmEngine.evaluate(graph), cpmEngine.evaluate(TaskGraphSnapshot.read(snapshot, checksum)));
+    }
+
+    @Test
+    void readReturnsNull_whenSnapshotStale() throws IOException {
+        Path snapshot = directory.resolve("graph.snapshot");
+        TaskGraphSnapshot.write(TaskGraph.of(List.of(newRootTaskRecord("A", 2, 1))), 42, snapshot);
+
+        assertNull(TaskGraphSnapshot.read(snapshot, 43));
+    }
+
+    @Test
+    void readReturnsNull_whenSnapshotDamaged() throws IOException {
+        Path snapshot = directory.resolve("graph.snapshot");
+        TaskGraphSnapshot.write(TaskGraph.of(List.of(newRootTaskRecord("A", 2, 1))), 42, snapshot);
+        try (FileChannel channel = FileChannel.open(snapshot, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[]{7}), channel.size() - 1);
+        }
+
+        assertNull(TaskGraphSnapshot.read(snapshot, 42));
+    }
+
+    @Test
+    void readReturnsNull_whenNoSnapshot() throws IOException {
+        assertNull(TaskGraphSnapshot.read(directory.resolve("missing.snapshot"), 42));
+    }
+
+    @Test
+    void loaderWritesSnapshot_andFallsBackToJson_whenSnapshotDamaged() throws IOException {
+        TaskRecordLoader loader = new TaskRecordLoader(ProjectMetrics.NOOP, new SnapshotProperties(directory));
+        Path snapshot = directory.resolve(RESOURCE + ".snapshot");
+
+        TaskGraph parsed = loader.loadGraphFromResource(RESOURCE);
+        assertTrue(Files.exists(snapshot));
+        assertEquals(cpmEngine.evaluate(parsed), cpmEngine.evaluate(loader.loadGraphFromResource(RESOURCE)));
+
+        Files.write(snapshot, new byte[]{1, 2, 3});
+        assertEquals(cpmEngine.evaluate(parsed), cpmEngine.evaluate(loader.loadGraphFromResource(RESOURCE)));
+        assertTrue(Files.size(snapshot) > 3);
+    }
+
+    private static TaskRecord[] records(TaskGraph graph) {
+        TaskRecord[] records = new TaskRecord[graph.size()];
+        for (int id = 0; id < graph.size(); id++) {
+            records[id] = graph.record(id);
+        }
+        return records;
+    }
+
+}
@@ -0,0 +1,171 @@
+package cz.vernjan.alice;
+
+import cz.vernjan.alice.domain.TaskRecord;
+import cz.vernjan.alice.domain.ValidationReport;
+import cz.vernjan.alice.domain.ValidationReport.DanglingDependency;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static cz.vernjan.alice.TaskRecordFactory.newRootTaskRecord;
+import static cz.vernjan.alice.TaskRecordFactory.newTaskRecord;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class TaskGraphTest {
+
+    private final List<TaskRecord> taskRecords = List.of(
+            newTaskRecord("C", 2, 1, List.of("A", "B")),
+            newRootTaskRecord("A", 3, 1),
+            newRootTaskRecord("B", 4, 1),
+            newTaskRecord("D", 1, 1, List.of("A")));
+
+    @Test
+    void buildAssignsIdsInInsertionOrder() {
+        TaskGraph graph = TaskGraph.of(taskRecords);
+
+        assertEquals(4, graph.size());
+        assertEquals(3, graph.edgeCount());
+        assertEquals(0, graph.indexOf("C"));
+        assertEquals(1, graph.indexOf("A"));
+        assertEquals(-1, graph.indexOf("X"));
+        assertEquals(3, graph.duration(graph.indexOf("A")));
+    }
+
+    @Test
+    void buildCompressedAdjacency() {
+        TaskGraph graph = TaskGraph.of(taskRecords);
+
+        int a = graph.indexOf("A");
+        assertEquals(0, graph.inDegree(a));
+        assertEquals(2, graph.outDegree(a));
+        assertArrayEquals(new int[]{0, 3}, successorsOf(graph, a));
+        assertArrayEquals(new int[]{1, 2}, predecessorsOf(graph, graph.indexOf("C")));
+    }
+
+    @Test
+    void buildTopologicalOrder() {
+        TaskGraph graph = TaskGraph.of(taskRecords);
+
+        assertArrayEquals(new int[]{1, 2, 3, 0}, graph.topologicalOrder());
+    }
+
+    @Test
+    void buildTopologicalLevels() {
+        TaskGraph graph = TaskGraph.of(taskRecords);
+
+        assertEquals(2, graph.depth());
+        assertArrayEquals(new int[]{0, 2, 4}, graph.levelOffsets());
+        assertArrayEquals(new int[]{1, 2, 0, 3}, graph.levelOrder());
+    }
+
+    @Test
+    void weaklyConnectedComponents() {
+        TaskGraph graph = TaskGraph.of(List.of(
+                newRootTaskRecord("A1", 1, 1),
+                newRootTaskRecord("X", 1, 1),
+                newTaskRecord("B2", 1, 1, List.of("A2")),
+                newTaskRecord("B1", 1, 1, List.of("A1")),
+                newRootTaskRecord("A2", 1, 1),
+                newTaskRecord("C", 1, 1, List.of("B1", "B2"))));
+
+        assertEquals(2, graph.componentCount());
+        assertArrayEquals(new int[]{0, 5, 6}, graph.componentOffsets());
+        assertArrayEquals(new int[]{0, 4, 3, 2, 5, 1}, graph.componentOrder());
+        assertEquals(5, graph.largestComponentSize());
+    }
+
+    @Test
+    void buildCrewDictionary() {
+        TaskGraph graph = TaskGraph.of(List.of(
+                new TaskRecord("A", "operation", "element", 1, new TaskRecord.Crew("X", 1), List.of()),
+                new TaskRecord("B", "operation", "element", 1, new TaskRecord.Crew("Y", 2), List.of()),
+                new TaskRecord("C", "operation", "element", 1, new TaskRecord.Crew("X", 3), List.of()),
+                new TaskRecord("D", "operation", "element", 1, null, List.of())));
+
+        assertEquals(2, graph.crewCount());
+        assertEquals(0, graph.crew(2));
+        assertEquals(-1, graph.crew(3));
+        assertEquals("Y", graph.crewName(graph.crew(1)));
+        assertEquals(-1, graph.crewIndexOf("Z"));
+    }
+
+    @Test
+    void buildReportsDuplicateTaskCodes() {
+        TaskGraph.Builder builder = TaskGraph.builder()
+                .add(newRootTaskRecord("A", 3, 1))
+                .add(newRootTaskRecord("A", 5, 1))
+                .add(newRootTaskRecord("A", 7, 1));
+
+        GraphValidationException e = assertThrows(GraphValidationException.class, builder::build);
+
+        assertEquals(new ValidationReport(List.of("A"), List.of(), List.of(), List.of()), e.report());
+    }
+
+    @Test
+    void buildReportsMissingTaskCodes() {
+        TaskGraph.Builder builder = TaskGraph.builder()
+                .add(newRootTaskRecord("A", 1, 1))
+                .add(new TaskRecord(null, null, null, 1, null, List.of("A")))
+                .add(newTaskRecord("", 1, 1, List.of("A")))
+                .add(newTaskRecord("B", 1, 1, List.of("A")));
+
+        GraphValidationException e = assertThrows(GraphValidationException.class, builder::build);
+
+        assertEquals(new ValidationReport(List.of(), List.of(), List.of(), List.of(1, 2)), e.report());
+    }
+
+    @Test
+    void buildThrowsIllegalArgumentException_whenDependencyUnknown() {
+        TaskGraph.Builder builder = TaskGraph.builder().add(newTaskRecord("A", 1, 1, List.of("X")));
+
+        assertThrows(IllegalArgumentException.class, builder::build);
+    }
+
+    @Test
+    void buildReportsAllProblems() {
+        TaskGraph.Builder builder = TaskGraph.builder()
+                .add(newRootTaskRecord("A", 1, 1))
+                .add(newTaskRecord("B", 1, 1, List.of("A", "D")))
+                .add(newTaskRecord("C", 1, 1, List.of("B", "X")))
+                .add(newTaskRecord("D", 1, 1, List.of("C")))
+                .add(newTaskRecord("E", 1, 1, List.of("D", "Y")))
+                .add(newTaskRecord("F", 1, 1, List.of("F")))
+                .add(newTaskRecord("G", 1, 1, List.of("H")))
+                .add(newTaskRecord("H", 1, 1, List.of("G")))
+                .add(newRootTaskRecord("A", 1, 1));
+
+        GraphValidationException e = assertThrows(GraphValidationException.class, builder::build);
+
+        assertEquals(new ValidationReport(
+                List.of("A"),
+                List.of(new DanglingDependency("C", "X"), new DanglingDependency("E", "Y")),
+                List.of(List.of("B", "C", "D"), List.of("F"), List.of("G", "H")),
+                List.of()), e.report());
+    }
+
+    @Test
+    void buildReportsLongCycle_withoutStackOverflow() {
+        int length = 200_000;
+        TaskGraph.Builder builder = TaskGraph.builder();
+        for (int i = 0; i < length; i++) {
+            builder.add(newTaskRecord("T" + i, 1, 1, List.of("T" + (i + 1) % length)));
+        }
+
+        GraphValidationException e = assertThrows(GraphValidationException.class, builder::build);
+
+        assertEquals(1, e.report().cycles().size());
+        assertEquals(length, e.report().cycles().get(0).size());
+    }
+
+    private static int[] successorsOf(TaskGraph graph, int id) {
+        return Arrays.copyOfRange(graph.successors(), graph.successorOffsets()[id], graph.successorOffsets()[id + 1]);
+    }
+
+    private static int[] predecessorsOf(TaskGraph graph, int id) {
+        return Arrays.copyOfRange(graph.predecessors(), graph.predecessorOffsets()[id], graph.predecessorOffsets()[id + 1]);
+    }
+
+}
@@ -0,0 +1,84 @@
+package cz.vernjan.alice;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import cz.vernjan.alice.TaskListEncoder.Body;
+import cz.vernjan.alice.TaskListEncoder.Encoding;
+import cz.vernjan.alice.TaskListEncoder.Format;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.util.unit.DataSize;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static cz.vernjan.alice.TaskRecordFactory.newRootTaskRecord;
+import static cz.vernjan.alice.TaskRecordFactory.newTaskRecord;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class TaskListEncoderTest {
+
+    private final TaskListEncoder encoder = new TaskListEncoder(
+            new ObjectMapper(), ProjectMetrics.NOOP, new EncodingProperties(DataSize.ofMegabytes(1)));
+
+    private final Schedule schedule = new CpmEngine().schedule(TaskGraph.of(List.of(
+            newRootTaskRecord("A", 2, 1),
+            newTaskRecord("B", 3, 2, List.of("A")))));
+
+    @Test
+    void everyEncodingIsEncodedOncePerSchedule() {
+        Set<String> eTags = new HashSet<>();
+        for (Format format : Format.values()) {
+            for (boolean gzip : new boolean[]{false, true}) {
+                Body body = encoder.body(schedule, new Encoding(format, gzip));
+                assertSame(body, encoder.body(schedule, new Encoding(format, gzip)));
+                eTags.add(body.eTag());
+            }
+        }
+        assertEquals(Encoding.COUNT, eTags.size());
+    }
+
+    @Test
+    void bodiesBeyondRetainedSizeAreNotKept() {
+        Encoding json = new Encoding(Format.JSON, false);
+        int size = encoder.body(schedule, json).bytes().length;
+        TaskListEncoder limited = new TaskListEncoder(
+                new ObjectMapper(), ProjectMetrics.NOOP, new EncodingProperties(DataSize.ofBytes(size)));
+        // same tasks, but none of the encodings kept yet
+        Schedule other = new CpmEngine().schedule(TaskGraph.of(List.of(
+                newRootTaskRecord("A", 2, 1),
+                newTaskRecord("B", 3, 2, List.of("A")))));
+
+        Body body = limited.body(other, json);
+        assertSame(body, limited.body(other, json));
+        assertEquals(size, limited.retainedBytes());
+
+        Body gzipBody = limited.body(other, new Encoding(Format.JSON, true));
+        assertNotSame(gzipBody, limited.body(other, new Encoding(Format.JSON, true)));
+        assertEquals(gzipBody.eTag(), limited.body(other, new Encoding(Format.JSON, true)).eTag());
+        assertEquals(size, limited.retainedBytes());
+    }
+
+    @Test
+    void eTagChangesWithSchedule() {
+        Schedule other = new CpmEngine().schedule(TaskGraph.of(List.of(
+                newRootTaskRecord("A", 2, 1),
+                newTaskRecord("B", 4, 2, List.of("A")))));
+        Encoding json = new Encoding(Format.JSON, false);
+
+        assertNotEquals(encoder.body(schedule, json).eTag(), encoder.body(other, json).eTag());
+    }
+
+    @Test
+    void negotiate() {
+        assertEquals(Format.JSON, Format.negotiate(List.of()));
+        assertEquals(Format.JSON, Format.negotiate(MediaType.parseMediaTypes("*/*")));
+        assertEquals(Format.SMILE, Format.negotiate(MediaType.parseMediaTypes("application/x-jackson-smile")));
+        assertEquals(Format.CBOR, Format.negotiate(MediaType.parseMediaTypes("application/json;q=0.5, application/cbor")));
+        assertEquals(Format.SMILE, Format.negotiate(MediaType.parseMediaTypes("application/json;q=0, application/*")));
+    }
+
+}
@@ -1,13 +1,19 @@
 package cz.vernjan.alice;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
 import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.List;
 
 import com.fasterxml.jackson.databind.JsonMappingException;
 import cz.vernjan.alice.domain.TaskRecord;
 import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
 class TaskRecordLoaderTest {
@@ -30,6 +36,38 @@ class TaskRecordLoaderTest {
         assertEquals(expectedFirstTask, tasks.get(0));
     }
 
+    @Test
+    void loadTaskRecordsFromResource_deduplicateStrings() {
+        List<TaskRecord> tasks = fixture.loadFromResource("LEO2-BE.json");
+
+        TaskRecord first = tasks.get(0);
+        TaskRecord dependency = tasks.stream()
+                .filter(task -> task.taskCode().equals(first.dependencies().get(0)))
+                .findFirst()
+                .orElseThrow();
+
+        assertSame(first.dependencies().get(0), dependency.taskCode());
+        assertSame(first.crew().name(), tasks.get(2).crew().name());
+    }
+
+    @Test
+    void loadTaskGraphFromResource() {
+        TaskGraph graph = fixture.loadGraphFromResource("LEO2-BE.json");
+
+        assertEquals(1304, graph.size());
+        assertEquals(1745, graph.edgeCount());
+        assertEquals("A610360338", graph.taskCode(0));
+    }
+
+    @Test
+    void loadTaskGraph_throwSourceChangedException_whenContentDoesNotMatchChecksum() {
+        ClassPathResource resource = new ClassPathResource("LEO2-BE.json");
+        long checksum = fixture.checksum(resource);
+
+        assertEquals(1304, fixture.loadGraph(resource, checksum).size());
+        assertThrows(SourceChangedException.class, () -> fixture.loadGraph(resource, checksum + 1));
+    }
+
     @Test
     void loadTaskRecordsFromResource_throwUncheckedIOException_whenResourceNotFound() {
         assertThrows(UncheckedIOException.class, () -> fixture.loadFromResource("NO_SUCH_FILE.json"));
@@ -40,4 +78,25 @@ class TaskRecordLoaderTest {
         assertThrows(UncheckedIOException.class, () -> fixture.loadFromResource("malformed.json"));
     }
 
+    @Test
+    void read_throwIOException_whenNumberMalformed() throws IOException {
+        for (String value : List.of("\"abc\"", "\"3\"", "true", "1.5", "1.5e99", "3000000000")) {
+            assertThrows(IOException.class, () -> read("[{\"taskCode\": \"A\", \"duration\": " + value + "}]"), value);
+            assertThrows(IOException.class,
+                    () -> read("[{\"taskCode\": \"A\", \"crew\": {\"name\": \"X\", \"assignment\": " + value + "}}]"), value);
+        }
+        assertEquals(0, read("[{\"taskCode\": \"A\", \"duration\": null}]").get(0).duration());
+    }
+
+    @Test
+    void loadTaskRecordsFromResource_throwUncheckedIOException_whenResourceIsNotArray() {
+        assertThrows(UncheckedIOException.class, () -> fixture.loadFromResource("application.properties"));
+    }
+
+    private List<TaskRecord> read(String json) throws IOException {
+        List<TaskRecord> records = new ArrayList<>();
+        fixture.read(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)), records::add);
+        return records;
+    }
+
 }
\ No newline at end of file
@@ -0,0 +1,92 @@
+package cz.vernjan.alice;
+
+import cz.vernjan.alice.domain.ProjectTask;
+import cz.vernjan.alice.domain.TaskRecord;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jol.info.GraphLayout;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static cz.vernjan.alice.TaskRecordFactory.newRootTaskRecord;
+import static cz.vernjan.alice.TaskRecordFactory.newTaskRecord;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TaskTableTest {
+
+    @Test
+    void indexOf() {
+        TaskTable.Builder builder = TaskTable.builder();
+        for (int i = 0; i < 1000; i++) {
+            builder.add("T" + i, null, null, null, i, 0);
+        }
+        builder.add("T7", null, null, null, 0, 0);
+        TaskTable table = builder.build();
+
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(i, table.indexOf("T" + i));
+        }
+        assertEquals(7, table.indexOf("T7"), "first task with a duplicate task code wins");
+        assertEquals(-1, table.indexOf("T1000"));
+        assertEquals(-1, table.indexOf(null));
+    }
+
+    @Test
+    void stringsAreDeduplicated() {
+        TaskTable.Builder builder = TaskTable.builder();
+        builder.add("A", "operation", "element", "crew", 1, 2);
+        builder.add("B", "operation", null, new String("crew"), 3, 4);
+        TaskTable table = builder.build();
+
+        assertEquals(List.of("operation", "element", "crew"), List.of(table.strings()));
+        assertEquals(table.crewNames()[0], table.crewNames()[1]);
+        assertNull(table.elementName(1));
+        assertEquals("crew", table.crewName(1));
+        assertEquals(4, table.crewAssignments()[1]);
+    }
+
+    @Test
+    void recordViewsMatchAddedRecords() {
+        List<TaskRecord> records = List.of(
+                newRootTaskRecord("A", 2, 1),
+                new TaskRecord("B", null, null, 3, null, List.of()),
+                newTaskRecord("C", 0, 2, List.of("A", "B")));
+        TaskGraph graph = TaskGraph.of(records);
+
+        for (int id = 0; id < records.size(); id++) {
+            assertEquals(records.get(id), graph.record(id));
+        }
+    }
+
+    /**
+     * Compares the evaluated schedule with what the schedule used to keep per task on top of the same int
+     * columns: the parsed records, a map of task ids and the materialized project tasks. Strings shared by both
+     * are counted once.
+     */
+    @Test
+    void footprintPerTask() {
+        int size = 20_000;
+        List<TaskRecord> records = ScheduleGenerator.generate(ScheduleGenerator.Shape.LAYERED, size, 42);
+        Schedule schedule = new CpmEngine().schedule(TaskGraph.of(records));
+
+        Map<String, Integer> ids = new HashMap<>();
+        for (int id = 0; id < size; id++) {
+            ids.put(records.get(id).taskCode(), id);
+        }
+        List<ProjectTask> tasks = List.copyOf(schedule.project().tasks());
+
+        long columnar = GraphLayout.parseInstance(schedule).totalSize();
+        long objects = GraphLayout.parseInstance(schedule, records, ids, tasks).totalSize();
+        long stringsOnly = GraphLayout.parseInstance(records.stream().map(TaskRecord::taskCode).toArray()).totalSize();
+
+        // task codes are unique strings needed by both representations, compare what's kept on top of them
+        double columnarPerTask = (double) (columnar - stringsOnly) / size;
+        double objectsPerTask = (double) (objects - stringsOnly) / size;
+        assertTrue(objectsPerTask > 4 * columnarPerTask,
+                "columnar " + columnarPerTask + " B/task, objects " + objectsPerTask + " B/task");
+    }
+
+}
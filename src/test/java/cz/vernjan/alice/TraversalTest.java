@@ -0,0 +1,77 @@
+package cz.vernjan.alice;
+
+import cz.vernjan.alice.Traversal.Direction;
+import cz.vernjan.alice.domain.TaskRecord;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static cz.vernjan.alice.TaskRecordFactory.newRootTaskRecord;
+import static cz.vernjan.alice.TaskRecordFactory.newTaskRecord;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class TraversalTest {
+
+    private final TaskGraph graph = TaskGraph.of(List.of(
+            newRootTaskRecord("A1", 2, 1),
+            newRootTaskRecord("A2", 3, 3),
+            newTaskRecord("B", 4, 5, List.of("A1", "A2")),
+            newTaskRecord("C", 2, 1, List.of("A2")),
+            newTaskRecord("D", 5, 3, List.of("B")),
+            newTaskRecord("E", 1, 2, List.of("C")),
+            newTaskRecord("F", 2, 4, List.of("C")),
+            newTaskRecord("G", 4, 4, List.of("D", "E")),
+            newTaskRecord("H1", 3, 1, List.of("F", "G")),
+            newTaskRecord("H2", 1, 20, List.of("F"))));
+
+    @Test
+    void upstream_visitsEveryDependencyOnce_nearestFirst() {
+        assertEquals(List.of("F", "G", "C", "D", "E", "A2", "B", "A1"), cone("H1", Direction.UPSTREAM, Integer.MAX_VALUE));
+    }
+
+    @Test
+    void downstream_limitedDepth() {
+        assertEquals(List.of("B", "C"), cone("A2", Direction.DOWNSTREAM, 1));
+        assertEquals(List.of("B", "C", "D", "E", "F"), cone("A2", Direction.DOWNSTREAM, 2));
+        assertEquals(List.of(), cone("A2", Direction.DOWNSTREAM, 0));
+        assertEquals(List.of(), cone("H2", Direction.DOWNSTREAM, Integer.MAX_VALUE));
+    }
+
+    @Test
+    void filter_selectsTasks_butTraversesAll() {
+        Schedule schedule = new CpmEngine().schedule(graph);
+
+        int[] ids = Traversal.cone(graph, graph.indexOf("H1"), Direction.UPSTREAM, Integer.MAX_VALUE, schedule::isCritical);
+
+        assertEquals(List.of("G", "D", "A2", "B"), taskCodes(graph, ids));
+    }
+
+    @Test
+    void largeCone_visitsEveryTaskOnce() {
+        // every task depends on the two preceding ones, so most tasks are reached along many paths
+        List<TaskRecord> records = new ArrayList<>();
+        records.add(newRootTaskRecord("T0", 1, 1));
+        records.add(newTaskRecord("T1", 1, 1, List.of("T0")));
+        for (int i = 2; i < 10_000; i++) {
+            records.add(newTaskRecord("T" + i, 1, 1, List.of("T" + (i - 1), "T" + (i - 2))));
+        }
+        TaskGraph large = TaskGraph.of(records);
+
+        int[] ids = Traversal.cone(large, 9_999, Direction.UPSTREAM, Integer.MAX_VALUE, id -> true);
+
+        assertEquals(9_999, ids.length);
+        assertEquals(9_999, Arrays.stream(ids).distinct().count());
+        assertEquals(List.of("T9998", "T9997", "T9996"), taskCodes(large, Arrays.copyOf(ids, 3)));
+    }
+
+    private List<String> cone(String taskCode, Direction direction, int maxDepth) {
+        return taskCodes(graph, Traversal.cone(graph, graph.indexOf(taskCode), direction, maxDepth, id -> true));
+    }
+
+    private static List<String> taskCodes(TaskGraph graph, int[] ids) {
+        return Arrays.stream(ids).mapToObj(graph::taskCode).toList();
+    }
+
+}
@@ -0,0 +1,29 @@
+package cz.vernjan.alice;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class WebServerConfigurationTest {
+
+    @Test
+    void virtualThreadExecutor_onlyOnJava21AndLater() throws Exception {
+        ExecutorService executor = WebServerConfiguration.newVirtualThreadPerTaskExecutor();
+
+        if (Runtime.version().feature() < 21) {
+            assertNull(executor);
+        } else {
+            try {
+                assertTrue(executor.submit(() -> Thread.currentThread().toString().startsWith("VirtualThread"))
+                        .get(10, TimeUnit.SECONDS));
+            } finally {
+                executor.shutdown();
+            }
+        }
+    }
+
+}